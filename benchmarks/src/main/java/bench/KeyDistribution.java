@@ -0,0 +1,94 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The order in which a benchmark accesses the keys of a tree.
+ * Every distribution draws its accesses up front, so no random numbers are generated inside the measured code.
+ */
+public enum KeyDistribution {
+
+    /**
+     * Every key is equally likely.
+     */
+    UNIFORM {
+        @Override
+        int[] accessOrder(int size, int accesses, Random random) {
+            int[] order = new int[accesses];
+            for (int i = 0; i < accesses; i++) order[i] = random.nextInt(size);
+            return order;
+        }
+    },
+
+    /**
+     * The i-th most popular key is accessed with a probability proportional to 1 / i.
+     * The popular keys are spread over the tree, not clustered at the smallest keys.
+     */
+    ZIPFIAN {
+        @Override
+        int[] accessOrder(int size, int accesses, Random random) {
+            double[] cumulative = new double[size];
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += 1.0 / (i + 1);
+                cumulative[i] = sum;
+            }
+            int[] popularity = permutation(size, random);
+            int[] order = new int[accesses];
+            for (int i = 0; i < accesses; i++) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                if (rank < 0) rank = -rank - 1;
+                order[i] = popularity[Math.min(rank, size - 1)];
+            }
+            return order;
+        }
+    },
+
+    /**
+     * The keys are accessed in ascending order, starting over after the largest key.
+     */
+    SEQUENTIAL {
+        @Override
+        int[] accessOrder(int size, int accesses, Random random) {
+            int[] order = new int[accesses];
+            for (int i = 0; i < accesses; i++) order[i] = i % size;
+            return order;
+        }
+    },
+
+    /**
+     * Only a handful of keys are accessed, just like the testNumbers of the PerformanceTest.
+     */
+    WORKING_SET {
+        @Override
+        int[] accessOrder(int size, int accesses, Random random) {
+            int[] workingSet = Arrays.copyOf(permutation(size, random), Math.min(WORKING_SET_SIZE, size));
+            int[] order = new int[accesses];
+            for (int i = 0; i < accesses; i++) order[i] = workingSet[random.nextInt(workingSet.length)];
+            return order;
+        }
+    };
+
+    private static final int WORKING_SET_SIZE = 4;
+
+    /**
+     * @param size, the amount of keys in the tree.
+     * @param accesses, the amount of accesses to draw.
+     * @param random, the source of the randomness, seeded so every run accesses the same keys.
+     * @return the indices of the accessed keys, between 0 and size.
+     */
+    abstract int[] accessOrder(int size, int accesses, Random random);
+
+    static int[] permutation(int size, Random random) {
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) permutation[i] = i;
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        return permutation;
+    }
+}
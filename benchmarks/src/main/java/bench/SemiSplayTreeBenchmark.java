@@ -0,0 +1,90 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import semisplay.SemiSplayTree;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the operations of a SemiSplayTree for every combination of splaySize, tree size and key distribution.
+ * add and remove are measured in pairs, so the tree keeps its size during the whole measurement.
+ * TreeSetBenchmark measures the same operations on a java.util.TreeSet, as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SemiSplayTreeBenchmark {
+
+    @Param({"3", "7", "15"})
+    public int splaySize;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"UNIFORM", "ZIPFIAN", "SEQUENTIAL", "WORKING_SET"})
+    public KeyDistribution distribution;
+
+    private TreeState state;
+    private SemiSplayTree<Integer> tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.state = new TreeState(this.size, this.distribution);
+        this.tree = new SemiSplayTree<>(this.splaySize);
+        for (Integer key : this.state.insertionOrder) this.tree.add(key);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return this.tree.contains(this.state.presentKeys[this.state.nextAccess()]);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return this.tree.contains(this.state.absentKeys[this.state.nextAccess()]);
+    }
+
+    /**
+     * Adds a key that is not in the tree and removes it again.
+     */
+    @Benchmark
+    public boolean addThenRemove() {
+        Integer key = this.state.absentKeys[this.state.nextAccess()];
+        return this.tree.add(key) & this.tree.remove(key);
+    }
+
+    /**
+     * Removes a key that is in the tree and adds it again.
+     */
+    @Benchmark
+    public boolean removeThenAdd() {
+        Integer key = this.state.presentKeys[this.state.nextAccess()];
+        return this.tree.remove(key) & this.tree.add(key);
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (int key : this.tree) sum += key;
+        return sum;
+    }
+
+    @Benchmark
+    public int depth() {
+        return this.tree.depth();
+    }
+}
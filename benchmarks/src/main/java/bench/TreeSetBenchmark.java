@@ -0,0 +1,75 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operations of SemiSplayTreeBenchmark on a java.util.TreeSet, a red-black tree, as a baseline.
+ * A TreeSet doesn't expose its depth, so there is no depth benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TreeSetBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"UNIFORM", "ZIPFIAN", "SEQUENTIAL", "WORKING_SET"})
+    public KeyDistribution distribution;
+
+    private TreeState state;
+    private TreeSet<Integer> tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.state = new TreeState(this.size, this.distribution);
+        this.tree = new TreeSet<>();
+        for (Integer key : this.state.insertionOrder) this.tree.add(key);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return this.tree.contains(this.state.presentKeys[this.state.nextAccess()]);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return this.tree.contains(this.state.absentKeys[this.state.nextAccess()]);
+    }
+
+    @Benchmark
+    public boolean addThenRemove() {
+        Integer key = this.state.absentKeys[this.state.nextAccess()];
+        return this.tree.add(key) & this.tree.remove(key);
+    }
+
+    @Benchmark
+    public boolean removeThenAdd() {
+        Integer key = this.state.presentKeys[this.state.nextAccess()];
+        return this.tree.remove(key) & this.tree.add(key);
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (int key : this.tree) sum += key;
+        return sum;
+    }
+}
@@ -0,0 +1,44 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * The keys and the accesses shared by the benchmarks of all trees.
+ * A tree holds the even keys 0, 2, ..., 2 * (size - 1), so key + 1 is never in the tree.
+ * The keys are boxed beforehand, so the measured code only allocates what the tree itself allocates.
+ */
+final class TreeState {
+
+    static final int ACCESSES = 1 << 16;
+    private static final long SEED = 42;
+
+    // the keys in the order in which they are added to the tree
+    final Integer[] insertionOrder;
+    // presentKeys[i] is in the tree, absentKeys[i] is not
+    final Integer[] presentKeys;
+    final Integer[] absentKeys;
+    private int next;
+
+    TreeState(int size, KeyDistribution distribution) {
+        Random random = new Random(SEED);
+        int[] permutation = KeyDistribution.permutation(size, random);
+        this.insertionOrder = new Integer[size];
+        for (int i = 0; i < size; i++) this.insertionOrder[i] = 2 * permutation[i];
+        int[] accessOrder = distribution.accessOrder(size, ACCESSES, random);
+        this.presentKeys = new Integer[ACCESSES];
+        this.absentKeys = new Integer[ACCESSES];
+        for (int i = 0; i < ACCESSES; i++) {
+            this.presentKeys[i] = 2 * accessOrder[i];
+            this.absentKeys[i] = 2 * accessOrder[i] + 1;
+        }
+    }
+
+    /**
+     * @return the index of the next access, wraps around after ACCESSES accesses.
+     */
+    int nextAccess() {
+        int access = this.next;
+        this.next = (access + 1) & (ACCESSES - 1);
+        return access;
+    }
+}
@@ -0,0 +1,351 @@
+package semisplay;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Base class for SemiSplayTrees with long keys whose nodes are stored in ByteBuffers instead of on the Java heap.
+ * A node is identified by its address, a long whose meaning depends on the storage (a slot number, a file offset, ...).
+ * Address 0 is never used, it means "no node" just like null does in SemiSplayTree.
+ * This class implements the search and splay operations, subclasses only implement the storage of the nodes.
+ */
+public abstract class AbstractBufferSemiSplayTree implements SearchTree<Long> {
+
+    protected static final long NONE = 0;
+
+    private final int splaySize;
+    // scratch arrays used by splay, allocated once so splaying doesn't create garbage
+    private final long[] splayPath;
+    private final long[] splayOrder;
+    private final long[] splaySubTrees;
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     */
+    protected AbstractBufferSemiSplayTree(int splaySize) {
+        assert(splaySize >= 3);
+        this.splaySize = splaySize;
+        this.splayPath = new long[splaySize];
+        this.splayOrder = new long[splaySize];
+        this.splaySubTrees = new long[splaySize + 1];
+    }
+
+    /** @return the amount of nodes used in one splay step. */
+    public int getSplaySize() {
+        return splaySize;
+    }
+
+    // The storage of the nodes, implemented by the subclasses
+
+    protected abstract long key(long node);
+
+    protected abstract long parent(long node);
+
+    protected abstract long leftChild(long node);
+
+    protected abstract long rightChild(long node);
+
+    protected abstract void setParent(long node, long parent);
+
+    protected abstract void setLeftChild(long node, long leftChild);
+
+    protected abstract void setRightChild(long node, long rightChild);
+
+    /** @return the address of a new node holding key, without parent or children. */
+    protected abstract long allocate(long key);
+
+    /** Frees the storage of a node that has been removed from the tree. */
+    protected abstract void release(long node);
+
+    protected abstract long root();
+
+    protected abstract void setRoot(long root);
+
+    protected abstract void setSize(int size);
+
+    /** @throws IllegalStateException if the storage of the tree has been released. */
+    protected abstract void ensureOpen();
+
+    /**
+     * Adds a key to the tree. If successful also adds 1 to the size of the tree.
+     * @param key, the key to add.
+     * @return returns true if the key is added successfully, false otherwise.
+     */
+    public boolean add(long key) {
+        ensureOpen();
+        long currentNode = root();
+        if (currentNode == NONE) {
+            setRoot(allocate(key));
+            setSize(1);
+            return true;
+        }
+        while (true) {
+            long currentKey = key(currentNode);
+            if (key < currentKey) {
+                long child = leftChild(currentNode);
+                if (child == NONE) {
+                    long newNode = allocate(key);
+                    setLeftChild(currentNode, newNode);
+                    setParent(newNode, currentNode);
+                    setSize(size() + 1);
+                    splay(newNode);
+                    return true;
+                }
+                currentNode = child;
+            } else if (key > currentKey) {
+                long child = rightChild(currentNode);
+                if (child == NONE) {
+                    long newNode = allocate(key);
+                    setRightChild(currentNode, newNode);
+                    setParent(newNode, currentNode);
+                    setSize(size() + 1);
+                    splay(newNode);
+                    return true;
+                }
+                currentNode = child;
+            } else {
+                // The key is already in the tree
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Checks if the tree contains a specific key.
+     * @param key, the key that gets checked.
+     * @return returns true if the key is found, false otherwise.
+     */
+    public boolean contains(long key) {
+        ensureOpen();
+        long node = find(key);
+        if (node == NONE) return false;
+        splay(node);
+        return true;
+    }
+
+    /**
+     * Removes a key from the tree. If successful also decrements 1 to the size of the tree.
+     * @param key, the key to remove.
+     * @return returns true if the key is found and removed, false otherwise.
+     */
+    public boolean remove(long key) {
+        ensureOpen();
+        long node = find(key);
+        if (node == NONE) return false;
+        long startOfSplay;
+        if (leftChild(node) != NONE && rightChild(node) != NONE) {
+            // the smallest node in the right subtree takes the place of the removed node
+            long smallestNode = rightChild(node);
+            while (leftChild(smallestNode) != NONE) smallestNode = leftChild(smallestNode);
+            startOfSplay = parent(smallestNode) != node ? parent(smallestNode) : smallestNode;
+            replace(smallestNode, rightChild(smallestNode));
+            long left = leftChild(node);
+            long right = rightChild(node);
+            setLeftChild(smallestNode, left);
+            setRightChild(smallestNode, right);
+            if (left != NONE) setParent(left, smallestNode);
+            if (right != NONE) setParent(right, smallestNode);
+            replace(node, smallestNode);
+        } else {
+            // at most one child, which takes the place of the removed node
+            long child = leftChild(node) != NONE ? leftChild(node) : rightChild(node);
+            startOfSplay = child != NONE ? child : parent(node);
+            replace(node, child);
+        }
+        release(node);
+        setSize(size() - 1);
+        if (startOfSplay != NONE) splay(startOfSplay);
+        return true;
+    }
+
+    @Override
+    public boolean add(Long key) {
+        return add(key.longValue());
+    }
+
+    @Override
+    public boolean contains(Long key) {
+        return contains(key.longValue());
+    }
+
+    @Override
+    public boolean remove(Long key) {
+        return remove(key.longValue());
+    }
+
+    /**
+     * Returns the depth of the tree, meaning the longest path down.
+     * The tree is walked through its parent links, so no queue or stack is needed.
+     * @return the depth of the tree, int. Will return -1 if the tree is empty, and 0 if there is only root.
+     */
+    @Override
+    public int depth() {
+        ensureOpen();
+        int depth = -1;
+        int currentDepth = 0;
+        long previousNode = NONE;
+        long currentNode = root();
+        while (currentNode != NONE) {
+            long parentNode = parent(currentNode);
+            long nextNode;
+            if (previousNode == parentNode) {
+                // first visit, go down as far left as possible
+                if (currentDepth > depth) depth = currentDepth;
+                if (leftChild(currentNode) != NONE) nextNode = leftChild(currentNode);
+                else if (rightChild(currentNode) != NONE) nextNode = rightChild(currentNode);
+                else nextNode = parentNode;
+            } else if (previousNode == leftChild(currentNode) && rightChild(currentNode) != NONE) {
+                // back from the left subtree, continue in the right subtree
+                nextNode = rightChild(currentNode);
+            } else {
+                // both subtrees are done
+                nextNode = parentNode;
+            }
+            if (nextNode == parentNode) currentDepth--;
+            else currentDepth++;
+            previousNode = currentNode;
+            currentNode = nextNode;
+        }
+        return depth;
+    }
+
+    /**
+     * Iterates over the keys in ascending order. The tree should not be changed during the iteration.
+     */
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        ensureOpen();
+        return new BufferSemiSplayTreeIterator();
+    }
+
+    private class BufferSemiSplayTreeIterator implements PrimitiveIterator.OfLong {
+        private long nextNode;
+
+        private BufferSemiSplayTreeIterator() {
+            nextNode = root();
+            if (nextNode == NONE) return;
+            while (leftChild(nextNode) != NONE) nextNode = leftChild(nextNode);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != NONE;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ensureOpen();
+            long currentNode = nextNode;
+            if (rightChild(nextNode) != NONE) {
+                nextNode = rightChild(nextNode);
+                while (leftChild(nextNode) != NONE) nextNode = leftChild(nextNode);
+                return key(currentNode);
+            }
+            // go up until we come from a leftChild
+            while (parent(nextNode) != NONE && rightChild(parent(nextNode)) == nextNode) nextNode = parent(nextNode);
+            nextNode = parent(nextNode);
+            return key(currentNode);
+        }
+    }
+
+    /**
+     * Searches a key without splaying.
+     * @param key, the key to search.
+     * @return the node containing the key, NONE if the key is not in the tree.
+     */
+    private long find(long key) {
+        long currentNode = root();
+        while (currentNode != NONE) {
+            long currentKey = key(currentNode);
+            if (key < currentKey) currentNode = leftChild(currentNode);
+            else if (key > currentKey) currentNode = rightChild(currentNode);
+            else return currentNode;
+        }
+        return NONE;
+    }
+
+    /**
+     * Puts replacement (which may be NONE) in the place of node, node itself keeps its own children.
+     */
+    private void replace(long node, long replacement) {
+        long parentNode = parent(node);
+        if (parentNode == NONE) setRoot(replacement);
+        else if (leftChild(parentNode) == node) setLeftChild(parentNode, replacement);
+        else setRightChild(parentNode, replacement);
+        if (replacement != NONE) setParent(replacement, parentNode);
+    }
+
+    /**
+     * Performs the splay operation on every splaySize consecutive nodes of the path from node up to the root,
+     * exactly like SemiSplayTree.splay.
+     * @param node, the node from where the splay path begins
+     */
+    private void splay(long node) {
+        long bottom = node;
+        while (true) {
+            long currNode = bottom;
+            int pathLength = 0;
+            while (currNode != NONE && pathLength < this.splaySize) {
+                this.splayPath[pathLength++] = currNode;
+                currNode = parent(currNode);
+            }
+            if (pathLength < this.splaySize) return;
+            bottom = restructure();
+        }
+    }
+
+    /**
+     * Replaces the nodes in splayPath by a complete binary tree, see SemiSplayTree.restructure.
+     * @return the root of the new subtree
+     */
+    private long restructure() {
+        long top = this.splayPath[this.splaySize - 1];
+        long parentNode = parent(top);
+        boolean topIsLeftChild = parentNode != NONE && leftChild(parentNode) == top;
+
+        int low = 0;
+        int high = this.splaySize - 1;
+        for (int i = this.splaySize - 1; i > 0; i--) {
+            long pathNode = this.splayPath[i];
+            if (leftChild(pathNode) == this.splayPath[i - 1]) {
+                this.splayOrder[high] = pathNode;
+                this.splaySubTrees[high + 1] = rightChild(pathNode);
+                high--;
+            } else {
+                this.splayOrder[low] = pathNode;
+                this.splaySubTrees[low] = leftChild(pathNode);
+                low++;
+            }
+        }
+        long bottom = this.splayPath[0];
+        this.splayOrder[low] = bottom;
+        this.splaySubTrees[low] = leftChild(bottom);
+        this.splaySubTrees[low + 1] = rightChild(bottom);
+
+        long rootOfSubTree = buildSubTree(0, this.splaySize - 1, parentNode);
+        if (parentNode == NONE) setRoot(rootOfSubTree);
+        else if (topIsLeftChild) setLeftChild(parentNode, rootOfSubTree);
+        else setRightChild(parentNode, rootOfSubTree);
+        return rootOfSubTree;
+    }
+
+    /**
+     * Recursively builds a complete binary tree out of splayOrder[from..to], see SemiSplayTree.buildSubTree.
+     * @return the root of the new binary tree
+     */
+    private long buildSubTree(int from, int to, long subRoot) {
+        if (from > to) {
+            long subTree = this.splaySubTrees[from];
+            if (subTree != NONE) setParent(subTree, subRoot);
+            return subTree;
+        }
+        int middleNodeIndex = from + (to - from + 1) / 2;
+        long middleNode = this.splayOrder[middleNodeIndex];
+        setParent(middleNode, subRoot);
+        setLeftChild(middleNode, buildSubTree(from, middleNodeIndex - 1, middleNode));
+        setRightChild(middleNode, buildSubTree(middleNodeIndex + 1, to, middleNode));
+        return middleNode;
+    }
+}
@@ -0,0 +1,135 @@
+package semisplay;
+
+/**
+ * A SemiSplayListener that moves the splaySize of a SemiSplayTree towards the value with the lowest cost per operation.
+ * The cost of an operation is the amount of nodes it touches: the nodes on its search path plus the nodes moved by its splay,
+ * so it weighs shorter paths against more restructuring.
+ *
+ * The operations are divided in epochs of epochLength operations. After an epoch at the current splaySize s,
+ * the next epoch probes a neighbouring splaySize, alternately the smaller (s - 1) / 2 and the larger 2 * s + 1, within the bounds.
+ * Starting from 3 these are the sizes 3, 7, 15, 31, ... for which a splay step builds a complete binary tree,
+ * the cost of the sizes in between is not monotone, so probing them one by one gets stuck.
+ * If the probe was cheaper than the current splaySize by more than the hysteresis (a fraction, e.g. 0.05 for 5%),
+ * the tree keeps the probed splaySize, otherwise it goes back. After every failed probe the amount of epochs
+ * until the next probe doubles (up to MAX_BACKOFF), so a tree that has found its best splaySize rarely probes.
+ * As soon as a probe succeeds, probing goes back to every other epoch, so a change in the workload is followed quickly.
+ *
+ * Usage: tree.setListener(new AdaptiveSplaySize(tree, 3, 15, 10000, 0.05)).
+ * Other listeners, like a SemiSplayMetrics, can be passed as next listener, they are told about every operation as well.
+ */
+public class AdaptiveSplaySize implements SemiSplayListener {
+
+    private static final int MAX_BACKOFF = 16;
+
+    private final SemiSplayTree<?> tree;
+    private final int minSplaySize;
+    private final int maxSplaySize;
+    private final int epochLength;
+    private final double hysteresis;
+    private final SemiSplayListener next;
+
+    private int currentSplaySize;
+    private double currentCost;
+    // the splaySize of the running probe, 0 if the current epoch is not a probe
+    private int probeSplaySize;
+    private int direction = -1;
+    private int backoff = 1;
+    private int epochsUntilProbe = 1;
+    private int epochOperations;
+    private long epochCost;
+
+    /**
+     * Constructor
+     * @param tree, the tree whose splaySize is tuned, the tuner still has to be set as its listener.
+     * @param minSplaySize, the smallest splaySize to use, must be larger or equal to 3.
+     * @param maxSplaySize, the largest splaySize to use.
+     * @param epochLength, the amount of operations over which the cost of a splaySize is measured.
+     * @param hysteresis, the fraction by which a probed splaySize must be cheaper than the current one to switch to it.
+     */
+    public AdaptiveSplaySize(SemiSplayTree<?> tree, int minSplaySize, int maxSplaySize, int epochLength, double hysteresis) {
+        this(tree, minSplaySize, maxSplaySize, epochLength, hysteresis, null);
+    }
+
+    /**
+     * Constructor
+     * @param tree, the tree whose splaySize is tuned, the tuner still has to be set as its listener.
+     * @param minSplaySize, the smallest splaySize to use, must be larger or equal to 3.
+     * @param maxSplaySize, the largest splaySize to use.
+     * @param epochLength, the amount of operations over which the cost of a splaySize is measured.
+     * @param hysteresis, the fraction by which a probed splaySize must be cheaper than the current one to switch to it.
+     * @param next, a listener that is told about every operation as well, may be null.
+     */
+    public AdaptiveSplaySize(SemiSplayTree<?> tree, int minSplaySize, int maxSplaySize, int epochLength, double hysteresis,
+                             SemiSplayListener next) {
+        if (minSplaySize < 3 || maxSplaySize < minSplaySize) throw new IllegalArgumentException("invalid splaySize bounds: " + minSplaySize + ", " + maxSplaySize);
+        if (epochLength < 1) throw new IllegalArgumentException("epochLength must be at least 1");
+        if (hysteresis < 0 || hysteresis >= 1) throw new IllegalArgumentException("hysteresis must be between 0 and 1");
+        this.tree = tree;
+        this.minSplaySize = minSplaySize;
+        this.maxSplaySize = maxSplaySize;
+        this.epochLength = epochLength;
+        this.hysteresis = hysteresis;
+        this.next = next;
+        this.currentSplaySize = Math.max(minSplaySize, Math.min(maxSplaySize, tree.getSplaySize()));
+        tree.setSplaySize(this.currentSplaySize);
+    }
+
+    /**
+     * @return the splaySize the tuner currently considers the best, the tree may be probing another one.
+     */
+    public int getCurrentSplaySize() {
+        return this.currentSplaySize;
+    }
+
+    @Override
+    public void onOperation(Operation operation, int pathLength, int splaySteps, int nodesTouched) {
+        if (this.next != null) this.next.onOperation(operation, pathLength, splaySteps, nodesTouched);
+        this.epochCost += nodesTouched;
+        if (++this.epochOperations == this.epochLength) endEpoch();
+    }
+
+    @Override
+    public void onRootChange(int operationsSinceLastChange) {
+        if (this.next != null) this.next.onRootChange(operationsSinceLastChange);
+    }
+
+    private void endEpoch() {
+        double cost = (double) this.epochCost / this.epochOperations;
+        this.epochCost = 0;
+        this.epochOperations = 0;
+        if (this.probeSplaySize != 0) {
+            if (cost < this.currentCost * (1 - this.hysteresis)) {
+                // keep going in the same direction, as long as it pays off
+                this.currentSplaySize = this.probeSplaySize;
+                this.currentCost = cost;
+                this.backoff = 1;
+            } else {
+                this.tree.setSplaySize(this.currentSplaySize);
+                this.direction = -this.direction;
+                this.backoff = Math.min(2 * this.backoff, MAX_BACKOFF);
+            }
+            this.probeSplaySize = 0;
+            this.epochsUntilProbe = this.backoff;
+            return;
+        }
+        this.currentCost = cost;
+        if (--this.epochsUntilProbe > 0) return;
+        int probe = neighbour(this.direction);
+        if (probe == this.currentSplaySize) {
+            this.direction = -this.direction;
+            probe = neighbour(this.direction);
+            if (probe == this.currentSplaySize) return;
+        }
+        this.probeSplaySize = probe;
+        this.tree.setSplaySize(probe);
+    }
+
+    /**
+     * @param direction, -1 for the smaller neighbour, 1 for the larger one.
+     * @return the neighbouring splaySize within the bounds, the current splaySize if it is at the bound.
+     */
+    private int neighbour(int direction) {
+        if (direction < 0) return Math.max(this.minSplaySize, (this.currentSplaySize - 1) / 2);
+        return (int) Math.min(this.maxSplaySize, 2L * this.currentSplaySize + 1);
+    }
+}
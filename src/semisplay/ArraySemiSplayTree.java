@@ -0,0 +1,377 @@
+package semisplay;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A SemiSplayTree that doesn't use a Node object per key.
+ * Every node is an index into parallel arrays which hold its parent, leftChild, rightChild and key,
+ * so a node costs 3 ints and 1 reference instead of a full object.
+ * Index 0 is never used, it means "no node" just like null does in SemiSplayTree.
+ * Slots of removed nodes are kept in a free list and reused by add.
+ */
+public class ArraySemiSplayTree<E extends Comparable<E>> implements SearchTree<E> {
+
+    private static final int NONE = 0;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] parent;
+    private int[] leftChild;
+    private int[] rightChild;
+    private Object[] keys;
+
+    private int root;
+    private int size;
+    // the highest slot that has ever been used
+    private int usedSlots;
+    // first slot of the free list, the free slots are chained through the parent array
+    private int freeSlot;
+    private final int splaySize;
+    // scratch arrays used by splay, allocated once so splaying doesn't create garbage
+    private final int[] splayPath;
+    private final int[] splayOrder;
+    private final int[] splaySubTrees;
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     */
+    public ArraySemiSplayTree(int splaySize) {
+        this(splaySize, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     * @param initialCapacity, the amount of keys the tree can hold before its arrays have to grow.
+     */
+    public ArraySemiSplayTree(int splaySize, int initialCapacity) {
+        assert(splaySize >= 3);
+        this.splaySize = splaySize;
+        int capacity = Math.max(initialCapacity, 1) + 1;
+        this.parent = new int[capacity];
+        this.leftChild = new int[capacity];
+        this.rightChild = new int[capacity];
+        this.keys = new Object[capacity];
+        this.splayPath = new int[splaySize];
+        this.splayOrder = new int[splaySize];
+        this.splaySubTrees = new int[splaySize + 1];
+    }
+
+    /**
+     * Adds a key to the ArraySemiSplayTree. If successful also adds 1 to the size of the ArraySemiSplayTree.
+     * @param key, must be an implementation of Java Comparable interface.
+     * @return returns true if the key is added successfully, false otherwise.
+     */
+    @Override
+    public boolean add(E key) {
+        if (this.root == NONE) {
+            this.root = allocate(key);
+            this.size++;
+            return true;
+        }
+        int currentNode = this.root;
+        while (true) {
+            int comparison = key.compareTo(key(currentNode));
+            if (comparison < 0) {
+                if (this.leftChild[currentNode] == NONE) {
+                    int newNode = allocate(key);
+                    this.leftChild[currentNode] = newNode;
+                    this.parent[newNode] = currentNode;
+                    this.size++;
+                    splay(newNode);
+                    return true;
+                }
+                currentNode = this.leftChild[currentNode];
+            } else if (comparison > 0) {
+                if (this.rightChild[currentNode] == NONE) {
+                    int newNode = allocate(key);
+                    this.rightChild[currentNode] = newNode;
+                    this.parent[newNode] = currentNode;
+                    this.size++;
+                    splay(newNode);
+                    return true;
+                }
+                currentNode = this.rightChild[currentNode];
+            } else {
+                // The key is already in the ArraySemiSplayTree
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Checks if the ArraySemiSplayTree contains a specific key.
+     * @param key, the key that gets checked, must be an implementation of Java Comparable interface.
+     * @return returns true if the key is found, false otherwise.
+     */
+    @Override
+    public boolean contains(E key) {
+        int node = find(key);
+        if (node == NONE) return false;
+        splay(node);
+        return true;
+    }
+
+    /**
+     * Removes a key from the ArraySemiSplayTree. If successful also decrements 1 to the size of the ArraySemiSplayTree.
+     * The slot of the removed node is put on the free list.
+     * @param key, must be an implementation of Java Comparable interface.
+     * @return returns true if the key is found and removed, false otherwise.
+     */
+    @Override
+    public boolean remove(E key) {
+        int node = find(key);
+        if (node == NONE) return false;
+        int startOfSplay;
+        if (this.leftChild[node] != NONE && this.rightChild[node] != NONE) {
+            // the smallest node in the right subtree takes the place of the removed node
+            int smallestNode = this.rightChild[node];
+            while (this.leftChild[smallestNode] != NONE) smallestNode = this.leftChild[smallestNode];
+            startOfSplay = this.parent[smallestNode] != node ? this.parent[smallestNode] : smallestNode;
+            replace(smallestNode, this.rightChild[smallestNode]);
+            this.leftChild[smallestNode] = this.leftChild[node];
+            this.rightChild[smallestNode] = this.rightChild[node];
+            if (this.leftChild[smallestNode] != NONE) this.parent[this.leftChild[smallestNode]] = smallestNode;
+            if (this.rightChild[smallestNode] != NONE) this.parent[this.rightChild[smallestNode]] = smallestNode;
+            replace(node, smallestNode);
+        } else {
+            // at most one child, which takes the place of the removed node
+            int child = this.leftChild[node] != NONE ? this.leftChild[node] : this.rightChild[node];
+            startOfSplay = child != NONE ? child : this.parent[node];
+            replace(node, child);
+        }
+        release(node);
+        this.size--;
+        if (startOfSplay != NONE) splay(startOfSplay);
+        return true;
+    }
+
+    /**
+     * Returns the amount of nodes in the ArraySemiSplayTree
+     * @return amount of nodes, int
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the depth of the ArraySemiSplayTree, meaning the longest path down.
+     * The tree is walked through its parent links, so no queue or stack is needed.
+     * @return the depth of the tree, int. Will return -1 if the tree is empty, and 0 if there is only root.
+     */
+    @Override
+    public int depth() {
+        int depth = -1;
+        int currentDepth = 0;
+        int previousNode = NONE;
+        int currentNode = this.root;
+        while (currentNode != NONE) {
+            int nextNode;
+            if (previousNode == this.parent[currentNode]) {
+                // first visit, go down as far left as possible
+                if (currentDepth > depth) depth = currentDepth;
+                if (this.leftChild[currentNode] != NONE) nextNode = this.leftChild[currentNode];
+                else if (this.rightChild[currentNode] != NONE) nextNode = this.rightChild[currentNode];
+                else nextNode = this.parent[currentNode];
+            } else if (previousNode == this.leftChild[currentNode] && this.rightChild[currentNode] != NONE) {
+                // back from the left subtree, continue in the right subtree
+                nextNode = this.rightChild[currentNode];
+            } else {
+                // both subtrees are done
+                nextNode = this.parent[currentNode];
+            }
+            if (nextNode == this.parent[currentNode]) currentDepth--;
+            else currentDepth++;
+            previousNode = currentNode;
+            currentNode = nextNode;
+        }
+        return depth;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new ArraySemiSplayTreeIterator();
+    }
+
+    private class ArraySemiSplayTreeIterator implements Iterator<E> {
+        private int nextNode;
+
+        private ArraySemiSplayTreeIterator() {
+            nextNode = root;
+            if (nextNode == NONE) return;
+            while (leftChild[nextNode] != NONE) nextNode = leftChild[nextNode];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != NONE;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int currentNode = nextNode;
+            if (rightChild[nextNode] != NONE) {
+                nextNode = rightChild[nextNode];
+                while (leftChild[nextNode] != NONE) nextNode = leftChild[nextNode];
+                return key(currentNode);
+            }
+            // go up until we come from a leftChild
+            while (parent[nextNode] != NONE && rightChild[parent[nextNode]] == nextNode) nextNode = parent[nextNode];
+            nextNode = parent[nextNode];
+            return key(currentNode);
+        }
+    }
+
+    /**
+     * Helper method used for testing
+     * @return returns the key in the root of the ArraySemiSplayTree, null if the tree is empty.
+     */
+    public E getRootKey() {
+        return this.root == NONE ? null : key(this.root);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E key(int node) {
+        return (E) this.keys[node];
+    }
+
+    /**
+     * Searches a key without splaying.
+     * @param key, the key to search.
+     * @return the node containing the key, NONE if the key is not in the tree.
+     */
+    private int find(E key) {
+        int currentNode = this.root;
+        while (currentNode != NONE) {
+            int comparison = key.compareTo(key(currentNode));
+            if (comparison < 0) currentNode = this.leftChild[currentNode];
+            else if (comparison > 0) currentNode = this.rightChild[currentNode];
+            else return currentNode;
+        }
+        return NONE;
+    }
+
+    /**
+     * Takes a slot from the free list, or a new slot if the free list is empty, and puts the key in it.
+     * @return the new node, without parent or children.
+     */
+    private int allocate(E key) {
+        int node;
+        if (this.freeSlot != NONE) {
+            node = this.freeSlot;
+            this.freeSlot = this.parent[node];
+            this.parent[node] = NONE;
+        } else {
+            if (this.usedSlots + 1 == this.keys.length) grow();
+            node = ++this.usedSlots;
+        }
+        this.keys[node] = key;
+        return node;
+    }
+
+    /**
+     * Puts the slot of a removed node on the free list.
+     */
+    private void release(int node) {
+        this.keys[node] = null;
+        this.leftChild[node] = NONE;
+        this.rightChild[node] = NONE;
+        this.parent[node] = this.freeSlot;
+        this.freeSlot = node;
+    }
+
+    private void grow() {
+        int capacity = this.keys.length * 2;
+        this.parent = Arrays.copyOf(this.parent, capacity);
+        this.leftChild = Arrays.copyOf(this.leftChild, capacity);
+        this.rightChild = Arrays.copyOf(this.rightChild, capacity);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+    }
+
+    /**
+     * Puts replacement (which may be NONE) in the place of node, node itself keeps its own children.
+     */
+    private void replace(int node, int replacement) {
+        int parentNode = this.parent[node];
+        if (parentNode == NONE) this.root = replacement;
+        else if (this.leftChild[parentNode] == node) this.leftChild[parentNode] = replacement;
+        else this.rightChild[parentNode] = replacement;
+        if (replacement != NONE) this.parent[replacement] = parentNode;
+    }
+
+    /**
+     * Performs the splay operation on every splaySize consecutive nodes of the path from node up to the root,
+     * exactly like SemiSplayTree.splay.
+     * @param node, the node from where the splay path begins
+     */
+    private void splay(int node) {
+        int bottom = node;
+        while (true) {
+            int currNode = bottom;
+            int pathLength = 0;
+            while (currNode != NONE && pathLength < this.splaySize) {
+                this.splayPath[pathLength++] = currNode;
+                currNode = this.parent[currNode];
+            }
+            if (pathLength < this.splaySize) return;
+            bottom = restructure();
+        }
+    }
+
+    /**
+     * Replaces the nodes in splayPath by a complete binary tree, see SemiSplayTree.restructure.
+     * @return the root of the new subtree
+     */
+    private int restructure() {
+        int top = this.splayPath[this.splaySize - 1];
+        int parentNode = this.parent[top];
+        boolean topIsLeftChild = parentNode != NONE && this.leftChild[parentNode] == top;
+
+        int low = 0;
+        int high = this.splaySize - 1;
+        for (int i = this.splaySize - 1; i > 0; i--) {
+            int pathNode = this.splayPath[i];
+            if (this.leftChild[pathNode] == this.splayPath[i - 1]) {
+                this.splayOrder[high] = pathNode;
+                this.splaySubTrees[high + 1] = this.rightChild[pathNode];
+                high--;
+            } else {
+                this.splayOrder[low] = pathNode;
+                this.splaySubTrees[low] = this.leftChild[pathNode];
+                low++;
+            }
+        }
+        int bottom = this.splayPath[0];
+        this.splayOrder[low] = bottom;
+        this.splaySubTrees[low] = this.leftChild[bottom];
+        this.splaySubTrees[low + 1] = this.rightChild[bottom];
+
+        int rootOfSubTree = buildSubTree(0, this.splaySize - 1, parentNode);
+        if (parentNode == NONE) this.root = rootOfSubTree;
+        else if (topIsLeftChild) this.leftChild[parentNode] = rootOfSubTree;
+        else this.rightChild[parentNode] = rootOfSubTree;
+        return rootOfSubTree;
+    }
+
+    /**
+     * Recursively builds a complete binary tree out of splayOrder[from..to], see SemiSplayTree.buildSubTree.
+     * @return the root of the new binary tree
+     */
+    private int buildSubTree(int from, int to, int subRoot) {
+        if (from > to) {
+            int subTree = this.splaySubTrees[from];
+            if (subTree != NONE) this.parent[subTree] = subRoot;
+            return subTree;
+        }
+        int middleNodeIndex = from + (to - from + 1) / 2;
+        int middleNode = this.splayOrder[middleNodeIndex];
+        this.parent[middleNode] = subRoot;
+        this.leftChild[middleNode] = buildSubTree(from, middleNodeIndex - 1, middleNode);
+        this.rightChild[middleNode] = buildSubTree(middleNodeIndex + 1, to, middleNode);
+        return middleNode;
+    }
+}
@@ -0,0 +1,140 @@
+package semisplay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe SearchTree around a SemiSplayTree.
+ * add and remove take the write lock. contains searches the key under the read lock, so lookups run in parallel,
+ * and only splays when it can upgrade to the write lock, which succeeds if no other thread holds the lock.
+ * Under contention lookups simply skip the splay: the tree stays a valid search tree, it only adjusts itself less.
+ * With a SplayPolicy lookups only try to splay when the policy agrees, the others never leave the read lock.
+ * Every operation runs while holding the lock, so add, remove and contains are linearizable.
+ */
+public class ConcurrentSemiSplayTree<E extends Comparable<E>> implements SearchTree<E> {
+
+    private final SemiSplayTree<E> tree;
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     */
+    public ConcurrentSemiSplayTree(int splaySize) {
+        this(splaySize, 1.0);
+    }
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     * @param splayProbability, the probability that contains tries to splay the node it found, between 0 and 1.
+     */
+    public ConcurrentSemiSplayTree(int splaySize, double splayProbability) {
+        this(splaySize, SplayPolicy.probability(splayProbability));
+    }
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     * @param splayPolicy, decides whether contains tries to splay the node it found, it is consulted under the read lock.
+     */
+    public ConcurrentSemiSplayTree(int splaySize, SplayPolicy splayPolicy) {
+        this.tree = new SemiSplayTree<>(splaySize);
+        this.tree.setSplayPolicy(splayPolicy);
+    }
+
+    @Override
+    public boolean add(E key) {
+        long stamp = this.lock.writeLock();
+        try {
+            return this.tree.add(key);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Checks if the tree contains a specific key.
+     * The node is only splayed if the SplayPolicy agrees and this thread is the only one holding the lock when the key is found.
+     * @param key, the key that gets checked.
+     * @return returns true if the key is found, false otherwise.
+     */
+    @Override
+    public boolean contains(E key) {
+        long stamp = this.lock.readLock();
+        try {
+            // searched here instead of with find, which keeps its path length in the tree and several threads search at once
+            Node<E> node = this.tree.getRoot();
+            int pathLength = 0;
+            while (node != null) {
+                pathLength++;
+                int comparison = this.tree.compare(key, node.getKey());
+                if (comparison == 0) break;
+                node = comparison < 0 ? node.getLeftChild() : node.getRightChild();
+            }
+            if (node == null) return false;
+            if (this.tree.shouldSplay(pathLength)) {
+                long writeStamp = this.lock.tryConvertToWriteLock(stamp);
+                if (writeStamp != 0L) {
+                    stamp = writeStamp;
+                    this.tree.splay(node);
+                }
+            }
+            return true;
+        } finally {
+            this.lock.unlock(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(E key) {
+        long stamp = this.lock.writeLock();
+        try {
+            return this.tree.remove(key);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = this.lock.tryOptimisticRead();
+        int size = this.tree.size();
+        if (this.lock.validate(stamp)) return size;
+        stamp = this.lock.readLock();
+        try {
+            return this.tree.size();
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int depth() {
+        long stamp = this.lock.readLock();
+        try {
+            return this.tree.depth();
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Iterates over a copy of the keys, taken under the read lock.
+     * Changes made after this call are not seen by the iterator.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        long stamp = this.lock.readLock();
+        try {
+            List<E> keys = new ArrayList<>(this.tree.size());
+            for (E key : this.tree) keys.add(key);
+            return Collections.unmodifiableList(keys).iterator();
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package semisplay;
+
+/**
+ * A Node that also keeps the height of its subtree, used by a SemiSplayTree while it tracks its depth.
+ * Only those trees pay for the extra field, the nodes of all other trees stay as small as they were.
+ */
+class HeightNode<E> extends Node<E> {
+    private int height; // the depth of the subtree of this node
+
+    HeightNode(E key) {
+        super(key);
+    }
+
+    int getHeight() { return height; }
+
+    void setHeight(int height) { this.height = height; }
+}
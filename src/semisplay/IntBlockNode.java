@@ -0,0 +1,153 @@
+package semisplay;
+
+import java.util.Arrays;
+
+/**
+ * Node of an IntBlockSemiSplayTree, holds a sorted block of up to BLOCK_SIZE int keys.
+ * All keys in the leftChild subtree are smaller than the keys of the block, all keys in the rightChild subtree are larger.
+ * The smallest and largest key are copied into the node, so a search only reads the key array of the block it ends in.
+ */
+public class IntBlockNode {
+    // 16 ints fill one cache line of 64 bytes
+    static final int BLOCK_SIZE = 16;
+
+    private IntBlockNode parent, leftChild, rightChild;
+    private int whichChild; // 0 = root, 1 = leftChild, 2 = rightChild
+    private int min, max;
+    private int count;
+    // the unused slots are Integer.MAX_VALUE, so a scan can always look at the whole block
+    private final int[] keys = new int[BLOCK_SIZE];
+
+    IntBlockNode() {
+        Arrays.fill(this.keys, Integer.MAX_VALUE);
+    }
+
+    IntBlockNode(int key) {
+        this();
+        this.keys[0] = key;
+        this.count = 1;
+        this.min = key;
+        this.max = key;
+    }
+
+    public IntBlockNode getLeftChild() {
+        return leftChild;
+    }
+
+    void setLeftChild(IntBlockNode leftChild) { this.leftChild = leftChild; }
+
+    public IntBlockNode getRightChild() {
+        return rightChild;
+    }
+
+    void setRightChild(IntBlockNode rightChild) { this.rightChild = rightChild; }
+
+    IntBlockNode getParent() { return parent; }
+
+    void setParent(IntBlockNode parent) { this.parent = parent; }
+
+    /**
+     * @return the smallest key of the block.
+     */
+    public int getMin() { return min; }
+
+    /**
+     * @return the largest key of the block.
+     */
+    public int getMax() { return max; }
+
+    /**
+     * @return the amount of keys in the block.
+     */
+    public int getCount() { return count; }
+
+    /**
+     * @param index, between 0 and getCount().
+     * @return the index-th smallest key of the block.
+     */
+    public int getKey(int index) { return keys[index]; }
+
+    /**
+     * whichChild is an int value which indicates the state of the node in relation to its parent.
+     * 0: the node is the root.
+     * 1: the node is the leftChild of its parent.
+     * 2: the node is the rightChild of its parent.
+     * @return int value, between 0 and 2.
+     */
+    int getWhichChild() { return whichChild; }
+
+    /**
+     * @param whichChild, sets the state of the node. Value should be 0,1,2.
+     */
+    void setWhichChild(int whichChild) { this.whichChild = whichChild; }
+
+    boolean isFull() { return count == BLOCK_SIZE; }
+
+    /**
+     * Counts the keys of the block that are smaller than key.
+     * The loop has a fixed length and no branches that depend on the keys,
+     * so the JIT compiler can unroll it and turn the comparisons into conditional moves or SIMD compares.
+     * @return the index where key is or would be inserted.
+     */
+    int rank(int key) {
+        int rank = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) rank += this.keys[i] < key ? 1 : 0;
+        return rank;
+    }
+
+    /**
+     * @return the index of key in the block, -1 if the block doesn't contain key.
+     */
+    int indexOf(int key) {
+        int rank = rank(key);
+        return rank < this.count && this.keys[rank] == key ? rank : -1;
+    }
+
+    /**
+     * Inserts key at index, the block must not be full and the keys must stay sorted.
+     */
+    void insert(int index, int key) {
+        System.arraycopy(this.keys, index, this.keys, index + 1, this.count - index);
+        this.keys[index] = key;
+        this.count++;
+        this.min = this.keys[0];
+        this.max = this.keys[this.count - 1];
+    }
+
+    /**
+     * Removes the key at index. An empty block keeps its old min and max, it has to be taken out of the tree.
+     */
+    void delete(int index) {
+        System.arraycopy(this.keys, index + 1, this.keys, index, this.count - index - 1);
+        this.keys[--this.count] = Integer.MAX_VALUE;
+        if (this.count == 0) return;
+        this.min = this.keys[0];
+        this.max = this.keys[this.count - 1];
+    }
+
+    /**
+     * Moves the largest half of the keys to a new block.
+     * @return the new block, its parent and children still have to be set.
+     */
+    IntBlockNode splitUpperHalf() {
+        IntBlockNode upper = new IntBlockNode();
+        int half = this.count / 2;
+        upper.count = this.count - half;
+        System.arraycopy(this.keys, half, upper.keys, 0, upper.count);
+        Arrays.fill(this.keys, half, this.count, Integer.MAX_VALUE);
+        this.count = half;
+        this.max = this.keys[half - 1];
+        upper.min = upper.keys[0];
+        upper.max = upper.keys[upper.count - 1];
+        return upper;
+    }
+
+    /**
+     * Appends all keys of next, which must all be larger than the keys of this block and fit in it.
+     */
+    void append(IntBlockNode next) {
+        System.arraycopy(next.keys, 0, this.keys, this.count, next.count);
+        this.count += next.count;
+        this.max = this.keys[this.count - 1];
+    }
+}
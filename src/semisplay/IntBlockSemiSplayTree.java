@@ -0,0 +1,410 @@
+package semisplay;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A SemiSplayTree for int keys in which every node holds a sorted block of up to IntBlockNode.BLOCK_SIZE keys.
+ * The blocks cover disjoint key ranges, so they form a binary search tree of blocks that is splayed exactly like
+ * the nodes of a SemiSplayTree, splaySize blocks at a time.
+ * A search compares against the smallest and largest key stored in every node on the path, and only scans the key array
+ * of the block it ends in, so it touches far fewer objects than a search through one node per key.
+ *
+ * A key is added to the block whose range it falls in, or to the block where the search ends if it falls between two blocks.
+ * A full block is split in two halves. When a block drops below a quarter of its capacity, it is merged with the next block
+ * if they fit together, and an empty block is removed. depth() counts blocks, not keys.
+ */
+public class IntBlockSemiSplayTree implements SearchTree<Integer> {
+
+    private static final int MERGE_THRESHOLD = IntBlockNode.BLOCK_SIZE / 4;
+
+    private IntBlockNode root;
+    private int size;
+    private int blockCount;
+    private final int splaySize;
+    // scratch arrays used by splay, allocated once so splaying doesn't create garbage
+    private final IntBlockNode[] splayPath;
+    private final IntBlockNode[] splayOrder;
+    private final IntBlockNode[] splaySubTrees;
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of blocks used in one splay step, must be larger or equal to 3.
+     */
+    public IntBlockSemiSplayTree(int splaySize) {
+        assert(splaySize >= 3);
+        this.splaySize = splaySize;
+        this.splayPath = new IntBlockNode[splaySize];
+        this.splayOrder = new IntBlockNode[splaySize];
+        this.splaySubTrees = new IntBlockNode[splaySize + 1];
+    }
+
+    /**
+     * Adds a key to the IntBlockSemiSplayTree. If successful also adds 1 to the size of the IntBlockSemiSplayTree.
+     * @param key, the key to add.
+     * @return returns true if the key is added successfully, false otherwise.
+     */
+    public boolean add(int key) {
+        if (this.root == null) {
+            this.root = new IntBlockNode(key);
+            this.size++;
+            this.blockCount++;
+            return true;
+        }
+        // search the block whose range holds key, or the last block before the empty spot where key belongs
+        IntBlockNode block = this.root;
+        boolean inRange = false;
+        while (true) {
+            if (key < block.getMin()) {
+                if (block.getLeftChild() == null) break;
+                block = block.getLeftChild();
+            } else if (key > block.getMax()) {
+                if (block.getRightChild() == null) break;
+                block = block.getRightChild();
+            } else {
+                inRange = true;
+                break;
+            }
+        }
+        int index = block.rank(key);
+        // The key is already in the IntBlockSemiSplayTree
+        if (inRange && block.getKey(index) == key) return false;
+        if (block.isFull()) {
+            IntBlockNode upper = block.splitUpperHalf();
+            this.blockCount++;
+            // the upper half comes right after block in the in-order sequence of blocks
+            if (block.getRightChild() == null) {
+                link(block, upper, 2);
+            } else {
+                IntBlockNode successor = block.getRightChild();
+                while (successor.getLeftChild() != null) successor = successor.getLeftChild();
+                link(successor, upper, 1);
+            }
+            if (index > block.getCount()) {
+                index -= block.getCount();
+                block = upper;
+            }
+        }
+        block.insert(index, key);
+        this.size++;
+        splay(block);
+        return true;
+    }
+
+    /**
+     * Checks if the IntBlockSemiSplayTree contains a specific key.
+     * @param key, the key that gets checked.
+     * @return returns true if the key is found, false otherwise.
+     */
+    public boolean contains(int key) {
+        IntBlockNode block = find(key);
+        if (block == null || block.indexOf(key) < 0) return false;
+        splay(block);
+        return true;
+    }
+
+    /**
+     * Removes a key from the IntBlockSemiSplayTree. If successful also decrements 1 to the size of the IntBlockSemiSplayTree.
+     * @param key, the key to remove.
+     * @return returns true if the key is found and removed, false otherwise.
+     */
+    public boolean remove(int key) {
+        IntBlockNode block = find(key);
+        if (block == null) return false;
+        int index = block.indexOf(key);
+        if (index < 0) return false;
+        block.delete(index);
+        this.size--;
+        if (block.getCount() == 0) {
+            IntBlockNode startOfSplay = unlink(block);
+            if (startOfSplay != null) splay(startOfSplay);
+            return true;
+        }
+        if (block.getCount() < MERGE_THRESHOLD) {
+            IntBlockNode next = successor(block);
+            if (next != null && block.getCount() + next.getCount() <= IntBlockNode.BLOCK_SIZE) {
+                block.append(next);
+                unlink(next);
+            }
+        }
+        splay(block);
+        return true;
+    }
+
+    @Override
+    public boolean add(Integer key) {
+        return add(key.intValue());
+    }
+
+    @Override
+    public boolean contains(Integer key) {
+        return contains(key.intValue());
+    }
+
+    @Override
+    public boolean remove(Integer key) {
+        return remove(key.intValue());
+    }
+
+    /**
+     * Returns the amount of keys in the IntBlockSemiSplayTree
+     * @return amount of keys, int
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the amount of blocks (nodes) in the IntBlockSemiSplayTree.
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Returns the depth of the IntBlockSemiSplayTree in blocks, meaning the longest path down.
+     * The tree is walked through its parent pointers, so no queue or stack is needed.
+     * @return the depth of the tree, int. Will return -1 if the tree is empty, and 0 if there is only a root block.
+     */
+    @Override
+    public int depth() {
+        int depth = -1;
+        int currentDepth = 0;
+        IntBlockNode previousNode = null;
+        IntBlockNode currentNode = this.root;
+        while (currentNode != null) {
+            IntBlockNode nextNode;
+            if (previousNode == currentNode.getParent()) {
+                // first visit, go down as far left as possible
+                if (currentDepth > depth) depth = currentDepth;
+                if (currentNode.getLeftChild() != null) nextNode = currentNode.getLeftChild();
+                else if (currentNode.getRightChild() != null) nextNode = currentNode.getRightChild();
+                else nextNode = currentNode.getParent();
+            } else if (previousNode == currentNode.getLeftChild() && currentNode.getRightChild() != null) {
+                // back from the left subtree, continue in the right subtree
+                nextNode = currentNode.getRightChild();
+            } else {
+                // both subtrees are done
+                nextNode = currentNode.getParent();
+            }
+            if (nextNode == currentNode.getParent()) currentDepth--;
+            else currentDepth++;
+            previousNode = currentNode;
+            currentNode = nextNode;
+        }
+        return depth;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new IntBlockSemiSplayTreeIterator(this.root);
+    }
+
+    private static class IntBlockSemiSplayTreeIterator implements PrimitiveIterator.OfInt {
+        private IntBlockNode nextBlock;
+        private int nextIndex;
+
+        private IntBlockSemiSplayTreeIterator(IntBlockNode root) {
+            nextBlock = root;
+            if (nextBlock == null) return;
+            while (nextBlock.getLeftChild() != null) nextBlock = nextBlock.getLeftChild();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextBlock != null;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int key = nextBlock.getKey(nextIndex++);
+            if (nextIndex == nextBlock.getCount()) {
+                nextBlock = successor(nextBlock);
+                nextIndex = 0;
+            }
+            return key;
+        }
+    }
+
+    /**
+     * Helper method used for testing
+     * @return returns the root block of the IntBlockSemiSplayTree
+     */
+    public IntBlockNode getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Searches the block whose range holds key, without splaying.
+     * Only the smallest and largest key of the blocks on the path are compared.
+     * @param key, the key to search.
+     * @return the block with min <= key <= max, null if there is no such block. The block doesn't necessarily contain key.
+     */
+    private IntBlockNode find(int key) {
+        IntBlockNode currentNode = this.root;
+        while (currentNode != null) {
+            if (key < currentNode.getMin()) currentNode = currentNode.getLeftChild();
+            else if (key > currentNode.getMax()) currentNode = currentNode.getRightChild();
+            else return currentNode;
+        }
+        return null;
+    }
+
+    /**
+     * @return the block that follows block in the in-order sequence of blocks, null if block is the last one.
+     */
+    private static IntBlockNode successor(IntBlockNode block) {
+        if (block.getRightChild() != null) {
+            IntBlockNode next = block.getRightChild();
+            while (next.getLeftChild() != null) next = next.getLeftChild();
+            return next;
+        }
+        // go up until we come from a leftChild
+        while (block.getParent() != null && block.getWhichChild() == 2) block = block.getParent();
+        return block.getParent();
+    }
+
+    /**
+     * Takes a block out of the tree, without splaying.
+     * @param block, the block to remove.
+     * @return the block where the splay path of the removal starts, null if the tree is empty now.
+     */
+    private IntBlockNode unlink(IntBlockNode block) {
+        this.blockCount--;
+        if (block.getLeftChild() != null && block.getRightChild() != null) {
+            // the smallest block in the right subtree takes the place of the removed block
+            IntBlockNode smallestNode = block.getRightChild();
+            while (smallestNode.getLeftChild() != null) smallestNode = smallestNode.getLeftChild();
+            IntBlockNode startOfSplay = smallestNode.getParent() != block ? smallestNode.getParent() : smallestNode;
+            replace(smallestNode, smallestNode.getRightChild());
+            smallestNode.setLeftChild(block.getLeftChild());
+            smallestNode.setRightChild(block.getRightChild());
+            if (smallestNode.getLeftChild() != null) smallestNode.getLeftChild().setParent(smallestNode);
+            if (smallestNode.getRightChild() != null) smallestNode.getRightChild().setParent(smallestNode);
+            replace(block, smallestNode);
+            return startOfSplay;
+        }
+        // at most one child, which takes the place of the removed block
+        IntBlockNode child = block.getLeftChild() != null ? block.getLeftChild() : block.getRightChild();
+        IntBlockNode startOfSplay = child != null ? child : block.getParent();
+        replace(block, child);
+        return startOfSplay;
+    }
+
+    /**
+     * Makes child the leftChild (whichChild = 1) or rightChild (whichChild = 2) of parent.
+     */
+    private static void link(IntBlockNode parent, IntBlockNode child, int whichChild) {
+        if (whichChild == 1) parent.setLeftChild(child);
+        else parent.setRightChild(child);
+        child.setParent(parent);
+        child.setWhichChild(whichChild);
+    }
+
+    /**
+     * Puts replacement (which may be null) in the place of node, node itself keeps its own children.
+     */
+    private void replace(IntBlockNode node, IntBlockNode replacement) {
+        IntBlockNode parent = node.getParent();
+        int whichChild = node.getWhichChild();
+        if (parent == null) {
+            this.root = replacement;
+            if (replacement != null) {
+                replacement.setParent(null);
+                replacement.setWhichChild(0);
+            }
+        } else if (replacement == null) {
+            if (whichChild == 1) parent.setLeftChild(null);
+            else parent.setRightChild(null);
+        } else {
+            link(parent, replacement, whichChild);
+        }
+    }
+
+    /**
+     * Performs the splay operation on every splaySize consecutive blocks of the path from block up to the root,
+     * exactly like SemiSplayTree.splay.
+     * @param block, the block from where the splay path begins
+     */
+    private void splay(IntBlockNode block) {
+        IntBlockNode bottom = block;
+        while (true) {
+            IntBlockNode currNode = bottom;
+            int pathLength = 0;
+            while (currNode != null && pathLength < this.splaySize) {
+                this.splayPath[pathLength++] = currNode;
+                currNode = currNode.getParent();
+            }
+            if (pathLength < this.splaySize) break;
+            bottom = restructure();
+        }
+        Arrays.fill(this.splayPath, null);
+        Arrays.fill(this.splayOrder, null);
+        Arrays.fill(this.splaySubTrees, null);
+    }
+
+    /**
+     * Replaces the blocks in splayPath by a complete binary tree, see SemiSplayTree.restructure.
+     * @return the root of the new subtree
+     */
+    private IntBlockNode restructure() {
+        IntBlockNode top = this.splayPath[this.splaySize - 1];
+        IntBlockNode parent = top.getParent();
+        int whichChild = top.getWhichChild();
+
+        int low = 0;
+        int high = this.splaySize - 1;
+        for (int i = this.splaySize - 1; i > 0; i--) {
+            IntBlockNode pathNode = this.splayPath[i];
+            if (this.splayPath[i - 1].getWhichChild() == 1) {
+                this.splayOrder[high] = pathNode;
+                this.splaySubTrees[high + 1] = pathNode.getRightChild();
+                high--;
+            } else {
+                this.splayOrder[low] = pathNode;
+                this.splaySubTrees[low] = pathNode.getLeftChild();
+                low++;
+            }
+        }
+        IntBlockNode bottom = this.splayPath[0];
+        this.splayOrder[low] = bottom;
+        this.splaySubTrees[low] = bottom.getLeftChild();
+        this.splaySubTrees[low + 1] = bottom.getRightChild();
+
+        IntBlockNode rootOfSubTree = buildSubTree(0, this.splaySize - 1, parent, whichChild);
+        if (parent == null) {
+            rootOfSubTree.setWhichChild(0);
+            this.root = rootOfSubTree;
+        } else if (whichChild == 1) {
+            parent.setLeftChild(rootOfSubTree);
+        } else {
+            parent.setRightChild(rootOfSubTree);
+        }
+        return rootOfSubTree;
+    }
+
+    /**
+     * Recursively builds a complete binary tree out of splayOrder[from..to], see SemiSplayTree.buildSubTree.
+     * @return the root of the new binary tree
+     */
+    private IntBlockNode buildSubTree(int from, int to, IntBlockNode subRoot, int whichChild) {
+        if (from > to) {
+            IntBlockNode subTree = this.splaySubTrees[from];
+            if (subTree != null) {
+                subTree.setParent(subRoot);
+                subTree.setWhichChild(whichChild);
+            }
+            return subTree;
+        }
+        int middleNodeIndex = from + (to - from + 1) / 2;
+        IntBlockNode middleNode = this.splayOrder[middleNodeIndex];
+        middleNode.setParent(subRoot);
+        middleNode.setWhichChild(whichChild);
+        middleNode.setLeftChild(buildSubTree(from, middleNodeIndex - 1, middleNode, 1));
+        middleNode.setRightChild(buildSubTree(middleNodeIndex + 1, to, middleNode, 2));
+        return middleNode;
+    }
+}
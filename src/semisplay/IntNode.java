@@ -0,0 +1,46 @@
+package semisplay;
+
+/**
+ * Node of an IntSemiSplayTree, the key is stored as a primitive int.
+ */
+public class IntNode {
+    private IntNode parent, leftChild, rightChild;
+    private int whichChild; // 0 = root, 1 = leftChild, 2 = rightChild
+    private final int key;
+
+    IntNode(int key) {
+        this.key = key;
+    }
+
+    public IntNode getLeftChild() {
+        return leftChild;
+    }
+
+    void setLeftChild(IntNode leftChild) { this.leftChild = leftChild; }
+
+    public IntNode getRightChild() {
+        return rightChild;
+    }
+
+    void setRightChild(IntNode rightChild) { this.rightChild = rightChild; }
+
+    IntNode getParent() { return parent; }
+
+    void setParent(IntNode parent) { this.parent = parent; }
+
+    public int getKey() { return key; }
+
+    /**
+     * whichChild is an int value which indicates the state of the node in relation to its parent.
+     * 0: the node is the root.
+     * 1: the node is the leftChild of its parent.
+     * 2: the node is the rightChild of its parent.
+     * @return int value, between 0 and 2.
+     */
+    int getWhichChild() { return whichChild; }
+
+    /**
+     * @param whichChild, sets the state of the node. Value should be 0,1,2.
+     */
+    void setWhichChild(int whichChild) { this.whichChild = whichChild; }
+}
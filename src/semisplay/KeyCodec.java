@@ -0,0 +1,140 @@
+package semisplay;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static semisplay.SemiSplayTreeSerializer.readVarLong;
+import static semisplay.SemiSplayTreeSerializer.unzigzag;
+import static semisplay.SemiSplayTreeSerializer.writeVarLong;
+import static semisplay.SemiSplayTreeSerializer.zigzag;
+
+/**
+ * Encodes the keys of a SemiSplayTree for SemiSplayTreeSerializer.
+ * The keys are written in ascending order and every key is encoded relative to the previous one,
+ * so the numeric codecs only have to write the (small) difference between neighbouring keys.
+ */
+public interface KeyCodec<E> {
+
+    /**
+     * @return the largest amount of bytes encode can write for key.
+     */
+    int maxLength(E key);
+
+    /**
+     * @param previous, the key written before this one, null for the first key.
+     * @param key, the key to write.
+     * @param out, the buffer to write to, it has at least maxLength(key) bytes left.
+     */
+    void encode(E previous, E key, ByteBuffer out);
+
+    /**
+     * @param previous, the key read before this one, null for the first key.
+     * @param in, the bytes that are left.
+     * @return the key.
+     */
+    E decode(E previous, Input in) throws IOException;
+
+    /**
+     * The bytes a decoder reads from, refilled from the underlying channel when needed.
+     */
+    interface Input {
+        /**
+         * @param bytes, the amount of bytes the decoder wants to read next.
+         * @return the buffer, with at least bytes bytes left, or all the bytes that are left if there are less.
+         */
+        ByteBuffer fill(int bytes) throws IOException;
+    }
+
+    /**
+     * @return a codec that writes the difference with the previous key as a zigzag varint, 1 byte for neighbouring keys.
+     */
+    static KeyCodec<Long> longs() {
+        return new KeyCodec<Long>() {
+            @Override
+            public int maxLength(Long key) {
+                return 10;
+            }
+
+            @Override
+            public void encode(Long previous, Long key, ByteBuffer out) {
+                // the subtraction may overflow, decode adds it back with the same overflow
+                writeVarLong(out, zigzag(previous == null ? key : key - previous));
+            }
+
+            @Override
+            public Long decode(Long previous, Input in) throws IOException {
+                long delta = unzigzag(readVarLong(in.fill(10)));
+                return previous == null ? delta : previous + delta;
+            }
+        };
+    }
+
+    /**
+     * @return a codec that writes the difference with the previous key as a zigzag varint, 1 byte for neighbouring keys.
+     */
+    static KeyCodec<Integer> integers() {
+        return new KeyCodec<Integer>() {
+            @Override
+            public int maxLength(Integer key) {
+                return 10;
+            }
+
+            @Override
+            public void encode(Integer previous, Integer key, ByteBuffer out) {
+                writeVarLong(out, zigzag(previous == null ? (long) key : (long) key - previous));
+            }
+
+            @Override
+            public Integer decode(Integer previous, Input in) throws IOException {
+                long delta = unzigzag(readVarLong(in.fill(10)));
+                return (int) (previous == null ? delta : previous + delta);
+            }
+        };
+    }
+
+    /**
+     * Sorted strings often start the same, so only the length of the prefix shared with the previous key is written,
+     * followed by the rest of the key in UTF-8.
+     * @return a codec for String keys.
+     */
+    static KeyCodec<String> strings() {
+        return new KeyCodec<String>() {
+            @Override
+            public int maxLength(String key) {
+                // two varints and at most 3 bytes of UTF-8 per char
+                return 10 + 3 * key.length();
+            }
+
+            @Override
+            public void encode(String previous, String key, ByteBuffer out) {
+                int prefix = 0;
+                if (previous != null) {
+                    int length = Math.min(previous.length(), key.length());
+                    while (prefix < length && previous.charAt(prefix) == key.charAt(prefix)) prefix++;
+                    // don't split a surrogate pair, its halves can't be encoded on their own
+                    if (prefix > 0 && Character.isHighSurrogate(key.charAt(prefix - 1))) prefix--;
+                }
+                byte[] suffix = key.substring(prefix).getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, prefix);
+                writeVarLong(out, suffix.length);
+                out.put(suffix);
+            }
+
+            @Override
+            public String decode(String previous, Input in) throws IOException {
+                long prefix = readVarLong(in.fill(5));
+                long length = readVarLong(in.fill(5));
+                // the prefix is shared with the previous key, so it can't be longer than that key
+                if (prefix < 0 || prefix > (previous != null ? previous.length() : 0)) throw new StreamCorruptedException("invalid prefix " + prefix);
+                if (length < 0 || length > Integer.MAX_VALUE) throw new StreamCorruptedException("invalid length " + length);
+                ByteBuffer buffer = in.fill((int) length);
+                byte[] suffix = new byte[(int) length];
+                buffer.get(suffix);
+                String rest = new String(suffix, StandardCharsets.UTF_8);
+                return prefix == 0 ? rest : previous.substring(0, (int) prefix) + rest;
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package semisplay;
+
+/**
+ * Node of a LongSemiSplayTree, the key is stored as a primitive long.
+ */
+public class LongNode {
+    private LongNode parent, leftChild, rightChild;
+    private int whichChild; // 0 = root, 1 = leftChild, 2 = rightChild
+    private final long key;
+
+    LongNode(long key) {
+        this.key = key;
+    }
+
+    public LongNode getLeftChild() {
+        return leftChild;
+    }
+
+    void setLeftChild(LongNode leftChild) { this.leftChild = leftChild; }
+
+    public LongNode getRightChild() {
+        return rightChild;
+    }
+
+    void setRightChild(LongNode rightChild) { this.rightChild = rightChild; }
+
+    LongNode getParent() { return parent; }
+
+    void setParent(LongNode parent) { this.parent = parent; }
+
+    public long getKey() { return key; }
+
+    /**
+     * whichChild is an int value which indicates the state of the node in relation to its parent.
+     * 0: the node is the root.
+     * 1: the node is the leftChild of its parent.
+     * 2: the node is the rightChild of its parent.
+     * @return int value, between 0 and 2.
+     */
+    int getWhichChild() { return whichChild; }
+
+    /**
+     * @param whichChild, sets the state of the node. Value should be 0,1,2.
+     */
+    void setWhichChild(int whichChild) { this.whichChild = whichChild; }
+}
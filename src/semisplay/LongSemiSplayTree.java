@@ -0,0 +1,357 @@
+package semisplay;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A SemiSplayTree for long keys.
+ * The keys are stored unboxed in the nodes and compared with plain long comparisons,
+ * the splay operations are the same as in SemiSplayTree.
+ */
+public class LongSemiSplayTree implements SearchTree<Long> {
+
+    private LongNode root;
+    private int size;
+    private final int splaySize;
+    // scratch arrays used by splay, allocated once so splaying doesn't create garbage
+    private final LongNode[] splayPath;
+    private final LongNode[] splayOrder;
+    private final LongNode[] splaySubTrees;
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     */
+    public LongSemiSplayTree(int splaySize) {
+        assert(splaySize >= 3);
+        this.splaySize = splaySize;
+        this.splayPath = new LongNode[splaySize];
+        this.splayOrder = new LongNode[splaySize];
+        this.splaySubTrees = new LongNode[splaySize + 1];
+    }
+
+    /**
+     * Constructor
+     * @param rootKey, the key that will be become the root of the LongSemiSplayTree.
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     */
+    public LongSemiSplayTree(long rootKey, int splaySize) {
+        this(splaySize);
+        this.root = new LongNode(rootKey);
+        this.size = 1;
+    }
+
+    /**
+     * Adds a key to the LongSemiSplayTree. If successful also adds 1 to the size of the LongSemiSplayTree.
+     * @param key, the key to add.
+     * @return returns true if the key is added successfully, false otherwise.
+     */
+    public boolean add(long key) {
+        if (this.root == null) {
+            this.root = new LongNode(key);
+            this.size++;
+            return true;
+        }
+        LongNode currentNode = this.root;
+        while (true) {
+            long currentKey = currentNode.getKey();
+            if (key < currentKey) {
+                if (currentNode.getLeftChild() == null) {
+                    LongNode newNode = new LongNode(key);
+                    link(currentNode, newNode, 1);
+                    this.size++;
+                    splay(newNode);
+                    return true;
+                }
+                currentNode = currentNode.getLeftChild();
+            } else if (key > currentKey) {
+                if (currentNode.getRightChild() == null) {
+                    LongNode newNode = new LongNode(key);
+                    link(currentNode, newNode, 2);
+                    this.size++;
+                    splay(newNode);
+                    return true;
+                }
+                currentNode = currentNode.getRightChild();
+            } else {
+                // The key is already in the LongSemiSplayTree
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Checks if the LongSemiSplayTree contains a specific key.
+     * @param key, the key that gets checked.
+     * @return returns true if the key is found, false otherwise.
+     */
+    public boolean contains(long key) {
+        LongNode node = find(key);
+        if (node == null) return false;
+        splay(node);
+        return true;
+    }
+
+    /**
+     * Removes a key from the LongSemiSplayTree. If successful also decrements 1 to the size of the LongSemiSplayTree.
+     * @param key, the key to remove.
+     * @return returns true if the key is found and removed, false otherwise.
+     */
+    public boolean remove(long key) {
+        LongNode node = find(key);
+        if (node == null) return false;
+        LongNode startOfSplay;
+        if (node.getLeftChild() != null && node.getRightChild() != null) {
+            // the smallest node in the right subtree takes the place of the removed node
+            LongNode smallestNode = node.getRightChild();
+            while (smallestNode.getLeftChild() != null) smallestNode = smallestNode.getLeftChild();
+            startOfSplay = smallestNode.getParent() != node ? smallestNode.getParent() : smallestNode;
+            replace(smallestNode, smallestNode.getRightChild());
+            smallestNode.setLeftChild(node.getLeftChild());
+            smallestNode.setRightChild(node.getRightChild());
+            if (smallestNode.getLeftChild() != null) smallestNode.getLeftChild().setParent(smallestNode);
+            if (smallestNode.getRightChild() != null) smallestNode.getRightChild().setParent(smallestNode);
+            replace(node, smallestNode);
+        } else {
+            // at most one child, which takes the place of the removed node
+            LongNode child = node.getLeftChild() != null ? node.getLeftChild() : node.getRightChild();
+            startOfSplay = child != null ? child : node.getParent();
+            replace(node, child);
+        }
+        this.size--;
+        if (startOfSplay != null) splay(startOfSplay);
+        return true;
+    }
+
+    @Override
+    public boolean add(Long key) {
+        return add(key.longValue());
+    }
+
+    @Override
+    public boolean contains(Long key) {
+        return contains(key.longValue());
+    }
+
+    @Override
+    public boolean remove(Long key) {
+        return remove(key.longValue());
+    }
+
+    /**
+     * Returns the amount of keys in the LongSemiSplayTree
+     * @return amount of keys, int
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the depth of the LongSemiSplayTree, meaning the longest path down.
+     * The tree is walked through its parent pointers, so no queue or stack is needed.
+     * @return the depth of the tree, int. Will return -1 if the tree is empty, and 0 if there is only root.
+     */
+    @Override
+    public int depth() {
+        int depth = -1;
+        int currentDepth = 0;
+        LongNode previousNode = null;
+        LongNode currentNode = this.root;
+        while (currentNode != null) {
+            LongNode nextNode;
+            if (previousNode == currentNode.getParent()) {
+                // first visit, go down as far left as possible
+                if (currentDepth > depth) depth = currentDepth;
+                if (currentNode.getLeftChild() != null) nextNode = currentNode.getLeftChild();
+                else if (currentNode.getRightChild() != null) nextNode = currentNode.getRightChild();
+                else nextNode = currentNode.getParent();
+            } else if (previousNode == currentNode.getLeftChild() && currentNode.getRightChild() != null) {
+                // back from the left subtree, continue in the right subtree
+                nextNode = currentNode.getRightChild();
+            } else {
+                // both subtrees are done
+                nextNode = currentNode.getParent();
+            }
+            if (nextNode == currentNode.getParent()) currentDepth--;
+            else currentDepth++;
+            previousNode = currentNode;
+            currentNode = nextNode;
+        }
+        return depth;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new LongSemiSplayTreeIterator(this.root);
+    }
+
+    private static class LongSemiSplayTreeIterator implements PrimitiveIterator.OfLong {
+        private LongNode nextNode;
+
+        private LongSemiSplayTreeIterator(LongNode root) {
+            nextNode = root;
+            if (nextNode == null) return;
+            while (nextNode.getLeftChild() != null) nextNode = nextNode.getLeftChild();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException();
+            LongNode currentNode = nextNode;
+            if (nextNode.getRightChild() != null) {
+                nextNode = nextNode.getRightChild();
+                while (nextNode.getLeftChild() != null) nextNode = nextNode.getLeftChild();
+                return currentNode.getKey();
+            }
+            // go up until we come from a leftChild
+            while (nextNode.getParent() != null && nextNode.getWhichChild() == 2) nextNode = nextNode.getParent();
+            nextNode = nextNode.getParent();
+            return currentNode.getKey();
+        }
+    }
+
+    /**
+     * Helper method used for testing
+     * @return returns the root of the LongSemiSplayTree
+     */
+    public LongNode getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Searches a key without splaying.
+     * @param key, the key to search.
+     * @return the node containing the key, null if the key is not in the tree.
+     */
+    private LongNode find(long key) {
+        LongNode currentNode = this.root;
+        while (currentNode != null) {
+            long currentKey = currentNode.getKey();
+            if (key < currentKey) currentNode = currentNode.getLeftChild();
+            else if (key > currentKey) currentNode = currentNode.getRightChild();
+            else return currentNode;
+        }
+        return null;
+    }
+
+    /**
+     * Makes child the leftChild (whichChild = 1) or rightChild (whichChild = 2) of parent.
+     */
+    private static void link(LongNode parent, LongNode child, int whichChild) {
+        if (whichChild == 1) parent.setLeftChild(child);
+        else parent.setRightChild(child);
+        child.setParent(parent);
+        child.setWhichChild(whichChild);
+    }
+
+    /**
+     * Puts replacement (which may be null) in the place of node, node itself keeps its own children.
+     */
+    private void replace(LongNode node, LongNode replacement) {
+        LongNode parent = node.getParent();
+        int whichChild = node.getWhichChild();
+        if (parent == null) {
+            this.root = replacement;
+            if (replacement != null) {
+                replacement.setParent(null);
+                replacement.setWhichChild(0);
+            }
+        } else if (replacement == null) {
+            if (whichChild == 1) parent.setLeftChild(null);
+            else parent.setRightChild(null);
+        } else {
+            link(parent, replacement, whichChild);
+        }
+    }
+
+    /**
+     * Performs the splay operation on every splaySize consecutive nodes of the path from node up to the root,
+     * exactly like SemiSplayTree.splay.
+     * @param node, the node from where the splay path begins
+     */
+    private void splay(LongNode node) {
+        LongNode bottom = node;
+        while (true) {
+            LongNode currNode = bottom;
+            int pathLength = 0;
+            while (currNode != null && pathLength < this.splaySize) {
+                this.splayPath[pathLength++] = currNode;
+                currNode = currNode.getParent();
+            }
+            if (pathLength < this.splaySize) break;
+            bottom = restructure();
+        }
+        Arrays.fill(this.splayPath, null);
+        Arrays.fill(this.splayOrder, null);
+        Arrays.fill(this.splaySubTrees, null);
+    }
+
+    /**
+     * Replaces the nodes in splayPath by a complete binary tree, see SemiSplayTree.restructure.
+     * @return the root of the new subtree
+     */
+    private LongNode restructure() {
+        LongNode top = this.splayPath[this.splaySize - 1];
+        LongNode parent = top.getParent();
+        int whichChild = top.getWhichChild();
+
+        int low = 0;
+        int high = this.splaySize - 1;
+        for (int i = this.splaySize - 1; i > 0; i--) {
+            LongNode pathNode = this.splayPath[i];
+            if (this.splayPath[i - 1].getWhichChild() == 1) {
+                this.splayOrder[high] = pathNode;
+                this.splaySubTrees[high + 1] = pathNode.getRightChild();
+                high--;
+            } else {
+                this.splayOrder[low] = pathNode;
+                this.splaySubTrees[low] = pathNode.getLeftChild();
+                low++;
+            }
+        }
+        LongNode bottom = this.splayPath[0];
+        this.splayOrder[low] = bottom;
+        this.splaySubTrees[low] = bottom.getLeftChild();
+        this.splaySubTrees[low + 1] = bottom.getRightChild();
+
+        LongNode rootOfSubTree = buildSubTree(0, this.splaySize - 1, parent, whichChild);
+        if (parent == null) {
+            rootOfSubTree.setWhichChild(0);
+            this.root = rootOfSubTree;
+        } else if (whichChild == 1) {
+            parent.setLeftChild(rootOfSubTree);
+        } else {
+            parent.setRightChild(rootOfSubTree);
+        }
+        return rootOfSubTree;
+    }
+
+    /**
+     * Recursively builds a complete binary tree out of splayOrder[from..to], see SemiSplayTree.buildSubTree.
+     * @return the root of the new binary tree
+     */
+    private LongNode buildSubTree(int from, int to, LongNode subRoot, int whichChild) {
+        if (from > to) {
+            LongNode subTree = this.splaySubTrees[from];
+            if (subTree != null) {
+                subTree.setParent(subRoot);
+                subTree.setWhichChild(whichChild);
+            }
+            return subTree;
+        }
+        int middleNodeIndex = from + (to - from + 1) / 2;
+        LongNode middleNode = this.splayOrder[middleNodeIndex];
+        middleNode.setParent(subRoot);
+        middleNode.setWhichChild(whichChild);
+        middleNode.setLeftChild(buildSubTree(from, middleNodeIndex - 1, middleNode, 1));
+        middleNode.setRightChild(buildSubTree(middleNodeIndex + 1, to, middleNode, 2));
+        return middleNode;
+    }
+}
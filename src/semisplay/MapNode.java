@@ -0,0 +1,43 @@
+package semisplay;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A Node that also stores the value mapped to its key, used by SemiSplayMap.
+ * The node itself is the entry of the map, so setValue writes through to the map.
+ */
+class MapNode<K, V> extends Node<K> implements Map.Entry<K, V> {
+    private V value;
+
+    MapNode(K key) {
+        super(key);
+    }
+
+    @Override
+    public V getValue() { return value; }
+
+    @Override
+    public V setValue(V value) {
+        V oldValue = this.value;
+        this.value = value;
+        return oldValue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Map.Entry)) return false;
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+        return Objects.equals(getKey(), entry.getKey()) && Objects.equals(this.value, entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getKey()) ^ Objects.hashCode(this.value);
+    }
+
+    @Override
+    public String toString() {
+        return getKey() + "=" + this.value;
+    }
+}
@@ -0,0 +1,254 @@
+package semisplay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A persistent SemiSplayTree for long keys, stored in a memory-mapped file.
+ * A node is addressed by its offset in the file, so the links between the nodes stay valid when the file is reopened.
+ * Every change of the tree, including the rotations done by splay, is a write to the mapped pages,
+ * so reopening a file restores the tree in exactly the shape it had, without re-inserting any key.
+ *
+ * The file starts with a header of HEADER_BYTES bytes, followed by the nodes.
+ * A node is 32 bytes: its key followed by the offsets of its parent, leftChild and rightChild, all little endian.
+ * The file is mapped in chunks of CHUNK_BYTES bytes and grows one chunk at a time.
+ * Changes are written to disk by the operating system, force() and close() write them right away.
+ * A tree that was not closed properly (e.g. after a crash in the middle of an operation) may be inconsistent.
+ */
+public class MappedSemiSplayTree extends AbstractBufferSemiSplayTree implements Closeable {
+
+    private static final long MAGIC = 0x53656d6953706c61L;
+    private static final int VERSION = 1;
+
+    // header layout
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 8;
+    private static final int HEADER_SPLAY_SIZE = 12;
+    private static final int HEADER_SIZE = 16;
+    private static final int HEADER_ROOT = 24;
+    private static final int HEADER_END = 32;
+    private static final int HEADER_FREE = 40;
+    private static final int HEADER_BYTES = 64;
+
+    // node layout
+    private static final int NODE_BYTES = 32;
+    private static final int KEY = 0;
+    private static final int PARENT = 8;
+    private static final int LEFT_CHILD = 16;
+    private static final int RIGHT_CHILD = 24;
+
+    private static final int CHUNK_SHIFT = 24;
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_BYTES - 1;
+
+    private final FileChannel channel;
+    private MappedByteBuffer[] chunks;
+    private int chunkCount;
+    private MappedByteBuffer header;
+    private boolean closed;
+
+    private MappedSemiSplayTree(FileChannel channel, int splaySize) throws IOException {
+        super(splaySize);
+        this.channel = channel;
+        this.chunks = new MappedByteBuffer[8];
+        mapChunk();
+        this.header = this.chunks[0];
+    }
+
+    /**
+     * Creates a new, empty tree in the given file. If the file already exists, its contents are discarded.
+     * @param path, the file in which the tree is stored.
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     * @return the new tree.
+     * @throws IOException if the file can not be created or mapped.
+     */
+    public static MappedSemiSplayTree create(Path path, int splaySize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedSemiSplayTree tree = new MappedSemiSplayTree(channel, splaySize);
+            tree.header.putLong(HEADER_MAGIC, MAGIC);
+            tree.header.putInt(HEADER_VERSION, VERSION);
+            tree.header.putInt(HEADER_SPLAY_SIZE, splaySize);
+            tree.header.putInt(HEADER_SIZE, 0);
+            tree.header.putLong(HEADER_ROOT, NONE);
+            tree.header.putLong(HEADER_END, HEADER_BYTES);
+            tree.header.putLong(HEADER_FREE, NONE);
+            return tree;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reopens a tree that was stored with create. The tree keeps the shape it had when it was closed.
+     * @param path, the file in which the tree is stored.
+     * @return the tree.
+     * @throws IOException if the file can not be mapped or doesn't contain a MappedSemiSplayTree.
+     */
+    public static MappedSemiSplayTree open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_BYTES) throw new IOException(path + " is not a MappedSemiSplayTree file");
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong(HEADER_MAGIC) != MAGIC) throw new IOException(path + " is not a MappedSemiSplayTree file");
+            if (header.getInt(HEADER_VERSION) != VERSION) throw new IOException(path + " has unsupported version " + header.getInt(HEADER_VERSION));
+            int splaySize = header.getInt(HEADER_SPLAY_SIZE);
+            BufferCleaner.free(header);
+            MappedSemiSplayTree tree = new MappedSemiSplayTree(channel, splaySize);
+            long end = tree.header.getLong(HEADER_END);
+            while ((long) tree.chunkCount << CHUNK_SHIFT < end) tree.mapChunk();
+            return tree;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the amount of keys in the tree
+     * @return amount of keys, int
+     */
+    @Override
+    public int size() {
+        ensureOpen();
+        return this.header.getInt(HEADER_SIZE);
+    }
+
+    /**
+     * Writes all changes to the file on disk.
+     */
+    public void force() {
+        ensureOpen();
+        for (int i = 0; i < this.chunkCount; i++) this.chunks[i].force();
+    }
+
+    /**
+     * Writes all changes to disk, unmaps the file and closes it. Afterwards every operation on the tree throws an IllegalStateException.
+     * Calling close more than once has no effect.
+     * @throws IOException if the file can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        force();
+        this.closed = true;
+        for (int i = 0; i < this.chunkCount; i++) {
+            BufferCleaner.free(this.chunks[i]);
+            this.chunks[i] = null;
+        }
+        this.chunks = null;
+        this.header = null;
+        this.channel.close();
+    }
+
+    @Override
+    protected void ensureOpen() {
+        if (this.closed) throw new IllegalStateException("the tree has been closed");
+    }
+
+    private void mapChunk() throws IOException {
+        if (this.chunkCount == this.chunks.length) this.chunks = Arrays.copyOf(this.chunks, this.chunks.length * 2);
+        MappedByteBuffer chunk = this.channel.map(FileChannel.MapMode.READ_WRITE, (long) this.chunkCount << CHUNK_SHIFT, CHUNK_BYTES);
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+        this.chunks[this.chunkCount++] = chunk;
+    }
+
+    private MappedByteBuffer chunk(long node) {
+        return this.chunks[(int) (node >>> CHUNK_SHIFT)];
+    }
+
+    private static int offset(long node) {
+        return (int) (node & CHUNK_MASK);
+    }
+
+    @Override
+    protected long key(long node) {
+        return chunk(node).getLong(offset(node) + KEY);
+    }
+
+    @Override
+    protected long parent(long node) {
+        return chunk(node).getLong(offset(node) + PARENT);
+    }
+
+    @Override
+    protected long leftChild(long node) {
+        return chunk(node).getLong(offset(node) + LEFT_CHILD);
+    }
+
+    @Override
+    protected long rightChild(long node) {
+        return chunk(node).getLong(offset(node) + RIGHT_CHILD);
+    }
+
+    @Override
+    protected void setParent(long node, long parent) {
+        chunk(node).putLong(offset(node) + PARENT, parent);
+    }
+
+    @Override
+    protected void setLeftChild(long node, long leftChild) {
+        chunk(node).putLong(offset(node) + LEFT_CHILD, leftChild);
+    }
+
+    @Override
+    protected void setRightChild(long node, long rightChild) {
+        chunk(node).putLong(offset(node) + RIGHT_CHILD, rightChild);
+    }
+
+    @Override
+    protected long allocate(long key) {
+        long node = this.header.getLong(HEADER_FREE);
+        if (node != NONE) {
+            // the free nodes are chained through their parent field
+            this.header.putLong(HEADER_FREE, parent(node));
+        } else {
+            node = this.header.getLong(HEADER_END);
+            if (node >>> CHUNK_SHIFT == this.chunkCount) {
+                try {
+                    mapChunk();
+                } catch (IOException e) {
+                    throw new IllegalStateException("the file of the tree can not be extended", e);
+                }
+            }
+            this.header.putLong(HEADER_END, node + NODE_BYTES);
+        }
+        MappedByteBuffer chunk = chunk(node);
+        int offset = offset(node);
+        chunk.putLong(offset + KEY, key);
+        chunk.putLong(offset + PARENT, NONE);
+        chunk.putLong(offset + LEFT_CHILD, NONE);
+        chunk.putLong(offset + RIGHT_CHILD, NONE);
+        return node;
+    }
+
+    @Override
+    protected void release(long node) {
+        setParent(node, this.header.getLong(HEADER_FREE));
+        this.header.putLong(HEADER_FREE, node);
+    }
+
+    @Override
+    protected long root() {
+        return this.header.getLong(HEADER_ROOT);
+    }
+
+    @Override
+    protected void setRoot(long root) {
+        this.header.putLong(HEADER_ROOT, root);
+    }
+
+    @Override
+    protected void setSize(int size) {
+        this.header.putInt(HEADER_SIZE, size);
+    }
+}
@@ -0,0 +1,52 @@
+package semisplay;
+
+import java.util.Iterator;
+
+/**
+ * Een SearchTree die ook geordende opzoekingen ondersteunt.
+ * De methodes die een sleutel teruggeven geven null terug als er geen zo'n sleutel is, behalve first en last.
+ */
+public interface NavigableSearchTree<E> extends SearchTree<E> {
+
+    /** @return de grootste sleutel kleiner dan of gelijk aan de gegeven sleutel, null als die er niet is. */
+    E floor(E e);
+
+    /** @return de kleinste sleutel groter dan of gelijk aan de gegeven sleutel, null als die er niet is. */
+    E ceiling(E e);
+
+    /** @return de grootste sleutel strikt kleiner dan de gegeven sleutel, null als die er niet is. */
+    E lower(E e);
+
+    /** @return de kleinste sleutel strikt groter dan de gegeven sleutel, null als die er niet is. */
+    E higher(E e);
+
+    /** @return de kleinste sleutel in de boom.
+      * @throws java.util.NoSuchElementException als de boom leeg is. */
+    E first();
+
+    /** @return de grootste sleutel in de boom.
+      * @throws java.util.NoSuchElementException als de boom leeg is. */
+    E last();
+
+    /** Verwijder de kleinste sleutel uit de boom.
+      * @return de verwijderde sleutel, null als de boom leeg is. */
+    E pollFirst();
+
+    /** Verwijder de grootste sleutel uit de boom.
+      * @return de verwijderde sleutel, null als de boom leeg is. */
+    E pollLast();
+
+    /** Overloop de sleutels van from (inbegrepen) tot to (niet inbegrepen) in stijgende volgorde.
+      * De iterator begint meteen bij from, zonder de kleinere sleutels te overlopen. */
+    Iterator<E> subRange(E from, E to);
+
+    /** Overloop alle sleutels in dalende volgorde. */
+    Iterator<E> descendingIterator();
+
+    /** @return het aantal sleutels in de boom die strikt kleiner zijn dan de gegeven sleutel. */
+    int rank(E e);
+
+    /** @return de sleutel met de gegeven rang, de k-de kleinste sleutel met k vanaf 0.
+      * @throws IndexOutOfBoundsException als k negatief is of niet kleiner dan size(). */
+    E select(int k);
+}
@@ -1,8 +1,10 @@
 package semisplay;
 
-public class Node<E extends Comparable<E>> implements Comparable<Node<E>> {
+public class Node<E> {
     private Node<E> parent, leftChild, rightChild;
     private int whichChild; // 0 = root, 1 = leftChild, 2 = rightChild
+    private int subTreeSize = 1; // the amount of nodes in the subtree of this node, the node itself included
+    private int generation; // the snapshot generation of the tree in which this node was created, see SemiSplayTree.snapshot
     private E key;
 
     Node(E value){
@@ -27,6 +29,9 @@ public class Node<E extends Comparable<E>> implements Comparable<Node<E>> {
 
     public E getKey(){ return key; }
 
+    // only used while a tree is restored, before anyone else can see the node
+    void setKey(E key) { this.key = key; }
+
     /**
      * whichChild is an int value which indicates the state of the node in relation to its parent.
      * The value is either 0, 1, 2
@@ -47,8 +52,11 @@ public class Node<E extends Comparable<E>> implements Comparable<Node<E>> {
      */
     void setWhichChild(int whichChild) { this.whichChild = whichChild; }
 
-    @Override
-    public int compareTo(Node<E> o) {
-        return this.key.compareTo(o.getKey());
-    }
+    int getSubTreeSize() { return subTreeSize; }
+
+    void setSubTreeSize(int subTreeSize) { this.subTreeSize = subTreeSize; }
+
+    int getGeneration() { return generation; }
+
+    void setGeneration(int generation) { this.generation = generation; }
 }
@@ -0,0 +1,174 @@
+package semisplay;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A SemiSplayTree for long keys that keeps its nodes outside of the Java heap, in direct ByteBuffers.
+ * The garbage collector never sees the nodes, so the size of the tree has no influence on GC pause times.
+ * The nodes are stored in chunks of CHUNK_NODES nodes, a chunk is only allocated when it is needed.
+ * A node is 20 bytes: its key followed by the slot numbers of its parent, leftChild and rightChild.
+ * Slots of removed nodes are kept in a free list and reused by add.
+ * The memory is freed by close(), the tree can not be used afterwards.
+ */
+public class OffHeapSemiSplayTree extends AbstractBufferSemiSplayTree implements AutoCloseable {
+
+    private static final int NODE_BYTES = 20;
+    private static final int KEY = 0;
+    private static final int PARENT = 8;
+    private static final int LEFT_CHILD = 12;
+    private static final int RIGHT_CHILD = 16;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_NODES = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_NODES - 1;
+    private static final int MAX_NODES = Integer.MAX_VALUE;
+
+    private ByteBuffer[] chunks;
+    private int chunkCount;
+    private int root;
+    private int size;
+    // the highest slot that has ever been used, slot 0 is never used
+    private int usedSlots;
+    // first slot of the free list, the free slots are chained through their parent field
+    private int freeSlot;
+    private boolean closed;
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     */
+    public OffHeapSemiSplayTree(int splaySize) {
+        super(splaySize);
+        this.chunks = new ByteBuffer[8];
+    }
+
+    /**
+     * Returns the amount of keys in the tree
+     * @return amount of keys, int
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the amount of off-heap memory used by the nodes, in bytes.
+     */
+    public long allocatedBytes() {
+        return (long) this.chunkCount * CHUNK_NODES * NODE_BYTES;
+    }
+
+    /**
+     * Frees the off-heap memory of the tree. Afterwards every operation on the tree throws an IllegalStateException.
+     * Calling close more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (this.closed) return;
+        this.closed = true;
+        for (int i = 0; i < this.chunkCount; i++) {
+            BufferCleaner.free(this.chunks[i]);
+            this.chunks[i] = null;
+        }
+        this.chunks = null;
+        this.chunkCount = 0;
+        this.root = 0;
+        this.size = 0;
+    }
+
+    @Override
+    protected void ensureOpen() {
+        if (this.closed) throw new IllegalStateException("the tree has been closed");
+    }
+
+    private ByteBuffer chunk(long node) {
+        return this.chunks[(int) node >>> CHUNK_SHIFT];
+    }
+
+    private static int offset(long node) {
+        return ((int) node & CHUNK_MASK) * NODE_BYTES;
+    }
+
+    @Override
+    protected long key(long node) {
+        return chunk(node).getLong(offset(node) + KEY);
+    }
+
+    @Override
+    protected long parent(long node) {
+        return chunk(node).getInt(offset(node) + PARENT);
+    }
+
+    @Override
+    protected long leftChild(long node) {
+        return chunk(node).getInt(offset(node) + LEFT_CHILD);
+    }
+
+    @Override
+    protected long rightChild(long node) {
+        return chunk(node).getInt(offset(node) + RIGHT_CHILD);
+    }
+
+    @Override
+    protected void setParent(long node, long parent) {
+        chunk(node).putInt(offset(node) + PARENT, (int) parent);
+    }
+
+    @Override
+    protected void setLeftChild(long node, long leftChild) {
+        chunk(node).putInt(offset(node) + LEFT_CHILD, (int) leftChild);
+    }
+
+    @Override
+    protected void setRightChild(long node, long rightChild) {
+        chunk(node).putInt(offset(node) + RIGHT_CHILD, (int) rightChild);
+    }
+
+    @Override
+    protected long allocate(long key) {
+        int node;
+        if (this.freeSlot != NONE) {
+            node = this.freeSlot;
+            this.freeSlot = (int) parent(node);
+        } else {
+            if (this.usedSlots == MAX_NODES) throw new IllegalStateException("the tree can not hold more than " + MAX_NODES + " keys");
+            node = ++this.usedSlots;
+            if ((node >>> CHUNK_SHIFT) == this.chunkCount) addChunk();
+        }
+        ByteBuffer chunk = chunk(node);
+        int offset = offset(node);
+        chunk.putLong(offset + KEY, key);
+        chunk.putInt(offset + PARENT, (int) NONE);
+        chunk.putInt(offset + LEFT_CHILD, (int) NONE);
+        chunk.putInt(offset + RIGHT_CHILD, (int) NONE);
+        return node;
+    }
+
+    @Override
+    protected void release(long node) {
+        setParent(node, this.freeSlot);
+        this.freeSlot = (int) node;
+    }
+
+    private void addChunk() {
+        if (this.chunkCount == this.chunks.length) this.chunks = Arrays.copyOf(this.chunks, this.chunks.length * 2);
+        this.chunks[this.chunkCount++] = ByteBuffer.allocateDirect(CHUNK_NODES * NODE_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    protected long root() {
+        return this.root;
+    }
+
+    @Override
+    protected void setRoot(long root) {
+        this.root = (int) root;
+    }
+
+    @Override
+    protected void setSize(int size) {
+        this.size = size;
+    }
+}
@@ -1,6 +1,9 @@
 package semisplay;
 
-public interface SearchTree<E extends Comparable<E>> extends Iterable<E> {
+import java.util.BitSet;
+import java.util.Collection;
+
+public interface SearchTree<E> extends Iterable<E> {
 
     /** Voeg de gegeven sleutel toe aan de boom als deze er nog niet in zit.
       * @return true als de sleutel effectief toegevoegd werd. */
@@ -20,4 +23,40 @@ public interface SearchTree<E extends Comparable<E>> extends Iterable<E> {
     /** @return de diepte van de boom. */
     int depth();
 
+    /** Voeg alle gegeven sleutels toe aan de boom, in de volgorde van de collectie.
+      * @return een BitSet waarin bit i gezet is als de i-de sleutel effectief toegevoegd werd. */
+    default BitSet addAll(Collection<? extends E> keys) {
+        BitSet added = new BitSet(keys.size());
+        int i = 0;
+        for (E key : keys) {
+            if (add(key)) added.set(i);
+            i++;
+        }
+        return added;
+    }
+
+    /** Zoek alle gegeven sleutels op in de boom.
+      * @return een BitSet waarin bit i gezet is als de i-de sleutel gevonden werd. */
+    default BitSet containsAll(Collection<? extends E> keys) {
+        BitSet found = new BitSet(keys.size());
+        int i = 0;
+        for (E key : keys) {
+            if (contains(key)) found.set(i);
+            i++;
+        }
+        return found;
+    }
+
+    /** Verwijder alle gegeven sleutels uit de boom, in de volgorde van de collectie.
+      * @return een BitSet waarin bit i gezet is als de i-de sleutel gevonden en verwijderd werd. */
+    default BitSet removeAll(Collection<? extends E> keys) {
+        BitSet removed = new BitSet(keys.size());
+        int i = 0;
+        for (E key : keys) {
+            if (remove(key)) removed.set(i);
+            i++;
+        }
+        return removed;
+    }
+
 }
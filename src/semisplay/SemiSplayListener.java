@@ -0,0 +1,26 @@
+package semisplay;
+
+/**
+ * Receives the details of every operation on a SemiSplayTree, see SemiSplayTree.setListener.
+ * The methods are called on the thread that performs the operation, right after the operation is done,
+ * so implementations should be cheap and must not change the tree.
+ */
+public interface SemiSplayListener {
+
+    enum Operation { ADD, CONTAINS, REMOVE }
+
+    /**
+     * Called after every add, contains and remove.
+     * @param operation, the kind of operation.
+     * @param pathLength, the amount of nodes visited by the search, including the node that was found, added or removed.
+     * @param splaySteps, the amount of splaySize windows restructured by the splay that followed the search.
+     * @param nodesTouched, the amount of nodes visited by the search plus the amount of nodes moved by the splay.
+     */
+    void onOperation(Operation operation, int pathLength, int splaySteps, int nodesTouched);
+
+    /**
+     * Called after an operation that gave the tree another root.
+     * @param operationsSinceLastChange, the amount of operations since the previous root change, including this one.
+     */
+    void onRootChange(int operationsSinceLastChange);
+}
@@ -0,0 +1,692 @@
+package semisplay;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A NavigableMap on top of a SemiSplayTree. The values are stored in the nodes of the tree,
+ * so a get is a single search that splays the node of the key, just like contains on the SemiSplayTree.
+ * Frequently read keys move toward the root, which makes the map work well as a cache.
+ *
+ * put, putIfAbsent, computeIfAbsent and merge search the key only once, a missing key is added during that same descent.
+ * Iterating does not splay, except for the first entry of the iteration, which is found like firstEntry finds it.
+ * The entries returned by the navigation methods (firstEntry, floorEntry, ...) are snapshots that don't support setValue,
+ * the entries of entrySet write through to the map.
+ * The map is not thread-safe, even a get changes the shape of the tree.
+ */
+public class SemiSplayMap<K extends Comparable<K>, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+    private final MapTree<K, V> tree;
+    // the whole map as a range, the navigation methods and views are shared with the sub maps
+    private final RangeView all = new RangeView(true, null, true, true, null, true, false);
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     */
+    public SemiSplayMap(int splaySize) {
+        this.tree = new MapTree<>(splaySize);
+    }
+
+    /**
+     * Sets which lookups splay their node, see SemiSplayTree.setSplayPolicy.
+     * Adding a key always splays its new node.
+     */
+    public void setSplayPolicy(SplayPolicy splayPolicy) {
+        this.tree.setSplayPolicy(splayPolicy);
+    }
+
+    /**
+     * @return the depth of the underlying tree, -1 if the map is empty.
+     */
+    public int depth() {
+        return this.tree.depth();
+    }
+
+    @Override
+    public int size() {
+        return this.tree.size();
+    }
+
+    @Override
+    public void clear() {
+        this.tree.clear();
+    }
+
+    /**
+     * Returns the value of a key and splays its node.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        MapNode<K, V> node = mapNode(this.tree.access((K) key));
+        return node != null ? node.getValue() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean containsKey(Object key) {
+        return this.tree.access((K) key) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return getOrInsert(key).setValue(value);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        MapNode<K, V> node = getOrInsert(key);
+        V oldValue = node.getValue();
+        if (oldValue == null) node.setValue(value);
+        return oldValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        MapNode<K, V> node = mapNode(this.tree.removeNode((K) key));
+        return node != null ? node.getValue() : null;
+    }
+
+    /**
+     * Searches the key only once, if it is missing its node is added during that search.
+     * The node is removed again if the mappingFunction returns null or throws.
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        int size = this.tree.size();
+        MapNode<K, V> node = getOrInsert(key);
+        if (node.getValue() != null) return node.getValue();
+        boolean added = this.tree.size() != size;
+        V value = null;
+        try {
+            value = mappingFunction.apply(key);
+        } finally {
+            // the new node has just been splayed, so removing it is cheap
+            if (value == null && added) this.tree.removeNode(key);
+        }
+        if (value != null) node.setValue(value);
+        return value;
+    }
+
+    /**
+     * Searches the key only once, if it is missing its node is added during that search.
+     */
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        MapNode<K, V> node = getOrInsert(key);
+        V oldValue = node.getValue();
+        if (oldValue == null) {
+            node.setValue(value);
+            return value;
+        }
+        V newValue = remappingFunction.apply(oldValue, value);
+        if (newValue == null) this.tree.removeNode(key);
+        else node.setValue(newValue);
+        return newValue;
+    }
+
+    private MapNode<K, V> getOrInsert(K key) {
+        return mapNode(this.tree.getOrInsertNode(key));
+    }
+
+    // all nodes of the tree are created by MapTree.newNode
+    @SuppressWarnings("unchecked")
+    private MapNode<K, V> mapNode(Node<K> node) {
+        return (MapNode<K, V>) node;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() { return this.all.entrySet(); }
+
+    @Override
+    public Set<K> keySet() { return navigableKeySet(); }
+
+    @Override
+    public Entry<K, V> lowerEntry(K key) { return this.all.lowerEntry(key); }
+
+    @Override
+    public K lowerKey(K key) { return this.all.lowerKey(key); }
+
+    @Override
+    public Entry<K, V> floorEntry(K key) { return this.all.floorEntry(key); }
+
+    @Override
+    public K floorKey(K key) { return this.all.floorKey(key); }
+
+    @Override
+    public Entry<K, V> ceilingEntry(K key) { return this.all.ceilingEntry(key); }
+
+    @Override
+    public K ceilingKey(K key) { return this.all.ceilingKey(key); }
+
+    @Override
+    public Entry<K, V> higherEntry(K key) { return this.all.higherEntry(key); }
+
+    @Override
+    public K higherKey(K key) { return this.all.higherKey(key); }
+
+    @Override
+    public Entry<K, V> firstEntry() { return this.all.firstEntry(); }
+
+    @Override
+    public Entry<K, V> lastEntry() { return this.all.lastEntry(); }
+
+    @Override
+    public Entry<K, V> pollFirstEntry() { return this.all.pollFirstEntry(); }
+
+    @Override
+    public Entry<K, V> pollLastEntry() { return this.all.pollLastEntry(); }
+
+    @Override
+    public K firstKey() { return this.all.firstKey(); }
+
+    @Override
+    public K lastKey() { return this.all.lastKey(); }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() { return this.all.descendingMap(); }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() { return this.all.navigableKeySet(); }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() { return this.all.descendingKeySet(); }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return this.all.subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) { return this.all.headMap(toKey, inclusive); }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) { return this.all.tailMap(fromKey, inclusive); }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) { return subMap(fromKey, true, toKey, false); }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) { return headMap(toKey, false); }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) { return tailMap(fromKey, true); }
+
+    /**
+     * @return null, the keys are ordered by their natural ordering.
+     */
+    @Override
+    public Comparator<? super K> comparator() { return null; }
+
+    private Entry<K, V> snapshot(Node<K> node) {
+        return node != null ? new SimpleImmutableEntry<>(mapNode(node)) : null;
+    }
+
+    private K keyOrNull(Node<K> node) {
+        return node != null ? node.getKey() : null;
+    }
+
+    private K keyOrThrow(Node<K> node) {
+        if (node == null) throw new NoSuchElementException();
+        return node.getKey();
+    }
+
+    /**
+     * A range of the keys of the map, seen in ascending or descending order. All changes write through to the map.
+     * The methods starting with abs work in ascending order, the others translate to them depending on the order.
+     */
+    private final class RangeView extends AbstractMap<K, V> implements NavigableMap<K, V> {
+        // fromStart and toEnd mean there is no lower or upper bound, lo and hi are then ignored
+        private final boolean fromStart, loInclusive, toEnd, hiInclusive, descending;
+        private final K lo, hi;
+
+        private RangeView(boolean fromStart, K lo, boolean loInclusive, boolean toEnd, K hi, boolean hiInclusive, boolean descending) {
+            if (!fromStart && !toEnd && lo.compareTo(hi) > 0) throw new IllegalArgumentException("fromKey > toKey");
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        private boolean tooLow(K key) {
+            if (this.fromStart) return false;
+            int comparison = key.compareTo(this.lo);
+            return comparison < 0 || (comparison == 0 && !this.loInclusive);
+        }
+
+        private boolean tooHigh(K key) {
+            if (this.toEnd) return false;
+            int comparison = key.compareTo(this.hi);
+            return comparison > 0 || (comparison == 0 && !this.hiInclusive);
+        }
+
+        private boolean inRange(K key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        // a bound of a new view may be equal to an exclusive bound of this view
+        private void checkRange(K key, boolean inclusive) {
+            boolean inRange = inclusive ? inRange(key)
+                    : (this.fromStart || key.compareTo(this.lo) >= 0) && (this.toEnd || key.compareTo(this.hi) <= 0);
+            if (!inRange) throw new IllegalArgumentException("key out of range");
+        }
+
+        private Node<K> absLowest() {
+            Node<K> node = this.fromStart ? tree.firstNode() : tree.nearest(this.lo, false, this.loInclusive);
+            return node == null || tooHigh(node.getKey()) ? null : node;
+        }
+
+        private Node<K> absHighest() {
+            Node<K> node = this.toEnd ? tree.lastNode() : tree.nearest(this.hi, true, this.hiInclusive);
+            return node == null || tooLow(node.getKey()) ? null : node;
+        }
+
+        private Node<K> absCeiling(K key) {
+            if (tooLow(key)) return absLowest();
+            Node<K> node = tree.nearest(key, false, true);
+            return node == null || tooHigh(node.getKey()) ? null : node;
+        }
+
+        private Node<K> absHigher(K key) {
+            if (tooLow(key)) return absLowest();
+            Node<K> node = tree.nearest(key, false, false);
+            return node == null || tooHigh(node.getKey()) ? null : node;
+        }
+
+        private Node<K> absFloor(K key) {
+            if (tooHigh(key)) return absHighest();
+            Node<K> node = tree.nearest(key, true, true);
+            return node == null || tooLow(node.getKey()) ? null : node;
+        }
+
+        private Node<K> absLower(K key) {
+            if (tooHigh(key)) return absHighest();
+            Node<K> node = tree.nearest(key, true, false);
+            return node == null || tooLow(node.getKey()) ? null : node;
+        }
+
+        private Node<K> lowest() { return this.descending ? absHighest() : absLowest(); }
+
+        private Node<K> highest() { return this.descending ? absLowest() : absHighest(); }
+
+        private Node<K> ceiling(K key) { return this.descending ? absFloor(key) : absCeiling(key); }
+
+        private Node<K> higher(K key) { return this.descending ? absLower(key) : absHigher(key); }
+
+        private Node<K> floor(K key) { return this.descending ? absCeiling(key) : absFloor(key); }
+
+        private Node<K> lower(K key) { return this.descending ? absHigher(key) : absLower(key); }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            return inRange((K) key) ? SemiSplayMap.this.get(key) : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean containsKey(Object key) {
+            return inRange((K) key) && SemiSplayMap.this.containsKey(key);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            if (!inRange(key)) throw new IllegalArgumentException("key out of range");
+            return SemiSplayMap.this.put(key, value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V remove(Object key) {
+            return inRange((K) key) ? SemiSplayMap.this.remove(key) : null;
+        }
+
+        @Override
+        public int size() {
+            if (this.fromStart && this.toEnd) return tree.size();
+            int size = 0;
+            for (Iterator<Entry<K, V>> it = entrySet().iterator(); it.hasNext(); it.next()) size++;
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.fromStart && this.toEnd ? tree.size() == 0 : absLowest() == null;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<Entry<K, V>>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator(RangeView.this);
+                }
+
+                @Override
+                public int size() {
+                    return RangeView.this.size();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Map.Entry)) return false;
+                    Entry<?, ?> entry = (Entry<?, ?>) o;
+                    V value = get(entry.getKey());
+                    return Objects.equals(value, entry.getValue()) && (value != null || containsKey(entry.getKey()));
+                }
+
+                @Override
+                public boolean remove(Object o) {
+                    if (!contains(o)) return false;
+                    RangeView.this.remove(((Entry<?, ?>) o).getKey());
+                    return true;
+                }
+
+                @Override
+                public void clear() {
+                    RangeView.this.clear();
+                }
+            };
+        }
+
+        @Override
+        public void clear() {
+            if (this.fromStart && this.toEnd) {
+                tree.clear();
+                return;
+            }
+            for (Iterator<Entry<K, V>> it = new EntryIterator(this); it.hasNext(); ) {
+                it.next();
+                it.remove();
+            }
+        }
+
+        @Override
+        public Entry<K, V> lowerEntry(K key) { return snapshot(lower(key)); }
+
+        @Override
+        public K lowerKey(K key) { return keyOrNull(lower(key)); }
+
+        @Override
+        public Entry<K, V> floorEntry(K key) { return snapshot(floor(key)); }
+
+        @Override
+        public K floorKey(K key) { return keyOrNull(floor(key)); }
+
+        @Override
+        public Entry<K, V> ceilingEntry(K key) { return snapshot(ceiling(key)); }
+
+        @Override
+        public K ceilingKey(K key) { return keyOrNull(ceiling(key)); }
+
+        @Override
+        public Entry<K, V> higherEntry(K key) { return snapshot(higher(key)); }
+
+        @Override
+        public K higherKey(K key) { return keyOrNull(higher(key)); }
+
+        @Override
+        public Entry<K, V> firstEntry() { return snapshot(lowest()); }
+
+        @Override
+        public Entry<K, V> lastEntry() { return snapshot(highest()); }
+
+        @Override
+        public Entry<K, V> pollFirstEntry() { return poll(lowest()); }
+
+        @Override
+        public Entry<K, V> pollLastEntry() { return poll(highest()); }
+
+        private Entry<K, V> poll(Node<K> node) {
+            if (node == null) return null;
+            Entry<K, V> entry = snapshot(node);
+            tree.removeNode(node.getKey());
+            return entry;
+        }
+
+        @Override
+        public K firstKey() { return keyOrThrow(lowest()); }
+
+        @Override
+        public K lastKey() { return keyOrThrow(highest()); }
+
+        @Override
+        public NavigableMap<K, V> descendingMap() {
+            return new RangeView(this.fromStart, this.lo, this.loInclusive, this.toEnd, this.hi, this.hiInclusive, !this.descending);
+        }
+
+        @Override
+        public NavigableSet<K> navigableKeySet() { return new KeySet(this); }
+
+        @Override
+        public Set<K> keySet() { return navigableKeySet(); }
+
+        @Override
+        public NavigableSet<K> descendingKeySet() { return descendingMap().navigableKeySet(); }
+
+        @Override
+        public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+            checkRange(fromKey, fromInclusive);
+            checkRange(toKey, toInclusive);
+            if (this.descending) return new RangeView(false, toKey, toInclusive, false, fromKey, fromInclusive, true);
+            return new RangeView(false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+        }
+
+        @Override
+        public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+            checkRange(toKey, inclusive);
+            if (this.descending) return new RangeView(false, toKey, inclusive, this.toEnd, this.hi, this.hiInclusive, true);
+            return new RangeView(this.fromStart, this.lo, this.loInclusive, false, toKey, inclusive, false);
+        }
+
+        @Override
+        public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            checkRange(fromKey, inclusive);
+            if (this.descending) return new RangeView(this.fromStart, this.lo, this.loInclusive, false, fromKey, inclusive, true);
+            return new RangeView(false, fromKey, inclusive, this.toEnd, this.hi, this.hiInclusive, false);
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) { return subMap(fromKey, true, toKey, false); }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) { return headMap(toKey, false); }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) { return tailMap(fromKey, true); }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return this.descending ? Collections.reverseOrder() : null;
+        }
+    }
+
+    /**
+     * Walks the nodes of a range with the parent pointers, the entries are the nodes themselves.
+     * Removing through the iterator is allowed, other changes to the map during the iteration,
+     * a get included, make the iterator throw a ConcurrentModificationException.
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private final RangeView range;
+        private Node<K> nextNode;
+        private MapNode<K, V> lastReturned;
+        private int expectedModCount;
+
+        private EntryIterator(RangeView range) {
+            this.range = range;
+            this.nextNode = range.lowest();
+            this.expectedModCount = tree.getModCount();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextNode != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (this.nextNode == null) throw new NoSuchElementException();
+            if (tree.getModCount() != this.expectedModCount) throw new ConcurrentModificationException();
+            this.lastReturned = mapNode(this.nextNode);
+            if (this.range.descending) {
+                this.nextNode = SemiSplayTree.predecessor(this.nextNode);
+                if (this.nextNode != null && this.range.tooLow(this.nextNode.getKey())) this.nextNode = null;
+            } else {
+                this.nextNode = SemiSplayTree.successor(this.nextNode);
+                if (this.nextNode != null && this.range.tooHigh(this.nextNode.getKey())) this.nextNode = null;
+            }
+            return this.lastReturned;
+        }
+
+        /**
+         * The removal splays, but the nodes themselves stay the same, so the next node is still correct.
+         */
+        @Override
+        public void remove() {
+            if (this.lastReturned == null) throw new IllegalStateException();
+            if (tree.getModCount() != this.expectedModCount) throw new ConcurrentModificationException();
+            tree.removeNode(this.lastReturned.getKey());
+            this.lastReturned = null;
+            this.expectedModCount = tree.getModCount();
+        }
+    }
+
+    /**
+     * The keys of a map or one of its views, all operations go through the map.
+     */
+    private final class KeySet extends AbstractSet<K> implements NavigableSet<K> {
+        private final NavigableMap<K, V> map;
+
+        private KeySet(NavigableMap<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            Iterator<Entry<K, V>> entries = this.map.entrySet().iterator();
+            return new Iterator<K>() {
+                @Override
+                public boolean hasNext() { return entries.hasNext(); }
+
+                @Override
+                public K next() { return entries.next().getKey(); }
+
+                @Override
+                public void remove() { entries.remove(); }
+            };
+        }
+
+        @Override
+        public int size() { return this.map.size(); }
+
+        @Override
+        public boolean isEmpty() { return this.map.isEmpty(); }
+
+        @Override
+        public boolean contains(Object o) { return this.map.containsKey(o); }
+
+        @Override
+        public boolean remove(Object o) {
+            int size = this.map.size();
+            this.map.remove(o);
+            return this.map.size() != size;
+        }
+
+        @Override
+        public void clear() { this.map.clear(); }
+
+        @Override
+        public K lower(K key) { return this.map.lowerKey(key); }
+
+        @Override
+        public K floor(K key) { return this.map.floorKey(key); }
+
+        @Override
+        public K ceiling(K key) { return this.map.ceilingKey(key); }
+
+        @Override
+        public K higher(K key) { return this.map.higherKey(key); }
+
+        @Override
+        public K first() { return this.map.firstKey(); }
+
+        @Override
+        public K last() { return this.map.lastKey(); }
+
+        @Override
+        public K pollFirst() { return keyOrNull(this.map.pollFirstEntry()); }
+
+        @Override
+        public K pollLast() { return keyOrNull(this.map.pollLastEntry()); }
+
+        private K keyOrNull(Entry<K, V> entry) {
+            return entry != null ? entry.getKey() : null;
+        }
+
+        @Override
+        public NavigableSet<K> descendingSet() { return new KeySet(this.map.descendingMap()); }
+
+        @Override
+        public Iterator<K> descendingIterator() { return descendingSet().iterator(); }
+
+        @Override
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return new KeySet(this.map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) { return new KeySet(this.map.headMap(toElement, inclusive)); }
+
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) { return new KeySet(this.map.tailMap(fromElement, inclusive)); }
+
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) { return subSet(fromElement, true, toElement, false); }
+
+        @Override
+        public SortedSet<K> headSet(K toElement) { return headSet(toElement, false); }
+
+        @Override
+        public SortedSet<K> tailSet(K fromElement) { return tailSet(fromElement, true); }
+
+        @Override
+        public Comparator<? super K> comparator() { return this.map.comparator(); }
+    }
+
+    /**
+     * A SemiSplayTree whose nodes also hold a value.
+     */
+    private static final class MapTree<K extends Comparable<K>, V> extends SemiSplayTree<K> {
+
+        private MapTree(int splaySize) {
+            super(splaySize);
+        }
+
+        @Override
+        Node<K> newNode(K key) {
+            return new MapNode<K, V>(key);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package semisplay;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A SemiSplayListener that keeps counters of the operations on one or more trees.
+ * All counters are striped (LongAdder), so trees in different threads can share one SemiSplayMetrics without contention.
+ * The counters can be read directly or through JMX, after registering the metrics with register.
+ */
+public class SemiSplayMetrics implements SemiSplayListener, SemiSplayMetricsMBean {
+
+    private static final int HISTOGRAM_BUCKETS = 32;
+
+    private final LongAdder[] operationCounts = new LongAdder[Operation.values().length];
+    private final LongAdder pathLength = new LongAdder();
+    private final LongAccumulator maxPathLength = new LongAccumulator(Math::max, 0);
+    private final LongAdder splaySteps = new LongAdder();
+    private final LongAdder nodesTouched = new LongAdder();
+    private final LongAdder[] rootChangeHistogram = new LongAdder[HISTOGRAM_BUCKETS];
+
+    public SemiSplayMetrics() {
+        for (int i = 0; i < this.operationCounts.length; i++) this.operationCounts[i] = new LongAdder();
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) this.rootChangeHistogram[i] = new LongAdder();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, under semisplay:type=SemiSplayMetrics,name=[name].
+     * @param name, the name that tells the metrics of different trees apart.
+     * @return the name under which the metrics are registered.
+     * @throws JMException if the name is invalid or already taken.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("semisplay:type=SemiSplayMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public void onOperation(Operation operation, int pathLength, int splaySteps, int nodesTouched) {
+        this.operationCounts[operation.ordinal()].increment();
+        this.pathLength.add(pathLength);
+        this.maxPathLength.accumulate(pathLength);
+        this.splaySteps.add(splaySteps);
+        this.nodesTouched.add(nodesTouched);
+    }
+
+    @Override
+    public void onRootChange(int operationsSinceLastChange) {
+        // the bucket is the position of the highest bit, so bucket i holds 2^i up to 2^(i+1) - 1
+        int bucket = 31 - Integer.numberOfLeadingZeros(Math.max(1, operationsSinceLastChange));
+        this.rootChangeHistogram[bucket].increment();
+    }
+
+    @Override
+    public long getAddCount() {
+        return this.operationCounts[Operation.ADD.ordinal()].sum();
+    }
+
+    @Override
+    public long getContainsCount() {
+        return this.operationCounts[Operation.CONTAINS.ordinal()].sum();
+    }
+
+    @Override
+    public long getRemoveCount() {
+        return this.operationCounts[Operation.REMOVE.ordinal()].sum();
+    }
+
+    /**
+     * @return the amount of reported operations of all kinds.
+     */
+    public long getOperationCount() {
+        long operations = 0;
+        for (LongAdder count : this.operationCounts) operations += count.sum();
+        return operations;
+    }
+
+    @Override
+    public double getAveragePathLength() {
+        return average(this.pathLength);
+    }
+
+    @Override
+    public long getMaxPathLength() {
+        return this.maxPathLength.get();
+    }
+
+    @Override
+    public double getAverageSplaySteps() {
+        return average(this.splaySteps);
+    }
+
+    @Override
+    public double getAverageNodesTouched() {
+        return average(this.nodesTouched);
+    }
+
+    @Override
+    public long getRootChangeCount() {
+        long rootChanges = 0;
+        for (LongAdder bucket : this.rootChangeHistogram) rootChanges += bucket.sum();
+        return rootChanges;
+    }
+
+    @Override
+    public long[] getRootChangeHistogram() {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) histogram[i] = this.rootChangeHistogram[i].sum();
+        return histogram;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder count : this.operationCounts) count.reset();
+        this.pathLength.reset();
+        this.maxPathLength.reset();
+        this.splaySteps.reset();
+        this.nodesTouched.reset();
+        for (LongAdder bucket : this.rootChangeHistogram) bucket.reset();
+    }
+
+    private double average(LongAdder total) {
+        long operations = getOperationCount();
+        return operations == 0 ? 0 : (double) total.sum() / operations;
+    }
+}
@@ -0,0 +1,42 @@
+package semisplay;
+
+/**
+ * The JMX view of a SemiSplayMetrics, see SemiSplayMetrics.register.
+ */
+public interface SemiSplayMetricsMBean {
+
+    long getAddCount();
+
+    long getContainsCount();
+
+    long getRemoveCount();
+
+    /**
+     * @return the average amount of nodes visited by the search of an operation.
+     */
+    double getAveragePathLength();
+
+    long getMaxPathLength();
+
+    /**
+     * @return the average amount of splay steps per operation.
+     */
+    double getAverageSplaySteps();
+
+    /**
+     * @return the average amount of nodes visited or moved per operation.
+     */
+    double getAverageNodesTouched();
+
+    long getRootChangeCount();
+
+    /**
+     * @return bucket i counts the root changes that came between 2^i and 2^(i+1) - 1 operations after the previous one.
+     */
+    long[] getRootChangeHistogram();
+
+    /**
+     * Sets all counters back to 0.
+     */
+    void reset();
+}
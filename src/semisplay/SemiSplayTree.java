@@ -1,27 +1,63 @@
 package semisplay;
 
 import java.util.*;
+import java.util.function.Consumer;
 
-public class SemiSplayTree<E extends Comparable<E>> implements SearchTree<E> {
+/**
+ * A semi-splay tree. The keys are ordered by a Comparator, or by their natural ordering if the tree has none,
+ * in which case the keys must implement the Comparable interface.
+ * Every search compares the key only once with each node on its path.
+ */
+public class SemiSplayTree<E> implements NavigableSearchTree<E> {
 
     private Node<E> root;
     private int size;
     private int splaySize;
+    // null for the natural ordering of the keys
+    private final Comparator<? super E> comparator;
+    // counts every change to the shape of the tree, splays included, so the iterators can fail fast
+    private int modCount;
+    // nodes of an older generation are shared with a snapshot, their children may not change anymore
+    private int generation;
+    // if true, every node is a HeightNode that keeps the height of its subtree, so depth() only has to look at the root
+    private boolean depthTracking;
+    private SplayPolicy splayPolicy = SplayPolicy.always();
+    // only used when a listener is set, so the operations don't pay anything for the metrics otherwise
+    private SemiSplayListener listener;
+    private E reportedRootKey;
+    // the amount of nodes visited by the last find, so the listener and the SplayPolicy don't need a second walk
+    private int searchPathLength;
+    private int operationsSinceRootChange;
+    // scratch arrays used by splay, allocated once so splaying doesn't create garbage
+    private Node<E>[] splayPath;
+    private Node<E>[] splayOrder;
+    private Node<E>[] splaySubTrees;
 
     /**
      * Constructor
      * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
      */
     public SemiSplayTree(int splaySize){
+        this(splaySize, null);
+    }
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     * @param comparator, the ordering of the keys, null for their natural ordering.
+     */
+    public SemiSplayTree(int splaySize, Comparator<? super E> comparator) {
         this.root = null;
         this.size = 0;
         assert(splaySize >= 3);
         this.splaySize = splaySize;
+        this.comparator = comparator;
+        allocateSplayBuffers();
     }
 
     /**
      * Constructor
-     * @param rootKey, the key that will be become the root of the SemiSplayTree, must be an implementation of Java Comparable interface.
+     * @param rootKey, the key that will be become the root of the SemiSplayTree, must be comparable with the ordering of the tree.
      * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
      */
     public SemiSplayTree(E rootKey, int splaySize) {
@@ -30,48 +66,161 @@ public class SemiSplayTree<E extends Comparable<E>> implements SearchTree<E> {
         this.size = 1;
         assert(splaySize >= 3);
         this.splaySize = splaySize;
+        this.comparator = null;
+        allocateSplayBuffers();
+    }
+
+    /**
+     * Builds a perfectly balanced SemiSplayTree out of a collection of keys, without splaying.
+     * The keys are sorted once, duplicates are left out, after which the tree is built in linear time.
+     * @param keys, the keys of the new tree, in any order.
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     * @return the new SemiSplayTree
+     */
+    public static <E extends Comparable<E>> SemiSplayTree<E> bulkLoad(Collection<? extends E> keys, int splaySize) {
+        return bulkLoad(keys, splaySize, null);
+    }
+
+    /**
+     * Builds a perfectly balanced SemiSplayTree out of a collection of keys, see bulkLoad(keys, splaySize).
+     * @param comparator, the ordering of the keys, null for their natural ordering.
+     */
+    public static <E> SemiSplayTree<E> bulkLoad(Collection<? extends E> keys, int splaySize, Comparator<? super E> comparator) {
+        SemiSplayTree<E> tree = new SemiSplayTree<>(splaySize, comparator);
+        Object[] sortedKeys = keys.toArray();
+        int uniqueKeys = tree.sortUnique(sortedKeys);
+        tree.root = tree.buildBalanced(sortedKeys, 0, uniqueKeys - 1);
+        tree.size = uniqueKeys;
+        return tree;
+    }
+
+    /**
+     * Builds a perfectly balanced SemiSplayTree out of keys that are already sorted, in linear time and without splaying.
+     * Just like in a splay step, the middle key of every range becomes the root of the subtree holding that range.
+     * @param sortedKeys, the keys of the new tree, in ascending order and without duplicates.
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     * @return the new SemiSplayTree
+     * @throws IllegalArgumentException if the keys are not in strictly ascending order.
+     */
+    public static <E extends Comparable<E>> SemiSplayTree<E> fromSorted(Collection<? extends E> sortedKeys, int splaySize) {
+        return fromSorted(sortedKeys, splaySize, null);
+    }
+
+    /**
+     * Builds a perfectly balanced SemiSplayTree out of keys that are already sorted, see fromSorted(sortedKeys, splaySize).
+     * @param comparator, the ordering of the keys, null for their natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> SemiSplayTree<E> fromSorted(Collection<? extends E> sortedKeys, int splaySize, Comparator<? super E> comparator) {
+        SemiSplayTree<E> tree = new SemiSplayTree<>(splaySize, comparator);
+        Object[] keys = sortedKeys.toArray();
+        for (int i = 1; i < keys.length; i++) {
+            if (tree.compare((E) keys[i - 1], (E) keys[i]) >= 0) {
+                throw new IllegalArgumentException("the keys are not sorted in ascending order without duplicates: " + keys[i - 1] + ", " + keys[i]);
+            }
+        }
+        tree.root = tree.buildBalanced(keys, 0, keys.length - 1);
+        tree.size = keys.length;
+        return tree;
+    }
+
+    /**
+     * Sorts the keys and moves the unique ones to the front of the array.
+     * @param keys, the keys to sort, must be comparable with the ordering of the tree.
+     * @return the amount of unique keys.
+     */
+    @SuppressWarnings("unchecked")
+    private int sortUnique(Object[] keys) {
+        // a null comparator sorts by the natural ordering
+        Arrays.sort(keys, (Comparator<Object>) this.comparator);
+        // the duplicates are next to each other now
+        int uniqueKeys = 0;
+        for (Object key : keys) {
+            if (uniqueKeys == 0 || compare((E) keys[uniqueKeys - 1], (E) key) != 0) keys[uniqueKeys++] = key;
+        }
+        return uniqueKeys;
+    }
+
+    /**
+     * Recursively builds a complete binary tree out of the sorted keys[from..to].
+     * Just like in buildSubTree, the middle key of the range becomes the root.
+     * @return the root of the new binary tree, its parent and whichChild still have to be set.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<E> buildBalanced(Object[] keys, int from, int to) {
+        if (from > to) return null;
+        int middleNodeIndex = from + (to - from + 1) / 2;
+        Node<E> middleNode = createNode((E) keys[middleNodeIndex]);
+        Node<E> leftChild = buildBalanced(keys, from, middleNodeIndex - 1);
+        Node<E> rightChild = buildBalanced(keys, middleNodeIndex + 1, to);
+        middleNode.setLeftChild(leftChild);
+        middleNode.setRightChild(rightChild);
+        if (leftChild != null) {
+            leftChild.setParent(middleNode);
+            leftChild.setWhichChild(1);
+        }
+        if (rightChild != null) {
+            rightChild.setParent(middleNode);
+            rightChild.setWhichChild(2);
+        }
+        middleNode.setSubTreeSize(to - from + 1);
+        if (this.depthTracking) updateHeight(middleNode);
+        return middleNode;
     }
 
     /**
      * Adds a key to the SemiSplayTree. If successful also adds 1 to the size of the SemiSplayTree.
-     * @param key, must be an implementation of Java Comparable interface.
+     * @param key, must be comparable with the ordering of the tree.
      * @return returns true if the key is added successfully, false otherwise.
      */
     @Override
     public boolean add(E key) {
         if (this.root == null) {
-            this.root = new Node<>(key);
+            this.root = createNode(key);
             this.root.setWhichChild(0);
             incrementSize();
+            if (this.listener != null) report(SemiSplayListener.Operation.ADD, 1, null);
             return true;
         }
         Node<E> currentNode = this.root;
+        int pathLength = 0;
         while (currentNode != null) {
-            E currentKeyValue = currentNode.getKey();
+            pathLength++;
+            int comparison = compare(key, currentNode.getKey());
             // The key is already in the SemiSplayTree
-            if (currentKeyValue.equals(key)) return false;
-            // currentKeyValue is less than key
-            if (currentKeyValue.compareTo(key) < 0) {
+            if (comparison == 0) {
+                if (this.listener != null) report(SemiSplayListener.Operation.ADD, pathLength, null);
+                return false;
+            }
+            // the key of currentNode is less than key
+            if (comparison > 0) {
                 // If the currentKey has no rightChild, the new key becomes its leftChild
                 if (currentNode.getRightChild() == null) {
-                    currentNode.setRightChild(new Node<>(key));
+                    currentNode = writable(currentNode);
+                    currentNode.setRightChild(createNode(key));
                     currentNode.getRightChild().setParent(currentNode);
                     currentNode.getRightChild().setWhichChild(2);
                     incrementSize();
-                    splay(currentNode.getRightChild());
+                    updateUpwards(currentNode);
+                    Node<E> newNode = currentNode.getRightChild();
+                    if (this.listener != null) report(SemiSplayListener.Operation.ADD, pathLength + 1, newNode);
+                    else splay(newNode);
                     return true;
                 }
                 currentNode = currentNode.getRightChild();
-            }
-            // currentKeyValue is greater than newKey
-            if (currentKeyValue.compareTo(key) > 0) {
+            } else {
+                // the key of currentNode is greater than key
                 // If the currentKey has no leftChild, the new key becomes its leftChild
                 if (currentNode.getLeftChild() == null) {
-                    currentNode.setLeftChild(new Node<>(key));
+                    currentNode = writable(currentNode);
+                    currentNode.setLeftChild(createNode(key));
                     currentNode.getLeftChild().setParent(currentNode);
                     currentNode.getLeftChild().setWhichChild(1);
                     incrementSize();
-                    splay(currentNode.getLeftChild());
+                    updateUpwards(currentNode);
+                    Node<E> newNode = currentNode.getLeftChild();
+                    if (this.listener != null) report(SemiSplayListener.Operation.ADD, pathLength + 1, newNode);
+                    else splay(newNode);
                     return true;
                 }
                 currentNode = currentNode.getLeftChild();
@@ -81,161 +230,454 @@ public class SemiSplayTree<E extends Comparable<E>> implements SearchTree<E> {
     }
 
     /**
-     * Checks if the SemiSplayTree contains a specific key.
-     * @param key, the key that gets checked, must be an implementation of Java Comparable interface.
+     * Checks if the SemiSplayTree contains a specific key. The found node is splayed if the SplayPolicy agrees.
+     * @param key, the key that gets checked, must be comparable with the ordering of the tree.
      * @return returns true if the key is found, false otherwise.
      */
     @Override
     public boolean contains(E key) {
+        return access(key) != null;
+    }
+
+    /**
+     * Searches the node containing a specific key and splays it if the SplayPolicy agrees.
+     * @param key, the key to search, must be comparable with the ordering of the tree.
+     * @return the node containing the key, null if the key is not found.
+     */
+    Node<E> access(E key) {
+        Node<E> node = find(key);
+        if (this.listener != null) {
+            report(SemiSplayListener.Operation.CONTAINS, this.searchPathLength, node != null && shouldSplay(this.searchPathLength) ? node : null);
+            return node;
+        }
+        if (node == null) return null;
+        if (shouldSplay(this.searchPathLength)) splay(node);
+        return node;
+    }
+
+    /**
+     * Searches the node containing a specific key and adds it if it isn't there yet, in a single descent.
+     * A new node is always splayed, an existing one if the SplayPolicy agrees.
+     * Whether the node is new can be seen from the size of the tree.
+     * @param key, the key to search, must be comparable with the ordering of the tree.
+     * @return the node containing the key.
+     */
+    Node<E> getOrInsertNode(E key) {
+        if (this.root == null) {
+            add(key);
+            return this.root;
+        }
         Node<E> currentNode = this.root;
+        int pathLength = 0;
+        int comparison;
+        while (true) {
+            pathLength++;
+            comparison = compare(key, currentNode.getKey());
+            if (comparison == 0) {
+                if (this.listener != null) {
+                    report(SemiSplayListener.Operation.CONTAINS, pathLength, shouldSplay(pathLength) ? currentNode : null);
+                } else if (shouldSplay(pathLength)) {
+                    splay(currentNode);
+                }
+                return currentNode;
+            }
+            Node<E> child = comparison < 0 ? currentNode.getLeftChild() : currentNode.getRightChild();
+            if (child == null) break;
+            currentNode = child;
+        }
+        currentNode = writable(currentNode);
+        Node<E> newNode = createNode(key);
+        newNode.setParent(currentNode);
+        if (comparison < 0) {
+            currentNode.setLeftChild(newNode);
+            newNode.setWhichChild(1);
+        } else {
+            currentNode.setRightChild(newNode);
+            newNode.setWhichChild(2);
+        }
+        incrementSize();
+        updateUpwards(currentNode);
+        if (this.listener != null) report(SemiSplayListener.Operation.ADD, pathLength + 1, newNode);
+        else splay(newNode);
+        return newNode;
+    }
+
+    /**
+     * Creates the node for a new key. Subclasses can store more in their nodes, like SemiSplayMap does,
+     * but then they can't track their depth, that needs a HeightNode.
+     */
+    Node<E> newNode(E key) {
+        return this.depthTracking ? new HeightNode<>(key) : new Node<>(key);
+    }
+
+    private Node<E> createNode(E key) {
+        Node<E> node = newNode(key);
+        node.setGeneration(this.generation);
+        return node;
+    }
+
+    /**
+     * Searches the node containing a specific key, without splaying.
+     * The amount of nodes visited is kept in searchPathLength, so find can't run in several threads at once.
+     * @param key, the key to search, must be comparable with the ordering of the tree.
+     * @return the node containing the key, null if the key is not found.
+     */
+    private Node<E> find(E key) {
+        Node<E> currentNode = this.root;
+        int pathLength = 0;
         while (currentNode != null) {
-            E currentKeyValue = currentNode.getKey();
+            pathLength++;
+            int comparison = compare(key, currentNode.getKey());
             // Key is found
-            if (currentKeyValue.equals(key)) {
-                splay(currentNode);
-                return true;
-            }
-            // currentKeyValue is less than key
-            if (currentKeyValue.compareTo(key) < 0) currentNode = currentNode.getRightChild();
-            // currentKeyValue is greater than key
-            if(currentKeyValue.compareTo(key) > 0) currentNode = currentNode.getLeftChild();
+            if (comparison == 0) break;
+            currentNode = comparison < 0 ? currentNode.getLeftChild() : currentNode.getRightChild();
         }
-        return false;
+        this.searchPathLength = pathLength;
+        return currentNode;
     }
 
     /**
      * Removes a node from the SemiSplayTree. If successful also decrements 1 to the size of the SemiSplayTree.
-     * @param key, must be an implementation of Java Comparable interface.
+     * @param key, must be comparable with the ordering of the tree.
      * @return returns true if the key is found and removed, false otherwise.
      */
     @Override
     public boolean remove(E key) {
-        if (this.root == null) return false;
-        Node<E> currentNode = this.root;
-        while (currentNode != null) {
-            E currentKeyValue = currentNode.getKey();
-            // currentKeyValue is less than key
-            if (currentKeyValue.compareTo(key) < 0) currentNode = currentNode.getRightChild();
-            // currentKeyValue is greater than key
-            if(currentKeyValue.compareTo(key) > 0)  currentNode = currentNode.getLeftChild();
-            // currentKey is equal to key
-            if (currentKeyValue.equals(key)) {
-                // Case 1: no children, just remove the key
-                if (currentNode.getLeftChild() == null && currentNode.getRightChild() == null) {
-                    switch (currentNode.getWhichChild()) {
-                        case 0: this.root = null; // currentNode is the root
-                            break;
-                        case 1: currentNode.getParent().setLeftChild(null); // currentNode is the leftChild of its parent
-                            splay(currentNode.getParent());
-                            break;
-                        case 2: currentNode.getParent().setRightChild(null); // currentNode is the rightChild of its parent
-                            splay(currentNode.getParent());
-                            break;
-                        default: return false;
-                    }
-                    decrementSize();
-                    return true;
+        return removeNode(key) != null;
+    }
+
+    /**
+     * Removes the node containing a specific key, see remove.
+     * @return the removed node, null if the key is not found.
+     */
+    Node<E> removeNode(E key) {
+        Node<E> node = find(key);
+        if (node == null) {
+            if (this.listener != null) report(SemiSplayListener.Operation.REMOVE, this.searchPathLength, null);
+            return null;
+        }
+        Node<E> startOfSplay = unlink(node);
+        updateUpwards(startOfSplay);
+        decrementSize();
+        if (this.listener != null) report(SemiSplayListener.Operation.REMOVE, this.searchPathLength, startOfSplay);
+        else if (startOfSplay != null) splay(startOfSplay);
+        return node;
+    }
+
+    /**
+     * Replaces the keys by a tree that was built elsewhere, e.g. read by SemiSplayTreeSerializer.
+     * @param root, the root of the new tree, its subtree sizes must be set.
+     * @param size, the amount of keys in the new tree.
+     */
+    void load(Node<E> root, int size) {
+        this.root = root;
+        this.size = size;
+        this.modCount++;
+        if (this.depthTracking) replaceByHeightNodes();
+    }
+
+    /**
+     * Removes all keys from the SemiSplayTree.
+     */
+    public void clear() {
+        this.root = null;
+        this.size = 0;
+        this.reportedRootKey = null;
+        this.modCount++;
+    }
+
+    /**
+     * Returns an immutable view of the keys as they are now, which never splays.
+     * Taking a snapshot is O(1): the nodes are shared between the tree and the snapshot.
+     * From then on the tree copies a shared node before it changes its children, together with the path above it
+     * (path copying), so a node is copied at most once per snapshot and the snapshot never sees a change.
+     * The snapshot only follows child pointers, never the parent pointers the tree keeps changing,
+     * so it can be scanned by other threads while this tree keeps changing.
+     * @return the snapshot, a SearchTree that can't be changed.
+     */
+    public SemiSplayTreeSnapshot<E> snapshot() {
+        // all current nodes become shared with the snapshot
+        this.generation++;
+        return new SemiSplayTreeSnapshot<>(this.root, this.size, this.comparator);
+    }
+
+    /**
+     * Makes sure the children of node can be changed without changing a snapshot.
+     * A node that is shared with a snapshot is replaced by a copy, and so are its shared ancestors.
+     * The nodes of the current generation are only found above each other, so the copying stops at the first one.
+     * @param node, a node of the tree.
+     * @return the node itself if it isn't shared, otherwise the copy that took its place in the tree.
+     */
+    private Node<E> writable(Node<E> node) {
+        if (node.getGeneration() == this.generation) return node;
+        // the replaced nodes are no longer part of the tree, iterators and cursors that hold them must notice
+        this.modCount++;
+        Node<E> copy = copy(node);
+        Node<E> child = copy;
+        while (true) {
+            Node<E> parent = child.getParent();
+            if (parent == null) {
+                this.root = child;
+                return copy;
+            }
+            boolean shared = parent.getGeneration() != this.generation;
+            if (shared) parent = copy(parent);
+            if (child.getWhichChild() == 1) parent.setLeftChild(child);
+            else parent.setRightChild(child);
+            child.setParent(parent);
+            if (!shared) return copy;
+            child = parent;
+        }
+    }
+
+    /**
+     * @return a node of the current generation with the same key, place and children as node, the children get it as their parent.
+     */
+    private Node<E> copy(Node<E> node) {
+        Node<E> copy = createNode(node.getKey());
+        copy.setParent(node.getParent());
+        copy.setWhichChild(node.getWhichChild());
+        copy.setLeftChild(node.getLeftChild());
+        copy.setRightChild(node.getRightChild());
+        if (this.depthTracking) ((HeightNode<E>) copy).setHeight(height(node));
+        copy.setSubTreeSize(node.getSubTreeSize());
+        if (copy.getLeftChild() != null) copy.getLeftChild().setParent(copy);
+        if (copy.getRightChild() != null) copy.getRightChild().setParent(copy);
+        return copy;
+    }
+
+    /**
+     * Takes a node out of the SemiSplayTree, without splaying and without changing the size.
+     * @param node, the node to remove.
+     * @return the node where the splay path of the removal starts, null if the tree is empty now.
+     */
+    private Node<E> unlink(Node<E> node) {
+        node = writable(node);
+        // Case 1 and 2: no children or one child, the child takes the place of the node
+        if (node.getLeftChild() == null || node.getRightChild() == null) {
+            Node<E> child = node.getLeftChild() != null ? node.getLeftChild() : node.getRightChild();
+            replace(node, child);
+            return child != null ? child : node.getParent();
+        }
+        // Case 3: multiple children, the smallest node in its right subtree takes the place of the node
+        Node<E> smallestNode = node.getRightChild();
+        while (smallestNode.getLeftChild() != null) {
+            smallestNode = smallestNode.getLeftChild();
+        }
+        smallestNode = writable(smallestNode);
+        Node<E> startOfSplay = smallestNode.getParent() != node ? smallestNode.getParent() : smallestNode;
+        // the smallest node will not have a leftChild, its rightChild takes its place
+        replace(smallestNode, smallestNode.getRightChild());
+        smallestNode.setLeftChild(node.getLeftChild());
+        smallestNode.setRightChild(node.getRightChild());
+        if (smallestNode.getLeftChild() != null) smallestNode.getLeftChild().setParent(smallestNode);
+        if (smallestNode.getRightChild() != null) smallestNode.getRightChild().setParent(smallestNode);
+        replace(node, smallestNode);
+        return startOfSplay;
+    }
+
+    /**
+     * Puts replacement (which may be null) in the place of node in the tree, node itself keeps its own children.
+     */
+    private void replace(Node<E> node, Node<E> replacement) {
+        Node<E> parent = node.getParent();
+        int whichChild = node.getWhichChild();
+        switch (whichChild) {
+            case 0: this.root = replacement; // node is the root
+                break;
+            case 1: parent.setLeftChild(replacement); // node is the leftChild of its parent
+                break;
+            default: parent.setRightChild(replacement); // node is the rightChild of its parent
+        }
+        if (replacement != null) {
+            replacement.setParent(parent);
+            replacement.setWhichChild(whichChild);
+        }
+    }
+
+    /**
+     * Adds all keys of a batch. The batch is sorted once and added in ascending order,
+     * every search starts from where the previous one ended instead of from the root (finger search).
+     * Consecutive keys that end up in the same empty spot of the tree are added together as a balanced subtree.
+     * Instead of splaying for every key, only the last added subtree is splayed.
+     * @param keys, the keys to add, must be comparable with the ordering of the tree.
+     * @return a BitSet in which bit i is set if the i-th key of the collection was effectively added.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public BitSet addAll(Collection<? extends E> keys) {
+        Object[] batch = keys.toArray();
+        Object[] sortedKeys = Arrays.copyOf(batch, batch.length);
+        int uniqueKeys = sortUnique(sortedKeys);
+        BitSet added = new BitSet(uniqueKeys);
+        if (this.root == null) {
+            this.root = buildBalanced(sortedKeys, 0, uniqueKeys - 1);
+            this.size = uniqueKeys;
+            this.modCount++;
+            added.set(0, uniqueKeys);
+            return batchResult(batch, sortedKeys, uniqueKeys, added, true);
+        }
+        Node<E> finger = this.root;
+        Node<E> lastAdded = null;
+        for (int i = 0; i < uniqueKeys; i++) {
+            E key = (E) sortedKeys[i];
+            Node<E> currentNode = climbTowards(finger, key);
+            // the node in which we went left for the last time bounds the empty spot we end up in
+            Node<E> upperBound = currentNode.getWhichChild() == 1 ? currentNode.getParent() : null;
+            Node<E> parent = null;
+            int comparison = 0;
+            while (currentNode != null) {
+                comparison = compare(key, currentNode.getKey());
+                if (comparison == 0) break;
+                parent = currentNode;
+                if (comparison < 0) {
+                    upperBound = currentNode;
+                    currentNode = currentNode.getLeftChild();
+                } else {
+                    currentNode = currentNode.getRightChild();
                 }
+            }
+            // The key is already in the SemiSplayTree
+            if (currentNode != null) {
+                finger = currentNode;
+                continue;
+            }
+            // the next keys that are smaller than upperBound belong in the same empty spot
+            int last = i;
+            while (last + 1 < uniqueKeys && (upperBound == null || compare((E) sortedKeys[last + 1], upperBound.getKey()) < 0)) last++;
+            Node<E> subTree = buildBalanced(sortedKeys, i, last);
+            parent = writable(parent);
+            subTree.setParent(parent);
+            if (comparison < 0) {
+                parent.setLeftChild(subTree);
+                subTree.setWhichChild(1);
+            } else {
+                parent.setRightChild(subTree);
+                subTree.setWhichChild(2);
+            }
+            updateUpwards(parent);
+            added.set(i, last + 1);
+            this.size += last - i + 1;
+            this.modCount++;
+            lastAdded = subTree;
+            finger = parent;
+            i = last;
+        }
+        splay(lastAdded != null ? lastAdded : finger);
+        return batchResult(batch, sortedKeys, uniqueKeys, added, true);
+    }
 
-                // Case 2: one child
-                // leftChild not null or rightChild is not null
-                if ((currentNode.getLeftChild() != null && currentNode.getRightChild() == null) || (currentNode.getRightChild() != null && currentNode.getLeftChild() == null)) {
-                    Node<E> child;
-                    if (currentNode.getLeftChild() != null){
-                        child = currentNode.getLeftChild();
-                    } else {
-                        child = currentNode.getRightChild();
-                    }
-                    switch (currentNode.getWhichChild()) {
-                        case 0: this.root = child; // currentNode is the root
-                            child.setParent(null);
-                            this.root.setWhichChild(0);
-                            break;
-                        case 1: currentNode.getParent().setLeftChild(child); // currentNode is the leftChild of its parent
-                            child.setParent(currentNode.getParent());
-                            child.setWhichChild(1);
-                            break;
-                        case 2: currentNode.getParent().setRightChild(child); // currentNode is the rightChild of its parent
-                            child.setParent(currentNode.getParent());
-                            child.setWhichChild(2);
-                            break;
-                        default: return false;
-                    }
-                    decrementSize();
-                    splay(child);
-                    return true;
+    /**
+     * Looks up all keys of a batch. The batch is sorted once and searched in ascending order,
+     * every search starts from where the previous one ended instead of from the root (finger search).
+     * Instead of splaying for every key, only the last found node is splayed.
+     * @param keys, the keys to search, must be comparable with the ordering of the tree.
+     * @return a BitSet in which bit i is set if the i-th key of the collection was found.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public BitSet containsAll(Collection<? extends E> keys) {
+        Object[] batch = keys.toArray();
+        Object[] sortedKeys = Arrays.copyOf(batch, batch.length);
+        int uniqueKeys = sortUnique(sortedKeys);
+        BitSet found = new BitSet(uniqueKeys);
+        if (this.root == null) return found;
+        Node<E> finger = this.root;
+        Node<E> lastFound = null;
+        for (int i = 0; i < uniqueKeys; i++) {
+            E key = (E) sortedKeys[i];
+            Node<E> currentNode = climbTowards(finger, key);
+            while (currentNode != null) {
+                finger = currentNode;
+                int comparison = compare(key, currentNode.getKey());
+                if (comparison == 0) {
+                    found.set(i);
+                    lastFound = currentNode;
+                    break;
                 }
-                // Case 3: multiple children
-                if (currentNode.getLeftChild() != null && currentNode.getRightChild() != null) {
-                    // find the smallest node in its right subtree
-                    Node<E> smallestNode = currentNode.getRightChild();
-                    while(smallestNode.getLeftChild() != null) {
-                        smallestNode = smallestNode.getLeftChild();
-                    }
-                    Node<E> startOfSplay;
-                    if (smallestNode.getParent() != currentNode) startOfSplay = smallestNode.getParent();
-                    else startOfSplay = smallestNode;
-                    // the smallest node will not have a leftChild
-                    // but it should be checked if it has a right child, if so, make sure it gets connected
-                    Node<E> rightChildOfSmallestNode = smallestNode.getRightChild();
-                    switch (smallestNode.getWhichChild()) {
-                        case 1: smallestNode.getParent().setLeftChild(rightChildOfSmallestNode);
-                                if (rightChildOfSmallestNode != null) rightChildOfSmallestNode.setWhichChild(1);
-                            break;
-                        case 2: smallestNode.getParent().setRightChild(rightChildOfSmallestNode);
-                                if (rightChildOfSmallestNode != null) rightChildOfSmallestNode.setWhichChild(2);
-                            break;
-                        default: return false;
-                    }
-                    if (rightChildOfSmallestNode != null) rightChildOfSmallestNode.setParent(smallestNode.getParent());
-                    // our currentNode can be the root, which is a special case
-                    if (this.root == currentNode) {
-                        smallestNode.setParent(null); // our root doesn't have a parent.
-                        smallestNode.setWhichChild(0);
-                        smallestNode.setLeftChild(this.root.getLeftChild());
-                        smallestNode.setRightChild(this.root.getRightChild());
-                        this.root = smallestNode;
-
-                        if (smallestNode.getLeftChild() != null) smallestNode.getLeftChild().setParent(smallestNode);
-                        if (smallestNode.getRightChild() != null) smallestNode.getRightChild().setParent(smallestNode);
-
-                        // it is possible that our new root was the only rightChild of the original root
-                        // in this case: set rightChild equal to null
-                        if (currentNode.getRightChild() == smallestNode) {
-                            this.root.setRightChild(null);
-                            decrementSize();
-                            splay(startOfSplay);
-                            return true;
-                        }
-                        // else the rightChild of the original root will become the rightChild of the new root.
-                        this.root.setRightChild(currentNode.getRightChild());
-                        decrementSize();
-                        splay(startOfSplay);
-                        return true;
-                    }
-                    smallestNode.setParent(currentNode.getParent());
-                    smallestNode.setWhichChild(currentNode.getWhichChild());
-                    // now link the smallestNode with its new parent
-                    switch (currentNode.getWhichChild()) {
-                        case 1: currentNode.getParent().setLeftChild(smallestNode);
-                            smallestNode.setLeftChild(currentNode.getLeftChild());
-                            smallestNode.setRightChild(currentNode.getRightChild());
-                            break;
-                        case 2: currentNode.getParent().setRightChild(smallestNode);
-                            smallestNode.setLeftChild(currentNode.getLeftChild());
-                            smallestNode.setRightChild(currentNode.getRightChild());
-                            break;
-                        default: return false;
-                    }
-                    if (smallestNode.getLeftChild() != null) smallestNode.getLeftChild().setParent(smallestNode);
-                    if (smallestNode.getRightChild() != null) smallestNode.getRightChild().setParent(smallestNode);
+                currentNode = comparison < 0 ? currentNode.getLeftChild() : currentNode.getRightChild();
+            }
+        }
+        if (lastFound != null) splay(lastFound);
+        return batchResult(batch, sortedKeys, uniqueKeys, found, false);
+    }
+
+    /**
+     * Removes all keys of a batch. The batch is sorted once and removed in ascending order,
+     * every search starts from where the previous one ended instead of from the root (finger search).
+     * Instead of splaying for every key, the tree is only splayed once, where the last search ended.
+     * @param keys, the keys to remove, must be comparable with the ordering of the tree.
+     * @return a BitSet in which bit i is set if the i-th key of the collection was found and removed.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public BitSet removeAll(Collection<? extends E> keys) {
+        Object[] batch = keys.toArray();
+        Object[] sortedKeys = Arrays.copyOf(batch, batch.length);
+        int uniqueKeys = sortUnique(sortedKeys);
+        BitSet removed = new BitSet(uniqueKeys);
+        Node<E> finger = null;
+        for (int i = 0; i < uniqueKeys && this.root != null; i++) {
+            E key = (E) sortedKeys[i];
+            Node<E> currentNode = finger == null ? this.root : climbTowards(finger, key);
+            while (currentNode != null) {
+                finger = currentNode;
+                int comparison = compare(key, currentNode.getKey());
+                if (comparison == 0) {
+                    currentNode = writable(currentNode);
+                    // the parent stays in the tree, and its subtree still covers the removed key
+                    finger = currentNode.getParent();
+                    Node<E> changedNode = unlink(currentNode);
+                    updateUpwards(changedNode);
                     decrementSize();
-                    splay(startOfSplay);
-                    return true;
+                    removed.set(i);
+                    break;
                 }
+                currentNode = comparison < 0 ? currentNode.getLeftChild() : currentNode.getRightChild();
             }
         }
-        return false;
+        if (finger != null) splay(finger);
+        return batchResult(batch, sortedKeys, uniqueKeys, removed, true);
+    }
+
+    /**
+     * Finger search: climbs from finger to the lowest ancestor whose subtree covers key.
+     * The subtree of finger must cover a key that is smaller than key, e.g. because finger was on the search path of that key.
+     * Then only the upper bound of the subtrees matters: it is the parent of the first ancestor that is a leftChild.
+     * @param finger, the node where the previous search ended.
+     * @param key, the key to search next.
+     * @return the node from where the search for key can continue.
+     */
+    private Node<E> climbTowards(Node<E> finger, E key) {
+        Node<E> currentNode = finger;
+        while (currentNode.getParent() != null) {
+            if (currentNode.getWhichChild() == 1 && compare(key, currentNode.getParent().getKey()) < 0) break;
+            currentNode = currentNode.getParent();
+        }
+        return currentNode;
+    }
+
+    /**
+     * Translates the results of a sorted batch back to the order of the original batch.
+     * @param batch, the keys in their original order.
+     * @param sortedKeys, the unique keys in ascending order.
+     * @param uniqueKeys, the amount of unique keys.
+     * @param sortedResult, bit i is the result for sortedKeys[i].
+     * @param firstOccurrenceOnly, if true only the first occurrence of a duplicate key gets the result, the others get false.
+     * @return bit i is the result for batch[i].
+     */
+    @SuppressWarnings("unchecked")
+    private BitSet batchResult(Object[] batch, Object[] sortedKeys, int uniqueKeys, BitSet sortedResult, boolean firstOccurrenceOnly) {
+        BitSet result = new BitSet(batch.length);
+        BitSet seen = new BitSet(uniqueKeys);
+        for (int i = 0; i < batch.length; i++) {
+            int index = Arrays.binarySearch(sortedKeys, 0, uniqueKeys, batch[i], (Comparator<Object>) this.comparator);
+            if (!sortedResult.get(index)) continue;
+            if (firstOccurrenceOnly && seen.get(index)) continue;
+            seen.set(index);
+            result.set(i);
+        }
+        return result;
     }
 
     /**
@@ -249,48 +691,420 @@ public class SemiSplayTree<E extends Comparable<E>> implements SearchTree<E> {
 
     /**
      * Returns the depth of the SemiSplay, meaning the longest path down.
+     * With depth tracking this is the height kept in the root, otherwise the tree is walked through its parent pointers,
+     * so no queue or stack is needed.
      * @return the depth of the SemiSplay, int. Will return -1 if the tree is empty, and 0 if there is only root.
      */
     @Override
     public int depth() {
-        if (this.root == null) return -1;
-        Queue<Node<E>> nodes = new LinkedList<>();
-        nodes.add(this.root);
+        if (this.depthTracking) return height(this.root);
+        return walkDepth();
+    }
+
+    /**
+     * Turns depth tracking on or off. With depth tracking every node keeps the height of its subtree,
+     * those heights are updated along the paths changed by add, remove and splay, so depth() takes constant time.
+     * Turning it on replaces all nodes once by nodes with room for the height (HeightNode) and computes their heights,
+     * without it the nodes don't carry a height at all.
+     * @param depthTracking, true to keep track of the depth.
+     */
+    public void setDepthTracking(boolean depthTracking) {
+        if (depthTracking == this.depthTracking) return;
+        this.depthTracking = depthTracking;
+        if (depthTracking) replaceByHeightNodes();
+    }
+
+    /**
+     * @return true if the tree keeps track of its depth.
+     */
+    public boolean isDepthTracking() {
+        return this.depthTracking;
+    }
+
+    /**
+     * Walks through the whole tree using the parent pointers, every node is visited on the way down and on the way back up.
+     * @return the depth of the tree.
+     */
+    private int walkDepth() {
         int depth = -1;
-        int nodeCount = nodes.size();
-        while (nodeCount != 0) {
-            depth++;
-            while(nodeCount > 0) {
-                Node<E> newNode = nodes.peek();
-                nodes.remove();
-                if (newNode != null && newNode.getLeftChild() != null) {
-                    nodes.add(newNode.getLeftChild());
+        int currentDepth = 0;
+        Node<E> previousNode = null;
+        Node<E> currentNode = this.root;
+        while (currentNode != null) {
+            Node<E> nextNode;
+            if (previousNode == currentNode.getParent()) {
+                // first visit, go down as far left as possible
+                if (currentDepth > depth) depth = currentDepth;
+                if (currentNode.getLeftChild() != null) nextNode = currentNode.getLeftChild();
+                else if (currentNode.getRightChild() != null) nextNode = currentNode.getRightChild();
+                else nextNode = currentNode.getParent();
+            } else if (previousNode == currentNode.getLeftChild() && currentNode.getRightChild() != null) {
+                // back from the left subtree, continue in the right subtree
+                nextNode = currentNode.getRightChild();
+            } else {
+                // both subtrees are done
+                nextNode = currentNode.getParent();
+            }
+            if (nextNode == currentNode.getParent()) {
+                currentDepth--;
+            } else {
+                currentDepth++;
+            }
+            previousNode = currentNode;
+            currentNode = nextNode;
+        }
+        return depth;
+    }
+
+    /**
+     * Replaces every node by a HeightNode of the current generation with the same key and place, and computes the heights.
+     * Walks through the tree like walkDepth, the copy of the current node moves along in the new tree.
+     * The old nodes are not changed, so a snapshot that shares them stays the same.
+     */
+    private void replaceByHeightNodes() {
+        Node<E> previousNode = null;
+        Node<E> currentNode = this.root;
+        Node<E> currentCopy = null;
+        while (currentNode != null) {
+            Node<E> nextNode;
+            if (previousNode == currentNode.getParent()) {
+                // first visit, the copy takes the place of currentNode under the copy of its parent
+                Node<E> copy = createNode(currentNode.getKey());
+                copy.setSubTreeSize(currentNode.getSubTreeSize());
+                copy.setWhichChild(currentNode.getWhichChild());
+                copy.setParent(currentCopy);
+                if (currentCopy == null) this.root = copy;
+                else if (copy.getWhichChild() == 1) currentCopy.setLeftChild(copy);
+                else currentCopy.setRightChild(copy);
+                currentCopy = copy;
+                if (currentNode.getLeftChild() != null) nextNode = currentNode.getLeftChild();
+                else if (currentNode.getRightChild() != null) nextNode = currentNode.getRightChild();
+                else nextNode = currentNode.getParent();
+            } else if (previousNode == currentNode.getLeftChild() && currentNode.getRightChild() != null) {
+                nextNode = currentNode.getRightChild();
+            } else {
+                nextNode = currentNode.getParent();
+            }
+            if (nextNode == currentNode.getParent()) {
+                // the children of the copy are done
+                updateHeight(currentCopy);
+                currentCopy = currentCopy.getParent();
+            }
+            previousNode = currentNode;
+            currentNode = nextNode;
+        }
+        // iterators and cursors that hold the old nodes must notice
+        this.modCount++;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? -1 : ((HeightNode<?>) node).getHeight();
+    }
+
+    private static void updateHeight(Node<?> node) {
+        ((HeightNode<?>) node).setHeight(1 + Math.max(height(node.getLeftChild()), height(node.getRightChild())));
+    }
+
+    static int subTreeSize(Node<?> node) {
+        return node == null ? 0 : node.getSubTreeSize();
+    }
+
+    /**
+     * Recomputes the subtree size of node, and its height if the tree tracks its depth, out of those of its children.
+     */
+    private void update(Node<?> node) {
+        node.setSubTreeSize(1 + subTreeSize(node.getLeftChild()) + subTreeSize(node.getRightChild()));
+        if (this.depthTracking) updateHeight(node);
+    }
+
+    /**
+     * Recomputes node and all its ancestors, after the subtree of node has changed.
+     */
+    private void updateUpwards(Node<?> node) {
+        while (node != null) {
+            update(node);
+            node = node.getParent();
+        }
+    }
+
+    /**
+     * Finds the largest key that is smaller than (or equal to, if inclusive) key, and splays it.
+     * If there is no such key, the last node of the search is splayed.
+     */
+    @Override
+    public E floor(E key) {
+        return keyOf(nearest(key, true, true));
+    }
+
+    @Override
+    public E ceiling(E key) {
+        return keyOf(nearest(key, false, true));
+    }
+
+    @Override
+    public E lower(E key) {
+        return keyOf(nearest(key, true, false));
+    }
+
+    @Override
+    public E higher(E key) {
+        return keyOf(nearest(key, false, false));
+    }
+
+    private static <E> E keyOf(Node<E> node) {
+        return node != null ? node.getKey() : null;
+    }
+
+    /**
+     * Searches the closest key below or above key and splays its node.
+     * If there is no such key, the last node on the search path is splayed, so the search is paid for either way.
+     * @param below, true to search the largest key below key, false to search the smallest key above key.
+     * @param inclusive, true if key itself counts.
+     * @return the node of the closest key, null if there is none.
+     */
+    Node<E> nearest(E key, boolean below, boolean inclusive) {
+        Node<E> candidate = null;
+        Node<E> lastNode = null;
+        Node<E> currentNode = this.root;
+        while (currentNode != null) {
+            lastNode = currentNode;
+            int comparison = compare(key, currentNode.getKey());
+            if (comparison == 0 && inclusive) {
+                candidate = currentNode;
+                break;
+            }
+            if (below) {
+                if (comparison > 0) {
+                    candidate = currentNode;
+                    currentNode = currentNode.getRightChild();
+                } else {
+                    currentNode = currentNode.getLeftChild();
                 }
-                if (newNode != null && newNode.getRightChild() != null) {
-                    nodes.add(newNode.getRightChild());
+            } else {
+                if (comparison < 0) {
+                    candidate = currentNode;
+                    currentNode = currentNode.getLeftChild();
+                } else {
+                    currentNode = currentNode.getRightChild();
                 }
-                nodeCount--;
             }
-            nodeCount = nodes.size();
         }
-        return depth;
+        if (lastNode == null) return null;
+        splay(candidate != null ? candidate : lastNode);
+        return candidate;
     }
 
+    /**
+     * Returns the smallest key, its node is splayed.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    @Override
+    public E first() {
+        if (this.root == null) throw new NoSuchElementException();
+        return firstNode().getKey();
+    }
+
+    /**
+     * Returns the largest key, its node is splayed.
+     * @throws NoSuchElementException if the tree is empty.
+     */
+    @Override
+    public E last() {
+        if (this.root == null) throw new NoSuchElementException();
+        return lastNode().getKey();
+    }
+
+    /**
+     * @return the node of the smallest key after splaying it, null if the tree is empty.
+     */
+    Node<E> firstNode() {
+        if (this.root == null) return null;
+        Node<E> node = leftMost(this.root);
+        splay(node);
+        return node;
+    }
+
+    /**
+     * @return the node of the largest key after splaying it, null if the tree is empty.
+     */
+    Node<E> lastNode() {
+        if (this.root == null) return null;
+        Node<E> node = rightMost(this.root);
+        splay(node);
+        return node;
+    }
+
+    @Override
+    public E pollFirst() {
+        if (this.root == null) return null;
+        return removeNode(leftMost(this.root).getKey()).getKey();
+    }
+
+    @Override
+    public E pollLast() {
+        if (this.root == null) return null;
+        return removeNode(rightMost(this.root).getKey()).getKey();
+    }
+
+    /**
+     * Iterates over the keys from (inclusive) up to to (exclusive).
+     * The node of the first key is searched and splayed, the iteration continues from there through the parent pointers.
+     * @param from, the smallest key of the range.
+     * @param to, the key right after the range.
+     */
+    @Override
+    public Iterator<E> subRange(E from, E to) {
+        Node<E> candidate = null;
+        Node<E> lastNode = null;
+        Node<E> currentNode = this.root;
+        while (currentNode != null) {
+            lastNode = currentNode;
+            int comparison = compare(from, currentNode.getKey());
+            if (comparison == 0) {
+                candidate = currentNode;
+                break;
+            }
+            if (comparison < 0) {
+                candidate = currentNode;
+                currentNode = currentNode.getLeftChild();
+            } else {
+                currentNode = currentNode.getRightChild();
+            }
+        }
+        // the iteration starts from the node that stays in the tree, not from a copy that is only left in a snapshot
+        if (candidate != null) candidate = writable(candidate);
+        if (lastNode != null) splay(candidate != null ? candidate : lastNode);
+        return new SemiSplayTreeIterator(candidate, to, false);
+    }
+
+    /**
+     * Counts the keys smaller than key with the subtree sizes on the search path, the last node of the search is splayed.
+     */
+    @Override
+    public int rank(E key) {
+        int rank = 0;
+        Node<E> lastNode = null;
+        Node<E> currentNode = this.root;
+        while (currentNode != null) {
+            lastNode = currentNode;
+            int comparison = compare(key, currentNode.getKey());
+            if (comparison == 0) {
+                rank += subTreeSize(currentNode.getLeftChild());
+                break;
+            }
+            if (comparison < 0) {
+                currentNode = currentNode.getLeftChild();
+            } else {
+                rank += subTreeSize(currentNode.getLeftChild()) + 1;
+                currentNode = currentNode.getRightChild();
+            }
+        }
+        if (lastNode != null) splay(lastNode);
+        return rank;
+    }
+
+    /**
+     * Finds the k-th smallest key with the subtree sizes on the path, its node is splayed.
+     */
+    @Override
+    public E select(int k) {
+        if (k < 0 || k >= this.size) throw new IndexOutOfBoundsException("k: " + k + ", size: " + this.size);
+        Node<E> node = nodeAt(k);
+        splay(node);
+        return node.getKey();
+    }
+
+    /**
+     * Finds the node of the k-th smallest key with the subtree sizes, without splaying.
+     * @param k, the rank of the key, must be between 0 (inclusive) and size (exclusive).
+     */
+    private Node<E> nodeAt(int k) {
+        Node<E> currentNode = this.root;
+        while (true) {
+            int leftSize = subTreeSize(currentNode.getLeftChild());
+            if (k < leftSize) {
+                currentNode = currentNode.getLeftChild();
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                currentNode = currentNode.getRightChild();
+            } else {
+                return currentNode;
+            }
+        }
+    }
+
+    static <E> Node<E> leftMost(Node<E> node) {
+        while (node.getLeftChild() != null) node = node.getLeftChild();
+        return node;
+    }
+
+    private static <E> Node<E> rightMost(Node<E> node) {
+        while (node.getRightChild() != null) node = node.getRightChild();
+        return node;
+    }
+
+    /**
+     * @return the node with the next larger key, null if node has the largest key.
+     */
+    static <E> Node<E> successor(Node<E> node) {
+        if (node.getRightChild() != null) return leftMost(node.getRightChild());
+        // go up until we come from a leftChild
+        while (node.getParent() != null && node.getWhichChild() == 2) node = node.getParent();
+        return node.getParent();
+    }
+
+    /**
+     * @return the node with the next smaller key, null if node has the smallest key.
+     */
+    static <E> Node<E> predecessor(Node<E> node) {
+        if (node.getLeftChild() != null) return rightMost(node.getLeftChild());
+        // go up until we come from a rightChild
+        while (node.getParent() != null && node.getWhichChild() == 1) node = node.getParent();
+        return node.getParent();
+    }
+
+    /**
+     * Iterates over the keys in ascending order without splaying.
+     * The iterator is fail-fast: if the tree changes during the iteration, splays by contains included,
+     * the next call to next throws a ConcurrentModificationException.
+     */
     @Override
     public Iterator<E> iterator() {
-        return new SemiSplayTreeIterator(this.root);
+        return new SemiSplayTreeIterator(this.root != null ? leftMost(this.root) : null, null, false);
+    }
+
+    /**
+     * Iterates over the keys in descending order, fail-fast like iterator.
+     */
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new SemiSplayTreeIterator(this.root != null ? rightMost(this.root) : null, null, true);
+    }
+
+    /**
+     * A Spliterator over the keys in ascending order that splits in halves by rank.
+     * The subtree sizes locate the first node of a half in one descent from the root, so the tree isn't walked to split it.
+     * The tree can be traversed by multiple threads at the same time, as long as none of them changes it.
+     * Like the iterator it is fail-fast, a change to the tree during the traversal throws a ConcurrentModificationException.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new SemiSplayTreeSpliterator(0, this.size, this.modCount);
     }
 
     private class SemiSplayTreeIterator implements Iterator<E> {
         private Node<E> nextNode;
+        // the iteration stops at the first key that is not smaller than end, null to go on until the largest key
+        private final E end;
+        private final boolean descending;
+        private final int expectedModCount;
 
-        private SemiSplayTreeIterator(Node<E> root) {
-            nextNode = root;
-            if (nextNode == null) return;
-
-            while (nextNode.getLeftChild() != null) {
-                nextNode = nextNode.getLeftChild();
-            }
+        private SemiSplayTreeIterator(Node<E> first, E end, boolean descending) {
+            this.end = end;
+            this.descending = descending;
+            this.expectedModCount = modCount;
+            nextNode = first;
+            if (nextNode != null && end != null && compare(nextNode.getKey(), end) >= 0) nextNode = null;
         }
 
         @Override
@@ -301,35 +1115,176 @@ public class SemiSplayTree<E extends Comparable<E>> implements SearchTree<E> {
         @Override
         public E next() {
             if (!hasNext()) throw new NoSuchElementException();
+            if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
             Node<E> currentNode = nextNode;
+            nextNode = this.descending ? predecessor(nextNode) : successor(nextNode);
+            if (nextNode != null && this.end != null && compare(nextNode.getKey(), this.end) >= 0) nextNode = null;
+            return currentNode.getKey();
+        }
+    }
 
-            if (nextNode.getRightChild() != null) {
-                nextNode = nextNode.getRightChild();
-                while (nextNode.getLeftChild() != null) {
-                    nextNode = nextNode.getLeftChild();
-                }
-                return currentNode.getKey();
-            }
-            while (true) {
-                if (nextNode.getParent() == null) {
-                    nextNode = null;
-                    return currentNode.getKey();
-                }
-                if (nextNode.getParent().getLeftChild() == nextNode) {
-                    nextNode = nextNode.getParent();
-                    return currentNode.getKey();
-                }
-                nextNode = nextNode.getParent();
+    private class SemiSplayTreeSpliterator implements Spliterator<E> {
+        // the keys with rank from (inclusive) up to to (exclusive)
+        private int from;
+        private final int to;
+        private final int expectedModCount;
+        // the node of rank from, only searched once the traversal starts
+        private Node<E> nextNode;
+
+        private SemiSplayTreeSpliterator(int from, int to, int expectedModCount) {
+            this.from = from;
+            this.to = to;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            if (this.nextNode != null || this.to - this.from < 2) return null;
+            int middle = (this.from + this.to) >>> 1;
+            Spliterator<E> prefix = new SemiSplayTreeSpliterator(this.from, middle, this.expectedModCount);
+            this.from = middle;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) throw new NullPointerException();
+            if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+            if (this.from >= this.to) return false;
+            this.nextNode = this.nextNode == null ? nodeAt(this.from) : successor(this.nextNode);
+            this.from++;
+            action.accept(this.nextNode.getKey());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null) throw new NullPointerException();
+            if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+            if (this.from >= this.to) return;
+            Node<E> node = this.nextNode == null ? nodeAt(this.from) : successor(this.nextNode);
+            for (int remaining = this.to - this.from; remaining > 1; remaining--) {
+                action.accept(node.getKey());
+                node = successor(node);
             }
+            action.accept(node.getKey());
+            this.nextNode = node;
+            this.from = this.to;
+            if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.to - this.from;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.NONNULL
+                    | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        /**
+         * @return the comparator of the tree, null if the keys are sorted by their natural ordering.
+         */
+        @Override
+        public Comparator<? super E> getComparator() {
+            return comparator;
         }
     }
 
     private void incrementSize() {
         size++;
+        modCount++;
     }
 
     private void decrementSize() {
         size--;
+        modCount++;
+    }
+
+    /**
+     * @return the amount of changes to the shape of the tree so far, used by iterators to detect concurrent modification.
+     */
+    int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * @return the Comparator that orders the keys, null if they are ordered by their natural ordering.
+     */
+    public Comparator<? super E> comparator() {
+        return this.comparator;
+    }
+
+    /**
+     * Compares two keys with the comparator of the tree, or with their natural ordering if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    final int compare(E key1, E key2) {
+        return this.comparator != null ? this.comparator.compare(key1, key2) : ((Comparable<? super E>) key1).compareTo(key2);
+    }
+
+    /**
+     * @return the amount of nodes used in one splay step.
+     */
+    public int getSplaySize() {
+        return this.splaySize;
+    }
+
+    /**
+     * Changes the amount of nodes used in one splay step, from the next splay on. The shape of the tree doesn't change.
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     */
+    public void setSplaySize(int splaySize) {
+        assert(splaySize >= 3);
+        if (splaySize == this.splaySize) return;
+        this.splaySize = splaySize;
+        allocateSplayBuffers();
+    }
+
+    /**
+     * Sets the policy that decides whether contains splays the node it found. add and remove always splay.
+     * @param splayPolicy, the policy, SplayPolicy.always() by default.
+     */
+    public void setSplayPolicy(SplayPolicy splayPolicy) {
+        this.splayPolicy = Objects.requireNonNull(splayPolicy);
+    }
+
+    /**
+     * Asks the SplayPolicy whether a node found by contains should be splayed, without changing the tree.
+     * @param pathLength, the amount of nodes on the path from the root down to the node, both included.
+     */
+    boolean shouldSplay(int pathLength) {
+        return this.splayPolicy.shouldSplay(this.splayPolicy.needsDepth() ? pathLength - 1 : -1, this.size);
+    }
+
+    /**
+     * Sets the listener that is told about every add, contains and remove, e.g. a SemiSplayMetrics.
+     * Without a listener the operations don't do any extra work. Batch operations are not reported.
+     * @param listener, the listener, or null to stop reporting.
+     */
+    public void setListener(SemiSplayListener listener) {
+        this.listener = listener;
+        this.reportedRootKey = this.root != null ? this.root.getKey() : null;
+        this.operationsSinceRootChange = 0;
+    }
+
+    /**
+     * Splays from startOfSplay (if not null) and reports the operation to the listener.
+     * @param pathLength, the amount of nodes visited by the search of the operation.
+     */
+    private void report(SemiSplayListener.Operation operation, int pathLength, Node<E> startOfSplay) {
+        int splaySteps = startOfSplay != null ? splay(startOfSplay) : 0;
+        this.listener.onOperation(operation, pathLength, splaySteps, pathLength + splaySteps * this.splaySize);
+        this.operationsSinceRootChange++;
+        // the root can be replaced by a copy of itself after a snapshot, so the keys are compared
+        E rootKey = this.root != null ? this.root.getKey() : null;
+        if (rootKey != this.reportedRootKey) {
+            this.reportedRootKey = rootKey;
+            this.listener.onRootChange(this.operationsSinceRootChange);
+            this.operationsSinceRootChange = 0;
+        }
     }
 
     /**
@@ -340,121 +1295,143 @@ public class SemiSplayTree<E extends Comparable<E>> implements SearchTree<E> {
         return this.root;
     }
 
+    /**
+     * Creates a cursor that isn't on any key yet, see SemiSplayTreeCursor.
+     */
+    public SemiSplayTreeCursor<E> cursor() {
+        return new SemiSplayTreeCursor<>(this);
+    }
+
+    /**
+     * Splays node for a cursor, which has to keep holding it.
+     * @return node itself, or the copy that took its place if it was shared with a snapshot.
+     */
+    Node<E> splayFinger(Node<E> node) {
+        Node<E> writableNode = writable(node);
+        splay(writableNode);
+        return writableNode;
+    }
+
+    /**
+     * Allocates the scratch arrays used by splay, they are reused for every splay operation.
+     */
+    @SuppressWarnings("unchecked")
+    private void allocateSplayBuffers() {
+        this.splayPath = (Node<E>[]) new Node<?>[this.splaySize];
+        this.splayOrder = (Node<E>[]) new Node<?>[this.splaySize];
+        this.splaySubTrees = (Node<E>[]) new Node<?>[this.splaySize + 1];
+    }
+
     /**
      * This functions implements the splay operations.
-     * First it calculates the splay path, after which it will perform the splay operation on every n consecutive nodes.
-     * Where n equals the "splaygrootte"
+     * It walks up the splay path and performs the splay operation on every n consecutive nodes.
+     * Where n equals the "splaygrootte". The root of every rebuilt subtree is the first node of the next splay step.
+     * No objects are allocated, the nodes of a splay step are kept in the preallocated scratch arrays.
+     * The subtree sizes of the rebuilt nodes are recomputed, with depth tracking the heights of all nodes on the path as well.
      * @param node, the node from where the splay path begins
+     * @return the amount of splay steps, i.e. the amount of restructured windows of n nodes.
      */
-    private void splay(Node<E> node) {
-        // Load the splaypath into a queue, so we can easily go over the nodes in the right order later
-        Queue<Node<E>> path = new LinkedList<>();
-        Node<E> currNode = node;
-        path.add(currNode);
-        while(currNode.getParent() != null) {
-            path.add(currNode.getParent());
-            currNode = currNode.getParent();
-        }
-
-        // Now we go over the path and splay every n consecutive nodes
-        // The function will keep looping until there are less than n nodes left in the path
-        List<Node<E>> listOfNodesOnPath = new ArrayList<>();
-        List<Node<E>> listOfSubTreesOfPath = new ArrayList<>(); // will be double as long as listOfNodesOnPath
-        while (path.size() + listOfNodesOnPath.size() >= this.splaySize ) {
-
-            // Get n nodes, for the current splay operation
-            int listOfNodesOnPathSize = listOfNodesOnPath.size();
-            for (int i = 0; i < this.splaySize - listOfNodesOnPathSize; i++) {
-                listOfNodesOnPath.add(path.peek());
-                path.remove();
-            }
-            // Get the last node of the path, its parent will become the parent of the new root of the subtree
-            // if its parent is null, the new root of the subtree will become the root of the SemiSplaytree
-            Node<E> parent = listOfNodesOnPath.get(this.splaySize-1).getParent();
-            // sort the nodes in the right order, from smallest to largest
-            Collections.sort(listOfNodesOnPath);
-            // Get the subtrees in the right order
-            for (Node<E> nodeOnPath : listOfNodesOnPath) {
-                if (!listOfNodesOnPath.contains(nodeOnPath.getLeftChild())) listOfSubTreesOfPath.add(nodeOnPath.getLeftChild());
-                if (!listOfNodesOnPath.contains(nodeOnPath.getRightChild())) listOfSubTreesOfPath.add(nodeOnPath.getRightChild());
+    int splay(Node<E> node) {
+        Node<E> bottom = writable(node);
+        int splaySteps = 0;
+        while (true) {
+            // Load the next n nodes of the path, from the bottom up
+            // if there are less than n nodes left, the splay operation is done
+            Node<E> currNode = bottom;
+            int pathLength = 0;
+            while (currNode != null && pathLength < this.splaySize) {
+                this.splayPath[pathLength++] = currNode;
+                currNode = currNode.getParent();
             }
-            // This node will be the root of our subtree
-            int middleNodeIndex = listOfNodesOnPath.size() / 2;
-            Node<E> rootOfSubTree = listOfNodesOnPath.get(middleNodeIndex);
-            // change its parent to the parent of the old root of the path
-            // but if the parent is null, this means that rootOfSubtree will become the new root of the SemiSplay
-            if (parent == null) {
-                rootOfSubTree.setParent(null);
-                rootOfSubTree.setWhichChild(0);
-                this.root = rootOfSubTree;
-            }
-            if (parent != null) {
-                rootOfSubTree.setParent(parent);
-                if (rootOfSubTree.compareTo(parent) < 0) {
-                    parent.setLeftChild(rootOfSubTree);
-                    rootOfSubTree.setWhichChild(1);
-                }
-                if (rootOfSubTree.compareTo(parent) > 0) {
-                    parent.setRightChild(rootOfSubTree);
-                    rootOfSubTree.setWhichChild(2);
-                }
-            }
-            // now recursively fill the subtree, with rootOfSubTree as its root
-            List<Node<E>> leftPath = listOfNodesOnPath.subList(0, middleNodeIndex);
-            List<Node<E>> rightPath = listOfNodesOnPath.subList(middleNodeIndex+1, listOfNodesOnPath.size());
-            rootOfSubTree.setLeftChild(buildSubTreeRecursively(rootOfSubTree, leftPath));
-            rootOfSubTree.setRightChild(buildSubTreeRecursively(rootOfSubTree, rightPath));
-
-
-            // Now that the tree is build correctly we need to add the outer subtrees
-            // We loop over each node in the pad in ascending order
-            // if a node doesn't have a child that is in listOfNodesOnPath it will get an outer subtree as a child
-            int subTreeIndex = 0;
-            for (Node<E> pathNode : listOfNodesOnPath) {
-                if (!listOfNodesOnPath.contains(pathNode.getLeftChild())) {
-                    pathNode.setLeftChild(listOfSubTreesOfPath.get(subTreeIndex));
-                    if (listOfSubTreesOfPath.get(subTreeIndex) != null) {
-                        listOfSubTreesOfPath.get(subTreeIndex).setParent(pathNode);
-                        listOfSubTreesOfPath.get(subTreeIndex).setWhichChild(1);
-                    }
-                    subTreeIndex++;
-                }
-                if (!listOfNodesOnPath.contains(pathNode.getRightChild())) {
-                    pathNode.setRightChild(listOfSubTreesOfPath.get(subTreeIndex));
-                    if (listOfSubTreesOfPath.get(subTreeIndex) != null) {
-                        listOfSubTreesOfPath.get(subTreeIndex).setParent(pathNode);
-                        listOfSubTreesOfPath.get(subTreeIndex).setWhichChild(2);
-                    }
-                    subTreeIndex++;
-                }
+            if (pathLength < this.splaySize) break;
+            this.modCount++;
+            bottom = restructure();
+            splaySteps++;
+        }
+        // the nodes above the last splay step are not rebuilt, their sizes stay the same but their heights may have changed
+        if (this.depthTracking) updateUpwards(bottom);
+        // Don't keep references to nodes that might get removed later on
+        Arrays.fill(this.splayPath, null);
+        Arrays.fill(this.splayOrder, null);
+        Arrays.fill(this.splaySubTrees, null);
+        return splaySteps;
+    }
+
+    /**
+     * Replaces the n nodes in splayPath by a complete binary tree.
+     * The in-order position of every node is derived from the shape of the path:
+     * if the path continues to the left child of a node, that node is larger than every node below it on the path,
+     * otherwise it is smaller. So no sorting or comparing of keys is needed.
+     * @return the root of the new subtree
+     */
+    private Node<E> restructure() {
+        // Get the last node of the path, its parent will become the parent of the new root of the subtree
+        // if its parent is null, the new root of the subtree will become the root of the SemiSplaytree
+        Node<E> top = this.splayPath[this.splaySize - 1];
+        Node<E> parent = top.getParent();
+        int whichChild = top.getWhichChild();
+
+        // Put the nodes in the right order, from smallest to largest, and get the outer subtrees in between them
+        int low = 0;
+        int high = this.splaySize - 1;
+        for (int i = this.splaySize - 1; i > 0; i--) {
+            Node<E> pathNode = this.splayPath[i];
+            if (this.splayPath[i - 1].getWhichChild() == 1) {
+                // the path continues to the left, so pathNode is larger than the rest of the path
+                this.splayOrder[high] = pathNode;
+                this.splaySubTrees[high + 1] = pathNode.getRightChild();
+                high--;
+            } else {
+                // the path continues to the right, so pathNode is smaller than the rest of the path
+                this.splayOrder[low] = pathNode;
+                this.splaySubTrees[low] = pathNode.getLeftChild();
+                low++;
             }
-            // Now that the subtrees got added to our splay we are done with the splay operation.
-            listOfNodesOnPath.clear();
-            listOfSubTreesOfPath.clear();
-            listOfNodesOnPath.add(rootOfSubTree);
         }
+        Node<E> bottom = this.splayPath[0];
+        this.splayOrder[low] = bottom;
+        this.splaySubTrees[low] = bottom.getLeftChild();
+        this.splaySubTrees[low + 1] = bottom.getRightChild();
+
+        // now fill the subtree, the middle node will be its root
+        Node<E> rootOfSubTree = buildSubTree(0, this.splaySize - 1, parent, whichChild);
+        if (parent == null) {
+            rootOfSubTree.setWhichChild(0);
+            this.root = rootOfSubTree;
+        } else if (whichChild == 1) {
+            parent.setLeftChild(rootOfSubTree);
+        } else {
+            parent.setRightChild(rootOfSubTree);
+        }
+        return rootOfSubTree;
     }
 
     /**
-     * This function will attempt to recursively build a complete binary tree.
-     * @param subRoot, the root on which the binary (sub)tree will be attached
-     * @param path, the list containing all nodes which will become the binary tree
+     * This function will recursively build a complete binary tree out of splayOrder[from..to].
+     * An empty range is filled with the outer subtree that belongs between the nodes around it.
+     * @param from, index of the smallest node in splayOrder
+     * @param to, index of the largest node in splayOrder
+     * @param subRoot, the node on which the binary (sub)tree will be attached
+     * @param whichChild, 1 if the binary tree becomes the leftChild of subRoot, 2 if it becomes the rightChild
      * @return the root of the new binary tree
      */
-    private Node<E> buildSubTreeRecursively(Node<E> subRoot, List<Node<E>> path) {
-        if (path.size() == 0) return null;
-        int middleNodeIndex = path.size() / 2;
-        Node<E> middleNode = path.get(middleNodeIndex);
+    private Node<E> buildSubTree(int from, int to, Node<E> subRoot, int whichChild) {
+        if (from > to) {
+            Node<E> subTree = this.splaySubTrees[from];
+            if (subTree != null) {
+                subTree.setParent(subRoot);
+                subTree.setWhichChild(whichChild);
+            }
+            return subTree;
+        }
+        int middleNodeIndex = from + (to - from + 1) / 2;
+        Node<E> middleNode = this.splayOrder[middleNodeIndex];
         middleNode.setParent(subRoot);
-        // Depending on if the middleNode is the right or left child of its parent, set the right parameter
-        if (middleNode.compareTo(subRoot) < 0) middleNode.setWhichChild(1);
-        if (middleNode.compareTo(subRoot) > 0) middleNode.setWhichChild(2);
-
+        middleNode.setWhichChild(whichChild);
         // Now we recursively add the correct right and left child to the middleNode
-        List<Node<E>> leftPath = path.subList(0, middleNodeIndex);
-        List<Node<E>> rightPath = path.subList(middleNodeIndex+1, path.size());
-        middleNode.setLeftChild(buildSubTreeRecursively(middleNode, leftPath));
-        middleNode.setRightChild(buildSubTreeRecursively(middleNode, rightPath));
+        middleNode.setLeftChild(buildSubTree(from, middleNodeIndex - 1, middleNode, 1));
+        middleNode.setRightChild(buildSubTree(middleNodeIndex + 1, to, middleNode, 2));
+        update(middleNode);
         return middleNode;
     }
 }
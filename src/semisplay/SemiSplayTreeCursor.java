@@ -0,0 +1,194 @@
+package semisplay;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A finger into a SemiSplayTree: it remembers the node of the last key it visited,
+ * and a seek starts from that node instead of from the root (finger search).
+ * It climbs with the parent pointers to the lowest ancestor whose subtree can contain the key and descends from there,
+ * so when consecutive keys are close to each other the cost depends on their distance rather than on the depth of the tree.
+ * Seeking and stepping with next and prev don't splay, splay does so on demand.
+ *
+ * A cursor is only fast as long as the tree doesn't change: after any change, a splay by contains included,
+ * the remembered node may no longer be in the tree, so the cursor then starts from the root again, once.
+ * The operations of a cursor are not reported to the listener of the tree.
+ */
+public class SemiSplayTreeCursor<E> {
+
+    private final SemiSplayTree<E> tree;
+    // the node the cursor is on, null if it is not on a key
+    private Node<E> node;
+    // the key of node, kept when the tree changes so the cursor can find its place again
+    private E key;
+    private int expectedModCount;
+
+    SemiSplayTreeCursor(SemiSplayTree<E> tree) {
+        this.tree = tree;
+        this.expectedModCount = tree.getModCount();
+    }
+
+    /**
+     * Moves the cursor to key, or if key is not in the tree to the smallest key larger than key.
+     * @param key, the key to search, must be comparable with the ordering of the tree.
+     * @return true if key is in the tree, false otherwise, then the cursor is on the next larger key or on no key at all.
+     */
+    public boolean seek(E key) {
+        Node<E> currentNode;
+        int comparison;
+        if (this.node != null && this.expectedModCount == this.tree.getModCount()) {
+            comparison = this.tree.compare(key, this.node.getKey());
+            if (comparison == 0) return true;
+            currentNode = climb(this.node, key, comparison);
+            if (currentNode != this.node) comparison = this.tree.compare(key, currentNode.getKey());
+        } else {
+            currentNode = this.tree.getRoot();
+            if (currentNode == null) {
+                moveTo(null);
+                return false;
+            }
+            comparison = this.tree.compare(key, currentNode.getKey());
+        }
+        // descend, the comparison with currentNode is already known
+        while (comparison != 0) {
+            Node<E> child = comparison < 0 ? currentNode.getLeftChild() : currentNode.getRightChild();
+            if (child == null) {
+                // the search ends next to key, on either side
+                moveTo(comparison < 0 ? currentNode : SemiSplayTree.successor(currentNode));
+                return false;
+            }
+            currentNode = child;
+            comparison = this.tree.compare(key, currentNode.getKey());
+        }
+        moveTo(currentNode);
+        return true;
+    }
+
+    /**
+     * Moves the cursor to the smallest key of the tree.
+     * @return false if the tree is empty.
+     */
+    public boolean first() {
+        Node<E> root = this.tree.getRoot();
+        moveTo(root != null ? SemiSplayTree.leftMost(root) : null);
+        return this.node != null;
+    }
+
+    /**
+     * Moves the cursor to the largest key of the tree.
+     * @return false if the tree is empty.
+     */
+    public boolean last() {
+        Node<E> currentNode = this.tree.getRoot();
+        if (currentNode != null) {
+            while (currentNode.getRightChild() != null) currentNode = currentNode.getRightChild();
+        }
+        moveTo(currentNode);
+        return this.node != null;
+    }
+
+    /**
+     * Moves the cursor to the next larger key.
+     * @return false if there is no larger key, then the cursor is on no key at all.
+     * @throws NoSuchElementException if the cursor is not on a key.
+     */
+    public boolean next() {
+        if (this.node == null) throw new NoSuchElementException();
+        if (this.expectedModCount == this.tree.getModCount()) {
+            moveTo(SemiSplayTree.successor(this.node));
+        } else {
+            // the key of the cursor may have been removed, the next key is the first one after it either way
+            Node<E> currentNode = locate(this.key);
+            if (currentNode == null) moveTo(null);
+            else moveTo(this.tree.compare(currentNode.getKey(), this.key) > 0 ? currentNode : SemiSplayTree.successor(currentNode));
+        }
+        return this.node != null;
+    }
+
+    /**
+     * Moves the cursor to the next smaller key.
+     * @return false if there is no smaller key, then the cursor is on no key at all.
+     * @throws NoSuchElementException if the cursor is not on a key.
+     */
+    public boolean prev() {
+        if (this.node == null) throw new NoSuchElementException();
+        if (this.expectedModCount == this.tree.getModCount()) {
+            moveTo(SemiSplayTree.predecessor(this.node));
+        } else {
+            Node<E> currentNode = locate(this.key);
+            if (currentNode == null) moveTo(null);
+            else moveTo(this.tree.compare(currentNode.getKey(), this.key) < 0 ? currentNode : SemiSplayTree.predecessor(currentNode));
+        }
+        return this.node != null;
+    }
+
+    /**
+     * @return true if the cursor is on a key.
+     */
+    public boolean isValid() {
+        return this.node != null;
+    }
+
+    /**
+     * @return the key the cursor is on, it may have been removed from the tree since the cursor moved to it.
+     * @throws NoSuchElementException if the cursor is not on a key.
+     */
+    public E getKey() {
+        if (this.node == null) throw new NoSuchElementException();
+        return this.key;
+    }
+
+    /**
+     * Splays the node of the key the cursor is on, the cursor stays on it.
+     * @return false if the key was removed from the tree in the meantime, then nothing is splayed
+     *         and the cursor moves to the next larger key, like seek.
+     * @throws NoSuchElementException if the cursor is not on a key.
+     */
+    public boolean splay() {
+        if (this.node == null) throw new NoSuchElementException();
+        if (this.expectedModCount != this.tree.getModCount() && !seek(this.key)) return false;
+        moveTo(this.tree.splayFinger(this.node));
+        return true;
+    }
+
+    /**
+     * Two-sided climb: if key is larger than the key of finger, every subtree that contains finger has a key below key,
+     * so only the upper bound of a subtree matters, it is the parent of the first ancestor that is a leftChild.
+     * If key is smaller, only the lower bound matters.
+     * @param comparison, the comparison of key with the key of finger, not 0.
+     * @return the lowest ancestor of finger (finger included) whose subtree can contain key.
+     */
+    private Node<E> climb(Node<E> finger, E key, int comparison) {
+        int side = comparison > 0 ? 1 : 2;
+        Node<E> currentNode = finger;
+        while (currentNode.getParent() != null) {
+            if (currentNode.getWhichChild() == side) {
+                int parentComparison = this.tree.compare(key, currentNode.getParent().getKey());
+                if (parentComparison == 0) return currentNode.getParent();
+                if (side == 1 ? parentComparison < 0 : parentComparison > 0) break;
+            }
+            currentNode = currentNode.getParent();
+        }
+        return currentNode;
+    }
+
+    /**
+     * Searches key from the root, without moving the cursor.
+     * @return the node of key, or if it is not in the tree the last node on its search path, null if the tree is empty.
+     */
+    private Node<E> locate(E key) {
+        Node<E> currentNode = this.tree.getRoot();
+        while (currentNode != null) {
+            int comparison = this.tree.compare(key, currentNode.getKey());
+            Node<E> child = comparison < 0 ? currentNode.getLeftChild() : comparison > 0 ? currentNode.getRightChild() : null;
+            if (child == null) return currentNode;
+            currentNode = child;
+        }
+        return null;
+    }
+
+    private void moveTo(Node<E> node) {
+        this.node = node;
+        this.key = node != null ? node.getKey() : null;
+        this.expectedModCount = this.tree.getModCount();
+    }
+}
@@ -0,0 +1,280 @@
+package semisplay;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Writes a SemiSplayTree to a channel in a compact binary format and reads it back with exactly the same shape,
+ * so a restored tree behaves like the original one, including the effect of all splays done so far.
+ *
+ * The format is a header (magic, version, splaySize, size), followed by 2 bits per node in pre-order
+ * that tell whether the node has a leftChild and a rightChild, followed by the keys in ascending order encoded by a KeyCodec.
+ * Both the writer and the reader walk the tree with the parent pointers, so neither recursion nor a stack is needed,
+ * and the reader builds the tree in O(n) without calling add or comparing keys.
+ * The bytes are encoded straight into a direct buffer that is handed to the channel, no other copies are made.
+ */
+public final class SemiSplayTreeSerializer {
+
+    private static final int MAGIC = 0x53535431; // "SST1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private SemiSplayTreeSerializer() {
+    }
+
+    /**
+     * Writes the tree to the channel. The tree is not changed, nothing is splayed.
+     * @param tree, the tree to write.
+     * @param channel, the channel to write to, it is not closed.
+     * @param codec, encodes the keys.
+     */
+    public static <E> void write(SemiSplayTree<E> tree, WritableByteChannel channel, KeyCodec<E> codec) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(tree.getSplaySize()).putInt(tree.size());
+        Node<E> root = tree.getRoot();
+        if (root == null) {
+            flush(buffer, channel);
+            return;
+        }
+
+        // the shape, 4 nodes per byte in pre-order
+        int bits = 0;
+        int bitCount = 0;
+        Node<E> node = root;
+        while (node != null) {
+            bits |= (node.getLeftChild() != null ? 1 : 0) << bitCount;
+            bits |= (node.getRightChild() != null ? 2 : 0) << bitCount;
+            bitCount += 2;
+            if (bitCount == 8) {
+                if (!buffer.hasRemaining()) flush(buffer, channel);
+                buffer.put((byte) bits);
+                bits = 0;
+                bitCount = 0;
+            }
+            node = nextInPreOrder(node);
+        }
+        if (bitCount > 0) {
+            if (!buffer.hasRemaining()) flush(buffer, channel);
+            buffer.put((byte) bits);
+        }
+
+        // the keys, in ascending order
+        E previous = null;
+        for (node = SemiSplayTree.leftMost(root); node != null; node = SemiSplayTree.successor(node)) {
+            E key = node.getKey();
+            int maxLength = codec.maxLength(key);
+            if (buffer.remaining() < maxLength) {
+                flush(buffer, channel);
+                if (buffer.capacity() < maxLength) buffer = ByteBuffer.allocateDirect(maxLength);
+            }
+            codec.encode(previous, key, buffer);
+            previous = key;
+        }
+        flush(buffer, channel);
+    }
+
+    /**
+     * Reads a tree with the natural ordering of its keys, see read(channel, codec, comparator).
+     */
+    public static <E extends Comparable<E>> SemiSplayTree<E> read(ReadableByteChannel channel, KeyCodec<E> codec) throws IOException {
+        return read(channel, codec, null);
+    }
+
+    /**
+     * Reads a tree that was written by write. Only the bytes of the tree are read from the channel,
+     * apart from what is already read ahead in the buffer.
+     * @param channel, the channel to read from, it is not closed.
+     * @param codec, decodes the keys, must match the codec the tree was written with.
+     * @param comparator, the ordering of the keys of the tree that was written, null for their natural ordering.
+     * @return a tree with the same keys, shape and splaySize as the tree that was written.
+     * @throws StreamCorruptedException if the channel doesn't contain a tree in this format.
+     * @throws EOFException if the channel ends before the tree does.
+     */
+    public static <E> SemiSplayTree<E> read(ReadableByteChannel channel, KeyCodec<E> codec, Comparator<? super E> comparator) throws IOException {
+        Reader reader = new Reader(channel);
+        ByteBuffer header = reader.fill(HEADER_BYTES);
+        if (header.remaining() < HEADER_BYTES) throw new EOFException("the header is incomplete");
+        if (header.getInt() != MAGIC) throw new StreamCorruptedException("not a SemiSplayTree");
+        int version = header.getInt();
+        if (version != VERSION) throw new StreamCorruptedException("unsupported version " + version);
+        int splaySize = header.getInt();
+        int size = header.getInt();
+        if (splaySize < 3 || size < 0) throw new StreamCorruptedException("invalid header");
+        SemiSplayTree<E> tree = new SemiSplayTree<>(splaySize, comparator);
+        if (size == 0) return tree;
+
+        // the shape is needed in pre-order while the keys come in in-order, so it is read as a whole first
+        int shapeLength = (int) (((long) size + 3) / 4);
+        // the array grows with the bytes that actually arrive, so a corrupt size can't make it allocate more than the stream holds
+        byte[] shape = new byte[Math.min(shapeLength, BUFFER_BYTES)];
+        for (int read = 0; read < shapeLength; ) {
+            if (read == shape.length) shape = Arrays.copyOf(shape, (int) Math.min(shapeLength, 2L * shape.length));
+            ByteBuffer buffer = reader.fill(Math.min(BUFFER_BYTES, shape.length - read));
+            if (!buffer.hasRemaining()) throw new EOFException("the shape is incomplete");
+            int length = Math.min(buffer.remaining(), shape.length - read);
+            buffer.get(shape, read, length);
+            read += length;
+        }
+
+        try {
+            tree.load(build(shape, size, reader, codec), size);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("the keys are incomplete");
+        }
+        return tree;
+    }
+
+    /**
+     * Builds the nodes in pre-order from the shape and gives them their keys in in-order, in a single walk:
+     * both children of a node are created when the node is visited, its key is read once its left subtree is done.
+     * The subtree sizes are set on the way back up.
+     */
+    private static <E> Node<E> build(byte[] shape, int size, KeyCodec.Input in, KeyCodec<E> codec) throws IOException {
+        Node<E> root = new Node<>(null);
+        int visited = 0;
+        visit(root, shape, visited++);
+        E previous = null;
+        Node<E> node = root;
+        while (true) {
+            while (node.getLeftChild() != null) {
+                node = node.getLeftChild();
+                visit(node, shape, visited++);
+            }
+            // the left subtree of node is done
+            while (true) {
+                previous = codec.decode(previous, in);
+                node.setKey(previous);
+                if (node.getRightChild() != null) {
+                    node = node.getRightChild();
+                    visit(node, shape, visited++);
+                    break;
+                }
+                // the subtree of node is done, climb up until we come from a leftChild
+                while (true) {
+                    node.setSubTreeSize(1 + SemiSplayTree.subTreeSize(node.getLeftChild()) + SemiSplayTree.subTreeSize(node.getRightChild()));
+                    if (node.getParent() == null) {
+                        if (visited != size) throw new StreamCorruptedException("the shape doesn't match the size");
+                        return root;
+                    }
+                    boolean fromLeft = node.getWhichChild() == 1;
+                    node = node.getParent();
+                    if (fromLeft) break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the children of node according to its 2 shape bits.
+     */
+    private static <E> void visit(Node<E> node, byte[] shape, int index) throws StreamCorruptedException {
+        if (index >= 4 * shape.length) throw new StreamCorruptedException("the shape doesn't match the size");
+        int bits = shape[index >> 2] >> ((index & 3) << 1);
+        if ((bits & 1) != 0) {
+            Node<E> leftChild = new Node<>(null);
+            leftChild.setParent(node);
+            leftChild.setWhichChild(1);
+            node.setLeftChild(leftChild);
+        }
+        if ((bits & 2) != 0) {
+            Node<E> rightChild = new Node<>(null);
+            rightChild.setParent(node);
+            rightChild.setWhichChild(2);
+            node.setRightChild(rightChild);
+        }
+    }
+
+    /**
+     * @return the node after node in pre-order, null if node is the last one.
+     */
+    private static <E> Node<E> nextInPreOrder(Node<E> node) {
+        if (node.getLeftChild() != null) return node.getLeftChild();
+        if (node.getRightChild() != null) return node.getRightChild();
+        // climb up until we come from a leftChild whose parent has a rightChild
+        while (node.getParent() != null) {
+            Node<E> parent = node.getParent();
+            if (node.getWhichChild() == 1 && parent.getRightChild() != null) return parent.getRightChild();
+            node = parent;
+        }
+        return null;
+    }
+
+    private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Reads ahead from the channel into a direct buffer.
+     */
+    private static final class Reader implements KeyCodec.Input {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private boolean endOfStream;
+
+        private Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+            this.buffer.flip();
+        }
+
+        @Override
+        public ByteBuffer fill(int bytes) throws IOException {
+            if (this.buffer.remaining() >= bytes || this.endOfStream) return this.buffer;
+            if (this.buffer.capacity() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(bytes);
+                larger.put(this.buffer);
+                this.buffer = larger;
+            } else {
+                this.buffer.compact();
+            }
+            while (this.buffer.position() < bytes) {
+                if (this.channel.read(this.buffer) < 0) {
+                    this.endOfStream = true;
+                    break;
+                }
+            }
+            this.buffer.flip();
+            return this.buffer;
+        }
+    }
+
+    /**
+     * Writes 7 bits per byte, the highest bit of a byte tells whether more bytes follow.
+     */
+    static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    /**
+     * Maps small negative numbers to small positive numbers: 0, -1, 1, -2, ... become 0, 1, 2, 3, ...
+     */
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
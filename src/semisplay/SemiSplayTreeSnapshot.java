@@ -0,0 +1,137 @@
+package semisplay;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable view of the keys of a SemiSplayTree at the moment SemiSplayTree.snapshot was called.
+ * Lookups are plain binary searches, nothing is splayed, so any number of threads can read a snapshot at the same time,
+ * also while the tree itself keeps changing. The nodes are shared with the tree, which copies them before changing them.
+ * Only the child pointers and the keys of the nodes are read, the parent pointers belong to the tree.
+ * The fields are final, so a snapshot that is handed to another thread always shows the nodes as they were when it was taken.
+ */
+public class SemiSplayTreeSnapshot<E> implements SearchTree<E> {
+
+    private final Node<E> root;
+    private final int size;
+    // the ordering of the tree, null for the natural ordering
+    private final Comparator<? super E> comparator;
+
+    SemiSplayTreeSnapshot(Node<E> root, int size, Comparator<? super E> comparator) {
+        this.root = root;
+        this.size = size;
+        this.comparator = comparator;
+    }
+
+    /**
+     * @throws UnsupportedOperationException, a snapshot can't be changed.
+     */
+    @Override
+    public boolean add(E key) {
+        throw new UnsupportedOperationException("a snapshot can't be changed");
+    }
+
+    /**
+     * Searches the key without splaying.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(E key) {
+        Node<E> currentNode = this.root;
+        while (currentNode != null) {
+            int comparison = this.comparator != null ? this.comparator.compare(key, currentNode.getKey())
+                    : ((Comparable<? super E>) key).compareTo(currentNode.getKey());
+            if (comparison == 0) return true;
+            currentNode = comparison < 0 ? currentNode.getLeftChild() : currentNode.getRightChild();
+        }
+        return false;
+    }
+
+    /**
+     * @throws UnsupportedOperationException, a snapshot can't be changed.
+     */
+    @Override
+    public boolean remove(E key) {
+        throw new UnsupportedOperationException("a snapshot can't be changed");
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Walks the whole snapshot with an explicit stack of nodes and their depths.
+     * @return the depth of the snapshot, -1 if it is empty, and 0 if there is only root.
+     */
+    @Override
+    public int depth() {
+        if (this.root == null) return -1;
+        Object[] nodes = new Object[16];
+        int[] depths = new int[16];
+        int stackSize = 0;
+        nodes[stackSize++] = this.root;
+        int depth = 0;
+        while (stackSize > 0) {
+            @SuppressWarnings("unchecked")
+            Node<E> currentNode = (Node<E>) nodes[--stackSize];
+            int currentDepth = depths[stackSize];
+            if (currentDepth > depth) depth = currentDepth;
+            if (stackSize + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+                depths = Arrays.copyOf(depths, 2 * depths.length);
+            }
+            if (currentNode.getLeftChild() != null) {
+                nodes[stackSize] = currentNode.getLeftChild();
+                depths[stackSize++] = currentDepth + 1;
+            }
+            if (currentNode.getRightChild() != null) {
+                nodes[stackSize] = currentNode.getRightChild();
+                depths[stackSize++] = currentDepth + 1;
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Iterates over the keys in ascending order. The snapshot never changes, so the iterator can't fail.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new SnapshotIterator<>(this.root);
+    }
+
+    private static class SnapshotIterator<E> implements Iterator<E> {
+        private Object[] stack = new Object[16];
+        private int stackSize;
+
+        private SnapshotIterator(Node<E> root) {
+            pushLeftPath(root);
+        }
+
+        private void pushLeftPath(Node<E> node) {
+            while (node != null) {
+                if (stackSize == stack.length) stack = Arrays.copyOf(stack, 2 * stack.length);
+                stack[stackSize++] = node;
+                node = node.getLeftChild();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return stackSize > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Node<E> currentNode = (Node<E>) stack[--stackSize];
+            stack[stackSize] = null;
+            pushLeftPath(currentNode.getRightChild());
+            return currentNode.getKey();
+        }
+    }
+}
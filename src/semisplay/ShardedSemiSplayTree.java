@@ -0,0 +1,383 @@
+package semisplay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe SearchTree that range-partitions its keys over a number of independent SemiSplayTrees, the shards.
+ * Every shard has its own lock, so operations on keys in different shards never wait for each other
+ * and the splays of hot keys in different shards happen in parallel.
+ *
+ * The tree starts with a single shard: without any keys there is no range to spread the shards over,
+ * so until that shard holds MIN_SPLIT_SIZE keys all operations wait for the same lock.
+ * When a shard grows past its threshold, which is skewFactor times the size a shard would have if all keys were spread evenly,
+ * only that shard is split in two halves. Once there are shardCount shards, the two neighbouring shards
+ * that hold the fewest keys together are merged at the same time, so the amount of shards stays the same.
+ * Only the locks of the shards that are split or merged are taken, operations on the other shards go on as usual.
+ * The thresholds grow with the tree, so a split is always paid for by the keys added since that shard was created.
+ * rebalance repartitions all keys into shardCount shards of equal size at once.
+ * Iteration goes through the shards in order, so the keys are returned in ascending order.
+ */
+public class ShardedSemiSplayTree<E extends Comparable<E>> implements SearchTree<E> {
+
+    private static final int MIN_SPLIT_SIZE = 1 << 12;
+    private static final double DEFAULT_SKEW_FACTOR = 2.0;
+
+    private final int splaySize;
+    private final int shardCount;
+    private final double skewFactor;
+    // the current partitioning, replaced as a whole by rebalance
+    private volatile Partitioning<E> partitioning;
+    private final ReentrantLock rebalanceLock = new ReentrantLock();
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     * @param shardCount, the amount of shards the keys are spread over, must be at least 1.
+     */
+    public ShardedSemiSplayTree(int splaySize, int shardCount) {
+        this(splaySize, shardCount, DEFAULT_SKEW_FACTOR);
+    }
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     * @param shardCount, the amount of shards the keys are spread over, must be at least 1.
+     * @param skewFactor, how many times larger than an evenly spread shard a shard may grow before the keys are repartitioned, must be larger than 1.
+     */
+    public ShardedSemiSplayTree(int splaySize, int shardCount, double skewFactor) {
+        if (shardCount < 1) throw new IllegalArgumentException("shardCount must be at least 1");
+        if (skewFactor <= 1) throw new IllegalArgumentException("skewFactor must be larger than 1");
+        this.splaySize = splaySize;
+        this.shardCount = shardCount;
+        this.skewFactor = skewFactor;
+        List<Shard<E>> shards = Collections.singletonList(new Shard<E>(new SemiSplayTree<E>(splaySize)));
+        this.partitioning = new Partitioning<>(shards, Collections.emptyList(), splitThreshold(0));
+    }
+
+    @Override
+    public boolean add(E key) {
+        boolean added;
+        boolean skewed;
+        Partitioning<E> current;
+        while (true) {
+            current = this.partitioning;
+            Shard<E> shard = current.shardFor(key);
+            shard.lock.lock();
+            try {
+                // the keys have been repartitioned while we were waiting for the lock
+                if (shard.retired) continue;
+                added = shard.tree.add(key);
+                skewed = shard.tree.size() > current.splitThreshold;
+            } finally {
+                shard.lock.unlock();
+            }
+            break;
+        }
+        if (added) this.size.increment();
+        if (skewed && this.shardCount > 1) trySplit(current, key);
+        return added;
+    }
+
+    @Override
+    public boolean contains(E key) {
+        while (true) {
+            Shard<E> shard = this.partitioning.shardFor(key);
+            shard.lock.lock();
+            try {
+                if (shard.retired) continue;
+                return shard.tree.contains(key);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(E key) {
+        boolean removed;
+        while (true) {
+            Shard<E> shard = this.partitioning.shardFor(key);
+            shard.lock.lock();
+            try {
+                if (shard.retired) continue;
+                removed = shard.tree.remove(key);
+            } finally {
+                shard.lock.unlock();
+            }
+            break;
+        }
+        if (removed) this.size.decrement();
+        return removed;
+    }
+
+    /**
+     * @return the amount of keys in the tree. Changes that are in progress in other threads may or may not be counted.
+     */
+    @Override
+    public int size() {
+        return this.size.intValue();
+    }
+
+    /**
+     * @return the largest depth of the shards.
+     */
+    @Override
+    public int depth() {
+        int depth = -1;
+        for (Shard<E> shard : this.partitioning.shards) {
+            shard.lock.lock();
+            try {
+                depth = Math.max(depth, shard.tree.depth());
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * @return the amount of shards the keys are currently spread over.
+     */
+    public int getShardCount() {
+        return this.partitioning.shards.size();
+    }
+
+    /**
+     * Iterates over the keys in ascending order.
+     * The keys of a shard are copied under its lock when the iteration reaches that shard,
+     * so changes made during the iteration may or may not be seen.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new ShardedSemiSplayTreeIterator(this.partitioning.shards);
+    }
+
+    private class ShardedSemiSplayTreeIterator implements Iterator<E> {
+        private final List<Shard<E>> shards;
+        private int nextShard;
+        private Iterator<E> keys = Collections.emptyIterator();
+
+        private ShardedSemiSplayTreeIterator(List<Shard<E>> shards) {
+            this.shards = shards;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!this.keys.hasNext() && this.nextShard < this.shards.size()) {
+                Shard<E> shard = this.shards.get(this.nextShard++);
+                shard.lock.lock();
+                try {
+                    List<E> copy = new ArrayList<>(shard.tree.size());
+                    for (E key : shard.tree) copy.add(key);
+                    this.keys = copy.iterator();
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+            return this.keys.hasNext();
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return this.keys.next();
+        }
+    }
+
+    /**
+     * Repartitions the keys into shardCount shards of equal size.
+     * All operations wait until the repartitioning is done.
+     */
+    public void rebalance() {
+        this.rebalanceLock.lock();
+        try {
+            repartition();
+        } finally {
+            this.rebalanceLock.unlock();
+        }
+    }
+
+    /**
+     * Splits the shard of key, which grew past the threshold of the partitioning skewed.
+     */
+    private void trySplit(Partitioning<E> skewed, E key) {
+        // if another thread is already changing the partitioning, it can split the shard the next time it grows
+        if (!this.rebalanceLock.tryLock()) return;
+        try {
+            if (this.partitioning == skewed) split(skewed.indexFor(key));
+        } finally {
+            this.rebalanceLock.unlock();
+        }
+    }
+
+    /**
+     * Splits shard index in two halves. If that would make more than shardCount shards,
+     * the pair of neighbouring shards with the fewest keys, not counting shard index, is merged as well.
+     * Only the shards that are split or merged are locked. The caller holds rebalanceLock.
+     */
+    private void split(int index) {
+        Partitioning<E> old = this.partitioning;
+        int merge = -1;
+        if (old.shards.size() >= this.shardCount) {
+            // the sizes are read without the locks, an estimate is good enough to pick the pair
+            int smallest = Integer.MAX_VALUE;
+            for (int i = 0; i + 1 < old.shards.size(); i++) {
+                if (i == index || i + 1 == index) continue;
+                int pairSize = old.shards.get(i).tree.size() + old.shards.get(i + 1).tree.size();
+                if (pairSize < smallest) {
+                    smallest = pairSize;
+                    merge = i;
+                }
+            }
+            // with only 2 shards there is no other pair, the keys of both are spread evenly instead
+            if (merge < 0) {
+                repartition(index == 0 ? 0 : index - 1, 2);
+                return;
+            }
+        }
+        // lock in ascending order, like repartition
+        List<Shard<E>> locked = new ArrayList<>(3);
+        for (int i = 0; i < old.shards.size(); i++) {
+            if (i == index || i == merge || (merge >= 0 && i == merge + 1)) locked.add(old.shards.get(i));
+        }
+        for (Shard<E> shard : locked) shard.lock.lock();
+        try {
+            List<Shard<E>> newShards = new ArrayList<>(old.shards.size() + 1);
+            List<E> lowerBounds = new ArrayList<>(old.shards.size());
+            for (int i = 0; i < old.shards.size(); i++) {
+                E lowerBound = i > 0 ? old.lowerBounds.get(i - 1) : null;
+                if (i == index) {
+                    List<E> keys = keysOf(old.shards.get(i));
+                    int middle = keys.size() / 2;
+                    addShard(newShards, lowerBounds, SemiSplayTree.fromSorted(keys.subList(0, middle), this.splaySize), lowerBound);
+                    addShard(newShards, lowerBounds, SemiSplayTree.fromSorted(keys.subList(middle, keys.size()), this.splaySize), keys.get(middle));
+                } else if (i == merge) {
+                    List<E> keys = keysOf(old.shards.get(i));
+                    keys.addAll(keysOf(old.shards.get(i + 1)));
+                    addShard(newShards, lowerBounds, SemiSplayTree.fromSorted(keys, this.splaySize), lowerBound);
+                    i++;
+                } else {
+                    newShards.add(old.shards.get(i));
+                    if (i > 0) lowerBounds.add(lowerBound);
+                }
+            }
+            this.partitioning = new Partitioning<>(newShards, lowerBounds, splitThreshold(this.size.intValue()));
+            for (Shard<E> shard : locked) shard.retired = true;
+        } finally {
+            for (Shard<E> shard : locked) shard.lock.unlock();
+        }
+    }
+
+    private static <E extends Comparable<E>> void addShard(List<Shard<E>> shards, List<E> lowerBounds, SemiSplayTree<E> tree, E lowerBound) {
+        if (!shards.isEmpty()) lowerBounds.add(lowerBound);
+        shards.add(new Shard<>(tree));
+    }
+
+    /**
+     * @return the keys of the shard in ascending order, the caller holds its lock.
+     */
+    private static <E extends Comparable<E>> List<E> keysOf(Shard<E> shard) {
+        List<E> keys = new ArrayList<>(shard.tree.size());
+        for (E key : shard.tree) keys.add(key);
+        return keys;
+    }
+
+    private void repartition() {
+        repartition(0, this.partitioning.shards.size(), this.shardCount);
+    }
+
+    /**
+     * Spreads the keys of the shards from up to from + count evenly over shards of equal size, see repartition(from, count, shards).
+     */
+    private void repartition(int from, int count) {
+        repartition(from, count, count);
+    }
+
+    /**
+     * Replaces the shards from up to from + count by at most newCount shards of equal size.
+     * Only the replaced shards are locked. The caller holds rebalanceLock.
+     */
+    private void repartition(int from, int count, int newCount) {
+        Partitioning<E> old = this.partitioning;
+        List<Shard<E>> replaced = old.shards.subList(from, from + count);
+        for (Shard<E> shard : replaced) shard.lock.lock();
+        try {
+            // the shards are ordered, so this gives their keys in ascending order
+            List<E> keys = new ArrayList<>();
+            for (Shard<E> shard : replaced) keys.addAll(keysOf(shard));
+            int shards = Math.max(1, Math.min(newCount, keys.size()));
+            List<Shard<E>> newShards = new ArrayList<>(old.shards.subList(0, from));
+            List<E> lowerBounds = new ArrayList<>(old.lowerBounds.subList(0, Math.max(0, from - 1)));
+            E lowerBound = from > 0 ? old.lowerBounds.get(from - 1) : null;
+            for (int i = 0; i < shards; i++) {
+                int fromKey = (int) ((long) keys.size() * i / shards);
+                int toKey = (int) ((long) keys.size() * (i + 1) / shards);
+                addShard(newShards, lowerBounds, SemiSplayTree.fromSorted(keys.subList(fromKey, toKey), this.splaySize),
+                        i > 0 ? keys.get(fromKey) : lowerBound);
+            }
+            for (int i = from + count; i < old.shards.size(); i++) {
+                newShards.add(old.shards.get(i));
+                lowerBounds.add(old.lowerBounds.get(i - 1));
+            }
+            this.partitioning = new Partitioning<>(newShards, lowerBounds, splitThreshold(this.size.intValue()));
+            for (Shard<E> shard : replaced) shard.retired = true;
+        } finally {
+            for (Shard<E> shard : replaced) shard.lock.unlock();
+        }
+    }
+
+    private int splitThreshold(int size) {
+        double evenShardSize = Math.max((double) size / this.shardCount, (double) MIN_SPLIT_SIZE / this.shardCount);
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_SPLIT_SIZE, this.skewFactor * evenShardSize));
+    }
+
+    /**
+     * The shards and the key ranges they are responsible for. A partitioning never changes after it is created.
+     */
+    private static final class Partitioning<E extends Comparable<E>> {
+        private final List<Shard<E>> shards;
+        // lowerBounds.get(i) is the smallest key that belongs in shard i + 1
+        private final List<E> lowerBounds;
+        private final int splitThreshold;
+
+        private Partitioning(List<Shard<E>> shards, List<E> lowerBounds, int splitThreshold) {
+            this.shards = shards;
+            this.lowerBounds = lowerBounds;
+            this.splitThreshold = splitThreshold;
+        }
+
+        private Shard<E> shardFor(E key) {
+            return this.shards.get(indexFor(key));
+        }
+
+        private int indexFor(E key) {
+            // binary search for the amount of lower bounds that are smaller or equal to key
+            int low = 0;
+            int high = this.lowerBounds.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (this.lowerBounds.get(middle).compareTo(key) <= 0) low = middle + 1;
+                else high = middle;
+            }
+            return low;
+        }
+    }
+
+    private static final class Shard<E extends Comparable<E>> {
+        private final SemiSplayTree<E> tree;
+        private final ReentrantLock lock = new ReentrantLock();
+        // set when the keys have been moved to a new partitioning, guarded by lock
+        private boolean retired;
+
+        private Shard(SemiSplayTree<E> tree) {
+            this.tree = tree;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package semisplay;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a successful contains splays the node it found, see SemiSplayTree.setSplayPolicy.
+ * A lookup that doesn't splay only reads the tree, so it is cheaper and doesn't pull the searched key towards the root.
+ * add and remove always splay.
+ * A policy may be consulted by several threads at once (e.g. in a ConcurrentSemiSplayTree).
+ */
+public interface SplayPolicy {
+
+    /**
+     * @param depth, the depth of the found node, 0 for the root. Only computed when needsDepth returns true, -1 otherwise.
+     * @param size, the amount of keys in the tree.
+     * @return true if the found node should be splayed.
+     */
+    boolean shouldSplay(int depth, int size);
+
+    /**
+     * @return true if shouldSplay looks at the depth of the node, which the search counts on its way down.
+     */
+    default boolean needsDepth() {
+        return false;
+    }
+
+    /**
+     * @return a policy that splays after every lookup, like a SemiSplayTree without policy.
+     */
+    static SplayPolicy always() {
+        return (depth, size) -> true;
+    }
+
+    /**
+     * A node that is not much deeper than in a balanced tree isn't worth the restructuring.
+     * @param factor, the node is only splayed if its depth is larger than factor * floor(log2(size)).
+     * @return a policy that only splays deep nodes.
+     */
+    static SplayPolicy depthThreshold(double factor) {
+        if (factor < 0) throw new IllegalArgumentException("factor must not be negative");
+        return new SplayPolicy() {
+            @Override
+            public boolean shouldSplay(int depth, int size) {
+                return depth > factor * (31 - Integer.numberOfLeadingZeros(Math.max(1, size)));
+            }
+
+            @Override
+            public boolean needsDepth() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param probability, the probability that a lookup splays, between 0 and 1.
+     * @return a policy that splays a random fraction of the lookups.
+     */
+    static SplayPolicy probability(double probability) {
+        if (probability < 0 || probability > 1) throw new IllegalArgumentException("probability must be between 0 and 1");
+        if (probability >= 1.0) return always();
+        return (depth, size) -> ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    /**
+     * The counter is not synchronized: when several threads use the policy at once some lookups may not be counted,
+     * which only changes which lookups splay.
+     * @param n, splay once every n lookups, must be at least 1.
+     * @return a policy that splays every n-th lookup.
+     */
+    static SplayPolicy everyNth(int n) {
+        if (n < 1) throw new IllegalArgumentException("n must be at least 1");
+        return new SplayPolicy() {
+            private int lookups;
+
+            @Override
+            public boolean shouldSplay(int depth, int size) {
+                if (++this.lookups < n) return false;
+                this.lookups = 0;
+                return true;
+            }
+        };
+    }
+}
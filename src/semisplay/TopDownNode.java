@@ -0,0 +1,28 @@
+package semisplay;
+
+/**
+ * Node of a TopDownSemiSplayTree. The tree is restructured on the way down, so a node needs no parent pointer
+ * and doesn't have to know whether it is a leftChild or a rightChild.
+ */
+public class TopDownNode<E extends Comparable<E>> {
+    private TopDownNode<E> leftChild, rightChild;
+    private final E key;
+
+    TopDownNode(E key) {
+        this.key = key;
+    }
+
+    public TopDownNode<E> getLeftChild() {
+        return leftChild;
+    }
+
+    void setLeftChild(TopDownNode<E> leftChild) { this.leftChild = leftChild; }
+
+    public TopDownNode<E> getRightChild() {
+        return rightChild;
+    }
+
+    void setRightChild(TopDownNode<E> rightChild) { this.rightChild = rightChild; }
+
+    public E getKey() { return key; }
+}
@@ -0,0 +1,324 @@
+package semisplay;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A SemiSplayTree that splays top-down, in the same pass as the search.
+ * While descending, the nodes of the search path are collected in windows of splaySize nodes.
+ * As soon as a window is full and the search continues below it, the window is replaced by a complete binary tree,
+ * exactly like a splay step of SemiSplayTree, and the search continues in the subtree below the window.
+ * The window in which the search ends is left as it is, the node that is found stays where it is.
+ *
+ * Because nothing is done after the search, the nodes have no parent pointer and no whichChild,
+ * and every node on the path is read once instead of once on the way down and once on the way up.
+ * A search that doesn't find its key also restructures the full windows on its path.
+ */
+public class TopDownSemiSplayTree<E extends Comparable<E>> implements SearchTree<E> {
+
+    private TopDownNode<E> root;
+    private int size;
+    private final int splaySize;
+    // scratch arrays used by the splay steps, allocated once so splaying doesn't create garbage
+    private final TopDownNode<E>[] window;
+    private final TopDownNode<E>[] splayOrder;
+    private final TopDownNode<E>[] splaySubTrees;
+    // where the search ended: the parent of the found node (or of the empty spot) and which child it is, 0 for the root
+    private TopDownNode<E> searchParent;
+    private int searchSide;
+    // filled in by buildSubTree: the new parent of the subtree in which the search continues
+    private int continueIndex;
+    private TopDownNode<E> continueParent;
+    private int continueSide;
+
+    /**
+     * Constructor
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     */
+    @SuppressWarnings("unchecked")
+    public TopDownSemiSplayTree(int splaySize) {
+        assert(splaySize >= 3);
+        this.splaySize = splaySize;
+        this.window = (TopDownNode<E>[]) new TopDownNode<?>[splaySize];
+        this.splayOrder = (TopDownNode<E>[]) new TopDownNode<?>[splaySize];
+        this.splaySubTrees = (TopDownNode<E>[]) new TopDownNode<?>[splaySize + 1];
+    }
+
+    /**
+     * Constructor
+     * @param rootKey, the key that will be become the root of the TopDownSemiSplayTree, must be an implementation of Java Comparable interface.
+     * @param splaySize, the amount of nodes used in one splay step, must be larger or equal to 3.
+     */
+    public TopDownSemiSplayTree(E rootKey, int splaySize) {
+        this(splaySize);
+        this.root = new TopDownNode<>(rootKey);
+        this.size = 1;
+    }
+
+    /**
+     * Adds a key to the TopDownSemiSplayTree. If successful also adds 1 to the size of the TopDownSemiSplayTree.
+     * @param key, must be an implementation of Java Comparable interface.
+     * @return returns true if the key is added successfully, false otherwise.
+     */
+    @Override
+    public boolean add(E key) {
+        // The key is already in the TopDownSemiSplayTree
+        if (search(key) != null) return false;
+        link(this.searchParent, this.searchSide, new TopDownNode<>(key));
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Checks if the TopDownSemiSplayTree contains a specific key.
+     * @param key, the key that gets checked, must be an implementation of Java Comparable interface.
+     * @return returns true if the key is found, false otherwise.
+     */
+    @Override
+    public boolean contains(E key) {
+        return search(key) != null;
+    }
+
+    /**
+     * Removes a key from the TopDownSemiSplayTree. If successful also decrements 1 to the size of the TopDownSemiSplayTree.
+     * @param key, must be an implementation of Java Comparable interface.
+     * @return returns true if the key is found and removed, false otherwise.
+     */
+    @Override
+    public boolean remove(E key) {
+        TopDownNode<E> node = search(key);
+        if (node == null) return false;
+        TopDownNode<E> replacement;
+        if (node.getLeftChild() == null) {
+            replacement = node.getRightChild();
+        } else if (node.getRightChild() == null) {
+            replacement = node.getLeftChild();
+        } else {
+            // the smallest node in the right subtree takes the place of the removed node
+            TopDownNode<E> smallestParent = node;
+            replacement = node.getRightChild();
+            while (replacement.getLeftChild() != null) {
+                smallestParent = replacement;
+                replacement = replacement.getLeftChild();
+            }
+            if (smallestParent != node) {
+                smallestParent.setLeftChild(replacement.getRightChild());
+                replacement.setRightChild(node.getRightChild());
+            }
+            replacement.setLeftChild(node.getLeftChild());
+        }
+        link(this.searchParent, this.searchSide, replacement);
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Returns the amount of nodes in the TopDownSemiSplayTree
+     * @return amount of nodes, int
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the depth of the TopDownSemiSplayTree, meaning the longest path down.
+     * Without parent pointers the tree is walked with a Morris traversal: the way back up is a temporary link
+     * from the rightChild of the in-order predecessor, which is removed again on the second visit. So no stack is needed.
+     * @return the depth of the tree, int. Will return -1 if the tree is empty, and 0 if there is only root.
+     */
+    @Override
+    public int depth() {
+        int depth = -1;
+        int currentDepth = 0;
+        TopDownNode<E> currentNode = this.root;
+        while (currentNode != null) {
+            if (currentNode.getLeftChild() == null) {
+                if (currentDepth > depth) depth = currentDepth;
+                currentNode = currentNode.getRightChild();
+                currentDepth++;
+                continue;
+            }
+            TopDownNode<E> predecessor = currentNode.getLeftChild();
+            int steps = 1;
+            while (predecessor.getRightChild() != null && predecessor.getRightChild() != currentNode) {
+                predecessor = predecessor.getRightChild();
+                steps++;
+            }
+            if (predecessor.getRightChild() == null) {
+                // first visit, leave a way back and go down to the left
+                if (currentDepth > depth) depth = currentDepth;
+                predecessor.setRightChild(currentNode);
+                currentNode = currentNode.getLeftChild();
+                currentDepth++;
+            } else {
+                // back through the temporary link, which counted as a step down but went steps up
+                predecessor.setRightChild(null);
+                currentDepth -= 1 + steps;
+                currentNode = currentNode.getRightChild();
+                currentDepth++;
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Iterates over the keys in ascending order. Without parent pointers the iterator keeps the path to the next key on a stack.
+     * The tree must not be changed during the iteration, contains included.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new TopDownSemiSplayTreeIterator<>(this.root);
+    }
+
+    private static class TopDownSemiSplayTreeIterator<E extends Comparable<E>> implements Iterator<E> {
+        private Object[] stack = new Object[16];
+        private int stackSize;
+
+        private TopDownSemiSplayTreeIterator(TopDownNode<E> root) {
+            pushLeftPath(root);
+        }
+
+        private void pushLeftPath(TopDownNode<E> node) {
+            while (node != null) {
+                if (stackSize == stack.length) stack = Arrays.copyOf(stack, 2 * stack.length);
+                stack[stackSize++] = node;
+                node = node.getLeftChild();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return stackSize > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            TopDownNode<E> currentNode = (TopDownNode<E>) stack[--stackSize];
+            stack[stackSize] = null;
+            pushLeftPath(currentNode.getRightChild());
+            return currentNode.getKey();
+        }
+    }
+
+    /**
+     * Helper method used for testing
+     * @return returns the root of the TopDownSemiSplayTree
+     */
+    public TopDownNode<E> getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Searches a key and restructures every full window of splaySize nodes on the way down.
+     * Afterwards searchParent and searchSide tell where the found node, or the empty spot where the key belongs, hangs.
+     * @param key, the key to search.
+     * @return the node containing the key, null if the key is not found.
+     */
+    private TopDownNode<E> search(E key) {
+        TopDownNode<E> parent = null;
+        int side = 0;
+        TopDownNode<E> windowParent = null;
+        int windowSide = 0;
+        int windowLength = 0;
+        TopDownNode<E> currentNode = this.root;
+        while (currentNode != null) {
+            int comparison = key.compareTo(currentNode.getKey());
+            if (comparison == 0) break;
+            if (windowLength == 0) {
+                windowParent = parent;
+                windowSide = side;
+            }
+            this.window[windowLength++] = currentNode;
+            int nextSide = comparison < 0 ? 1 : 2;
+            TopDownNode<E> nextNode = nextSide == 1 ? currentNode.getLeftChild() : currentNode.getRightChild();
+            if (windowLength == this.splaySize) {
+                restructure(windowParent, windowSide, nextSide);
+                parent = this.continueParent;
+                side = this.continueSide;
+                windowLength = 0;
+            } else {
+                parent = currentNode;
+                side = nextSide;
+            }
+            currentNode = nextNode;
+        }
+        this.searchParent = parent;
+        this.searchSide = side;
+        // Don't keep references to nodes that might get removed later on
+        Arrays.fill(this.window, null);
+        this.continueParent = null;
+        return currentNode;
+    }
+
+    /**
+     * Replaces the full window by a complete binary tree.
+     * The in-order position of every node is derived from the shape of the path, see SemiSplayTree.restructure,
+     * the window is ordered from the top down here.
+     * @param windowParent, the parent of the top of the window, null if it is the root.
+     * @param windowSide, 1 if the top of the window is a leftChild, 2 if it is a rightChild, 0 if it is the root.
+     * @param nextSide, the side of the bottom of the window where the search continues.
+     */
+    private void restructure(TopDownNode<E> windowParent, int windowSide, int nextSide) {
+        int low = 0;
+        int high = this.splaySize - 1;
+        for (int i = 0; i < this.splaySize - 1; i++) {
+            TopDownNode<E> pathNode = this.window[i];
+            if (this.window[i + 1] == pathNode.getLeftChild()) {
+                // the path continues to the left, so pathNode is larger than the rest of the path
+                this.splayOrder[high] = pathNode;
+                this.splaySubTrees[high + 1] = pathNode.getRightChild();
+                high--;
+            } else {
+                // the path continues to the right, so pathNode is smaller than the rest of the path
+                this.splayOrder[low] = pathNode;
+                this.splaySubTrees[low] = pathNode.getLeftChild();
+                low++;
+            }
+        }
+        TopDownNode<E> bottom = this.window[this.splaySize - 1];
+        this.splayOrder[low] = bottom;
+        this.splaySubTrees[low] = bottom.getLeftChild();
+        this.splaySubTrees[low + 1] = bottom.getRightChild();
+        this.continueIndex = nextSide == 1 ? low : low + 1;
+
+        link(windowParent, windowSide, buildSubTree(0, this.splaySize - 1, windowParent, windowSide));
+        Arrays.fill(this.splayOrder, null);
+        Arrays.fill(this.splaySubTrees, null);
+    }
+
+    /**
+     * Recursively builds a complete binary tree out of splayOrder[from..to], see SemiSplayTree.buildSubTree.
+     * Remembers where the subtree in which the search continues ends up.
+     * @param subRoot, the node on which the binary (sub)tree will be attached
+     * @param whichChild, 1 if the binary tree becomes the leftChild of subRoot, 2 if it becomes the rightChild
+     * @return the root of the new binary tree
+     */
+    private TopDownNode<E> buildSubTree(int from, int to, TopDownNode<E> subRoot, int whichChild) {
+        if (from > to) {
+            if (from == this.continueIndex) {
+                this.continueParent = subRoot;
+                this.continueSide = whichChild;
+            }
+            return this.splaySubTrees[from];
+        }
+        int middleNodeIndex = from + (to - from + 1) / 2;
+        TopDownNode<E> middleNode = this.splayOrder[middleNodeIndex];
+        middleNode.setLeftChild(buildSubTree(from, middleNodeIndex - 1, middleNode, 1));
+        middleNode.setRightChild(buildSubTree(middleNodeIndex + 1, to, middleNode, 2));
+        return middleNode;
+    }
+
+    /**
+     * Hangs node (which may be null) under parent, as leftChild if side is 1 and as rightChild if side is 2.
+     * If side is 0 node becomes the root.
+     */
+    private void link(TopDownNode<E> parent, int side, TopDownNode<E> node) {
+        if (side == 0) this.root = node;
+        else if (side == 1) parent.setLeftChild(node);
+        else parent.setRightChild(node);
+    }
+}
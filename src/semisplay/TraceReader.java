@@ -0,0 +1,149 @@
+package semisplay;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a trace written by TraceRecorder, one record at a time.
+ * The file is memory-mapped one window at a time, so a trace of several GB can be read without loading it into the heap,
+ * only the window that is being read takes up (off-heap) memory.
+ *
+ * Typical use:
+ *     while (reader.next()) { if (reader.getOperation() == TraceRecorder.CONTAINS) tree.contains(reader.getKey()); ... }
+ */
+public class TraceReader<E> implements Closeable {
+
+    private static final int WINDOW_BYTES = 1 << 26;
+
+    private final FileChannel channel;
+    private final KeyCodec<E> codec;
+    private final long fileSize;
+    private final int windowBytes;
+    private final KeyCodec.Input input = this::fill;
+    private MappedByteBuffer window;
+    // the position of the window in the file
+    private long windowStart;
+
+    private int operation;
+    private boolean result;
+    private E key;
+    private long operations;
+
+    /**
+     * Opens a trace with windows of 64 MB.
+     * @param path, the file with the trace.
+     * @param codec, decodes the keys, must match the codec the trace was recorded with.
+     * @throws IOException if the file can not be mapped or doesn't contain a trace.
+     */
+    public TraceReader(Path path, KeyCodec<E> codec) throws IOException {
+        this(path, codec, WINDOW_BYTES);
+    }
+
+    /**
+     * @param path, the file with the trace.
+     * @param codec, decodes the keys, must match the codec the trace was recorded with.
+     * @param windowBytes, the amount of bytes that is mapped at once, a record is never longer than this.
+     * @throws IOException if the file can not be mapped or doesn't contain a trace.
+     */
+    public TraceReader(Path path, KeyCodec<E> codec, int windowBytes) throws IOException {
+        if (windowBytes < TraceRecorder.HEADER_BYTES) throw new IllegalArgumentException("windowBytes must be at least " + TraceRecorder.HEADER_BYTES);
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.codec = codec;
+        this.windowBytes = windowBytes;
+        try {
+            this.fileSize = this.channel.size();
+            if (fill(TraceRecorder.HEADER_BYTES).remaining() < TraceRecorder.HEADER_BYTES) throw new EOFException("the header is incomplete");
+            if (this.window.getInt() != TraceRecorder.MAGIC) throw new StreamCorruptedException("not a trace");
+            int version = this.window.getInt();
+            if (version != TraceRecorder.VERSION) throw new StreamCorruptedException("unsupported version " + version);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next record.
+     * @return false if there are no more records.
+     * @throws EOFException if the trace ends in the middle of a record.
+     * @throws StreamCorruptedException if the record has an unknown operation.
+     */
+    public boolean next() throws IOException {
+        if (!fill(1).hasRemaining()) return false;
+        int header = this.window.get() & 0xFF;
+        if ((header & ~(TraceRecorder.OPERATION_MASK | TraceRecorder.RESULT_BIT)) != 0 || (header & TraceRecorder.OPERATION_MASK) > TraceRecorder.REMOVE) {
+            throw new StreamCorruptedException("invalid record header " + header);
+        }
+        this.operation = header & TraceRecorder.OPERATION_MASK;
+        this.result = (header & TraceRecorder.RESULT_BIT) != 0;
+        try {
+            this.key = this.codec.decode(this.key, this.input);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("the last record is incomplete");
+        }
+        this.operations++;
+        return true;
+    }
+
+    /**
+     * @return the operation of the current record: TraceRecorder.ADD, TraceRecorder.CONTAINS or TraceRecorder.REMOVE.
+     */
+    public int getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * @return the key of the current record.
+     */
+    public E getKey() {
+        return this.key;
+    }
+
+    /**
+     * @return what the operation of the current record returned when it was recorded.
+     */
+    public boolean getResult() {
+        return this.result;
+    }
+
+    /**
+     * @return the amount of records read so far.
+     */
+    public long getOperations() {
+        return this.operations;
+    }
+
+    /**
+     * Unmaps the current window and closes the file.
+     * @throws IOException if the file can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        BufferCleaner.free(this.window);
+        this.window = null;
+        this.channel.close();
+    }
+
+    /**
+     * Maps the next window if the current one has less than bytes bytes left.
+     * @return the current window, with at least bytes bytes left, or all the bytes that are left if there are less.
+     */
+    private MappedByteBuffer fill(int bytes) throws IOException {
+        if (this.window != null && this.window.remaining() >= bytes) return this.window;
+        long position = this.window == null ? 0 : this.windowStart + this.window.position();
+        if (this.window != null && position + this.window.remaining() == this.fileSize) return this.window;
+        long length = Math.min(Math.max(bytes, this.windowBytes), this.fileSize - position);
+        MappedByteBuffer next = this.channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        BufferCleaner.free(this.window);
+        this.window = next;
+        this.windowStart = position;
+        return this.window;
+    }
+}
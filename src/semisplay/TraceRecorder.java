@@ -0,0 +1,142 @@
+package semisplay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+
+/**
+ * A SearchTree that passes every operation on to another SearchTree and logs it to a channel,
+ * so a real workload can be replayed later, e.g. against trees with a different splaySize (see TraceReader).
+ *
+ * The trace starts with a header of HEADER_BYTES bytes (magic and version), followed by one record per operation:
+ * a byte with the operation (ADD, CONTAINS or REMOVE) in the lowest 2 bits and the result in bit RESULT_BIT,
+ * followed by the key encoded by a KeyCodec relative to the key of the previous record.
+ * Consecutive operations often hit neighbouring keys, so most records are only 2 or 3 bytes.
+ * The batch operations are logged as the single operations they consist of, iterating is not logged.
+ * A TraceRecorder is not thread-safe, the records are buffered until flush or close.
+ */
+public class TraceRecorder<E> implements SearchTree<E>, Closeable {
+
+    public static final int ADD = 0;
+    public static final int CONTAINS = 1;
+    public static final int REMOVE = 2;
+
+    static final int MAGIC = 0x53535452; // "SSTR"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int OPERATION_MASK = 3;
+    static final int RESULT_BIT = 4;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final SearchTree<E> tree;
+    private final WritableByteChannel channel;
+    private final KeyCodec<E> codec;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    // the key of the previous record, the next key is encoded relative to it
+    private E previous;
+    private long operations;
+
+    /**
+     * @param tree, the tree the operations are passed on to.
+     * @param channel, the channel the trace is written to, it is closed by close.
+     * @param codec, encodes the keys.
+     */
+    public TraceRecorder(SearchTree<E> tree, WritableByteChannel channel, KeyCodec<E> codec) {
+        this.tree = tree;
+        this.channel = channel;
+        this.codec = codec;
+        this.buffer.putInt(MAGIC).putInt(VERSION);
+    }
+
+    @Override
+    public boolean add(E key) {
+        boolean added = this.tree.add(key);
+        record(ADD, key, added);
+        return added;
+    }
+
+    @Override
+    public boolean contains(E key) {
+        boolean found = this.tree.contains(key);
+        record(CONTAINS, key, found);
+        return found;
+    }
+
+    @Override
+    public boolean remove(E key) {
+        boolean removed = this.tree.remove(key);
+        record(REMOVE, key, removed);
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return this.tree.size();
+    }
+
+    @Override
+    public int depth() {
+        return this.tree.depth();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.tree.iterator();
+    }
+
+    /**
+     * @return the amount of operations recorded so far.
+     */
+    public long getOperations() {
+        return this.operations;
+    }
+
+    /**
+     * Writes all buffered records to the channel.
+     * @throws IOException if the channel can not be written to.
+     */
+    public void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) this.channel.write(this.buffer);
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes all buffered records to the channel and closes it.
+     * @throws IOException if the channel can not be written to or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            BufferCleaner.free(this.buffer);
+            this.buffer = null;
+            this.channel.close();
+        }
+    }
+
+    private void record(int operation, E key, boolean result) {
+        if (this.buffer == null) throw new IllegalStateException("the recorder is closed");
+        int maxLength = 1 + this.codec.maxLength(key);
+        if (this.buffer.remaining() < maxLength) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (this.buffer.capacity() < maxLength) {
+                BufferCleaner.free(this.buffer);
+                this.buffer = ByteBuffer.allocateDirect(maxLength);
+            }
+        }
+        this.buffer.put((byte) (result ? operation | RESULT_BIT : operation));
+        this.codec.encode(this.previous, key, this.buffer);
+        this.previous = key;
+        this.operations++;
+    }
+}
@@ -0,0 +1,71 @@
+package test;
+
+import org.junit.Test;
+import semisplay.AdaptiveSplaySize;
+import semisplay.SemiSplayMetrics;
+import semisplay.SemiSplayTree;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveSplaySizeTest {
+
+    private static final int OPERATIONS = 200000;
+
+    @Test
+    public void staysWithinBoundsTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        SemiSplayMetrics metrics = new SemiSplayMetrics();
+        AdaptiveSplaySize tuner = new AdaptiveSplaySize(tree, 5, 20, 1000, 0.0, metrics);
+        tree.setListener(tuner);
+        assertEquals(5, tree.getSplaySize());
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(5);
+        boolean changed = false;
+        for (int i = 0; i < OPERATIONS; i++) {
+            int key = random.nextInt(10000);
+            switch (random.nextInt(3)) {
+                case 0: assertEquals(expected.add(key), tree.add(key));
+                    break;
+                case 1: assertEquals(expected.contains(key), tree.contains(key));
+                    break;
+                default: assertEquals(expected.remove(key), tree.remove(key));
+            }
+            assertTrue(tree.getSplaySize() >= 5 && tree.getSplaySize() <= 20);
+            changed |= tree.getSplaySize() != 5;
+        }
+        assertTrue(changed);
+        assertEquals(OPERATIONS, metrics.getOperationCount());
+        assertEquals(expected.size(), tree.size());
+        Integer[] expectedKeys = expected.toArray(new Integer[0]);
+        int index = 0;
+        for (int key : tree) assertEquals((int) expectedKeys[index++], key);
+    }
+
+    @Test
+    public void workingSetTest() {
+        // a few hot keys: the tuner settles on a splaySize that costs less than the one it started with
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(31);
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) tree.add(random.nextInt());
+        int[] workingSet = {random.nextInt(), random.nextInt(), random.nextInt(), random.nextInt()};
+        for (int key : workingSet) tree.add(key);
+        AdaptiveSplaySize tuner = new AdaptiveSplaySize(tree, 3, 31, 5000, 0.02);
+        tree.setListener(tuner);
+        for (int i = 0; i < OPERATIONS; i++) assertTrue(tree.contains(workingSet[random.nextInt(workingSet.length)]));
+        assertTrue(tuner.getCurrentSplaySize() < 31);
+    }
+
+    @Test
+    public void hysteresisTest() {
+        // no splaySize can be 99% cheaper than the current one, so every probe is undone
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(7);
+        AdaptiveSplaySize tuner = new AdaptiveSplaySize(tree, 3, 15, 1000, 0.99);
+        tree.setListener(tuner);
+        Random random = new Random(9);
+        for (int i = 0; i < OPERATIONS; i++) tree.add(random.nextInt(10000));
+        assertEquals(7, tuner.getCurrentSplaySize());
+    }
+}
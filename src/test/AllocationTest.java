@@ -0,0 +1,67 @@
+package test;
+
+import org.junit.Test;
+import semisplay.SemiSplayTree;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AllocationTest {
+
+    private static final int TREE_SIZE = 100000;
+    private static final int LOOKUPS = 1000000;
+
+    @Test
+    public void containsDoesNotAllocate() {
+        for (int splaySize : new int[]{3, 7, 15}) {
+            double bytesPerLookup = allocatedBytesPerLookup(splaySize);
+            assertTrue("SplaySize = " + splaySize + ", allocated bytes per contains: " + bytesPerLookup, bytesPerLookup < 0.01);
+        }
+    }
+
+    @Test
+    public void depthDoesNotAllocate() {
+        Random random = new Random(1);
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        for (int i = 0; i < TREE_SIZE; i++) tree.add(random.nextInt());
+        for (int i = 0; i < 10; i++) tree.depth();
+        long before = allocatedBytes();
+        for (int i = 0; i < 10; i++) tree.depth();
+        long after = allocatedBytes();
+        assertTrue(after - before - measurementOverhead() < 100);
+    }
+
+    private double allocatedBytesPerLookup(int splaySize) {
+        // Box the keys beforehand, so only the tree itself can allocate in the measured loop
+        Random random = new Random(splaySize);
+        Integer[] keys = new Integer[TREE_SIZE];
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(splaySize);
+        for (int i = 0; i < TREE_SIZE; i++) {
+            keys[i] = random.nextInt();
+            tree.add(keys[i]);
+        }
+        int[] lookups = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) lookups[i] = random.nextInt(TREE_SIZE);
+
+        // warm up, so the measurement doesn't include class loading or compilation
+        for (int lookup : lookups) tree.contains(keys[lookup]);
+
+        long before = allocatedBytes();
+        for (int lookup : lookups) tree.contains(keys[lookup]);
+        long after = allocatedBytes();
+        return (double) (after - before - measurementOverhead()) / LOOKUPS;
+    }
+
+    private long measurementOverhead() {
+        long before = allocatedBytes();
+        long after = allocatedBytes();
+        return after - before;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
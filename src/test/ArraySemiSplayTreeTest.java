@@ -0,0 +1,82 @@
+package test;
+
+import org.junit.Test;
+import semisplay.ArraySemiSplayTree;
+import semisplay.SemiSplayTree;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ArraySemiSplayTreeTest {
+
+    private static final int BIG_TEST_AMOUNT = 100000;
+
+    @Test
+    public void addContainsRemoveTest() {
+        ArraySemiSplayTree<Integer> tree = new ArraySemiSplayTree<>(3);
+        assertFalse(tree.contains(5));
+        assertTrue(tree.add(5));
+        assertFalse(tree.add(5));
+        assertTrue(tree.contains(5));
+        assertEquals(1, tree.size());
+        assertTrue(tree.remove(5));
+        assertFalse(tree.remove(5));
+        assertFalse(tree.contains(5));
+        assertEquals(0, tree.size());
+        assertEquals(-1, tree.depth());
+    }
+
+    @Test
+    public void bigTest() {
+        ArraySemiSplayTree<Integer> tree = new ArraySemiSplayTree<>(3, 1);
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.add(i));
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.contains(i));
+        for (int i = 0; i < BIG_TEST_AMOUNT; i += 2) assertTrue(tree.remove(i));
+        assertEquals(BIG_TEST_AMOUNT / 2, tree.size());
+        // these keys reuse the slots of the removed ones
+        for (int i = 0; i < BIG_TEST_AMOUNT; i += 2) assertTrue(tree.add(-i - 1));
+        assertEquals(BIG_TEST_AMOUNT, tree.size());
+        for (int i = 1; i < BIG_TEST_AMOUNT; i += 2) assertTrue(tree.contains(i));
+        for (int i = 0; i < BIG_TEST_AMOUNT; i += 2) assertTrue(tree.contains(-i - 1));
+    }
+
+    @Test
+    public void iteratorTest() {
+        ArraySemiSplayTree<Integer> tree = new ArraySemiSplayTree<>(3);
+        int[] keys = {2, 3, 4, 1, 0};
+        for (int key : keys) tree.add(key);
+        Iterator<Integer> it = tree.iterator();
+        for (int i = 0; i < keys.length; i++) {
+            assertTrue(it.hasNext());
+            assertEquals(i, (int) it.next());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void sameBehaviourAsSemiSplayTreeTest() {
+        Random random = new Random(7);
+        for (int splaySize : new int[]{3, 4, 7, 15}) {
+            SemiSplayTree<Integer> reference = new SemiSplayTree<>(splaySize);
+            ArraySemiSplayTree<Integer> tree = new ArraySemiSplayTree<>(splaySize);
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(500);
+                switch (random.nextInt(3)) {
+                    case 0: assertEquals(reference.add(key), tree.add(key));
+                        break;
+                    case 1: assertEquals(reference.contains(key), tree.contains(key));
+                        break;
+                    default: assertEquals(reference.remove(key), tree.remove(key));
+                }
+                assertEquals(reference.getRoot() == null ? null : reference.getRoot().getKey(), tree.getRootKey());
+                assertEquals(reference.size(), tree.size());
+            }
+            assertEquals(reference.depth(), tree.depth());
+            Iterator<Integer> expected = reference.iterator();
+            for (int key : tree) assertEquals(expected.next(), (Integer) key);
+            assertFalse(expected.hasNext());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package test;
+
+import org.junit.Test;
+import semisplay.ConcurrentSemiSplayTree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentSemiSplayTreeTest {
+
+    private static final int THREADS = 4;
+    private static final int KEYS_PER_THREAD = 20000;
+
+    @Test
+    public void singleThreadTest() {
+        ConcurrentSemiSplayTree<Integer> tree = new ConcurrentSemiSplayTree<>(3);
+        assertTrue(tree.add(5));
+        assertFalse(tree.add(5));
+        assertTrue(tree.contains(5));
+        assertTrue(tree.add(3));
+        assertEquals(2, tree.size());
+        Iterator<Integer> it = tree.iterator();
+        assertEquals(3, (int) it.next());
+        assertEquals(5, (int) it.next());
+        assertFalse(it.hasNext());
+        assertTrue(tree.remove(5));
+        assertFalse(tree.contains(5));
+        assertEquals(0, tree.depth());
+    }
+
+    @Test
+    public void concurrentAddContainsRemoveTest() throws Exception {
+        ConcurrentSemiSplayTree<Integer> tree = new ConcurrentSemiSplayTree<>(3);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            // every thread works on its own keys, while all threads look up each other's keys
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                        int key = i * THREADS + thread;
+                        assertTrue(tree.add(key));
+                        assertTrue(tree.contains(key));
+                        tree.contains(key - 1);
+                    }
+                    for (int i = 0; i < KEYS_PER_THREAD; i += 2) assertTrue(tree.remove(i * THREADS + thread));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(THREADS * KEYS_PER_THREAD / 2, tree.size());
+        int expected = THREADS;
+        for (int key : tree) {
+            assertEquals(expected, key);
+            expected++;
+            if (expected % (2 * THREADS) == 0) expected += THREADS;
+        }
+    }
+
+    @Test
+    public void sampledSplayTest() {
+        ConcurrentSemiSplayTree<Integer> tree = new ConcurrentSemiSplayTree<>(3, 0.1);
+        for (int i = 0; i < KEYS_PER_THREAD; i++) assertTrue(tree.add(i));
+        for (int i = 0; i < KEYS_PER_THREAD; i++) assertTrue(tree.contains(i));
+        assertFalse(tree.contains(-1));
+        assertEquals(KEYS_PER_THREAD, tree.size());
+    }
+}
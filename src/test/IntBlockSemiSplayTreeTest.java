@@ -0,0 +1,95 @@
+package test;
+
+import org.junit.Test;
+import semisplay.IntBlockNode;
+import semisplay.IntBlockSemiSplayTree;
+import semisplay.IntSemiSplayTree;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class IntBlockSemiSplayTreeTest {
+
+    private static final int BIG_TEST_AMOUNT = 100000;
+
+    @Test
+    public void addContainsRemoveTest() {
+        IntBlockSemiSplayTree tree = new IntBlockSemiSplayTree(3);
+        assertTrue(tree.add(5));
+        assertFalse(tree.add(5));
+        assertTrue(tree.contains(5));
+        assertFalse(tree.contains(4));
+        assertTrue(tree.add(Integer.MAX_VALUE));
+        assertTrue(tree.add(Integer.MIN_VALUE));
+        assertTrue(tree.contains(Integer.MAX_VALUE));
+        assertTrue(tree.contains(Integer.MIN_VALUE));
+        assertEquals(3, tree.size());
+        assertTrue(tree.remove(Integer.MAX_VALUE));
+        assertFalse(tree.contains(Integer.MAX_VALUE));
+        assertTrue(tree.remove(5));
+        assertTrue(tree.remove(Integer.MIN_VALUE));
+        assertFalse(tree.remove(5));
+        assertEquals(0, tree.size());
+        assertEquals(-1, tree.depth());
+    }
+
+    @Test
+    public void randomOperationsTest() {
+        for (int splaySize : new int[]{3, 4, 7}) {
+            IntBlockSemiSplayTree tree = new IntBlockSemiSplayTree(splaySize);
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random(splaySize);
+            for (int i = 0; i < BIG_TEST_AMOUNT; i++) {
+                int key = random.nextInt(5000);
+                switch (random.nextInt(3)) {
+                    case 0: assertEquals(expected.add(key), tree.add(key));
+                        break;
+                    case 1: assertEquals(expected.contains(key), tree.contains(key));
+                        break;
+                    default: assertEquals(expected.remove(key), tree.remove(key));
+                }
+            }
+            assertEquals(expected.size(), tree.size());
+            assertEquals(tree.getBlockCount(), assertBlocks(tree.getRoot(), Long.MIN_VALUE, Long.MAX_VALUE));
+            PrimitiveIterator.OfInt it = tree.iterator();
+            for (int key : expected) assertEquals(key, it.nextInt());
+            assertFalse(it.hasNext());
+        }
+    }
+
+    @Test
+    public void fewerNodesTest() {
+        IntBlockSemiSplayTree blockTree = new IntBlockSemiSplayTree(3);
+        IntSemiSplayTree tree = new IntSemiSplayTree(3);
+        Random random = new Random(1);
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) {
+            int key = random.nextInt();
+            assertEquals(tree.add(key), blockTree.add(key));
+        }
+        // blocks are split in half when they are full, so they are at least half full
+        assertTrue(blockTree.getBlockCount() <= 2 * blockTree.size() / 16 + 1);
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) {
+            int key = random.nextInt();
+            assertEquals(tree.contains(key), blockTree.contains(key));
+        }
+        assertTrue(blockTree.depth() < tree.depth());
+    }
+
+    /**
+     * Checks that every block is sorted, not empty and lies between the blocks around it.
+     * @return the amount of blocks in the subtree.
+     */
+    private int assertBlocks(IntBlockNode block, long lowerBound, long upperBound) {
+        if (block == null) return 0;
+        assertTrue(block.getCount() > 0);
+        assertEquals(block.getMin(), block.getKey(0));
+        assertEquals(block.getMax(), block.getKey(block.getCount() - 1));
+        assertTrue(lowerBound < block.getMin() && block.getMax() < upperBound);
+        for (int i = 1; i < block.getCount(); i++) assertTrue(block.getKey(i - 1) < block.getKey(i));
+        return 1 + assertBlocks(block.getLeftChild(), lowerBound, block.getMin())
+                + assertBlocks(block.getRightChild(), block.getMax(), upperBound);
+    }
+}
@@ -0,0 +1,85 @@
+package test;
+
+import java.util.Arrays;
+
+/**
+ * Counts latencies (in nanoseconds) in log-linear buckets, in the style of HdrHistogram:
+ * values below SUB_BUCKETS are counted exactly, larger values in buckets that are less than 1/64 of their value wide.
+ * Recording a value is a few shifts and an array increment, so it can be done around every single operation.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS + 1) * HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private long maxValue;
+    private double total;
+
+    void record(long value) {
+        if (value < 0) value = 0;
+        this.counts[index(value)]++;
+        this.totalCount++;
+        this.total += value;
+        if (value > this.maxValue) this.maxValue = value;
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) this.counts[i] += other.counts[i];
+        this.totalCount += other.totalCount;
+        this.total += other.total;
+        if (other.maxValue > this.maxValue) this.maxValue = other.maxValue;
+    }
+
+    void reset() {
+        Arrays.fill(this.counts, 0);
+        this.totalCount = 0;
+        this.total = 0;
+        this.maxValue = 0;
+    }
+
+    long getTotalCount() { return totalCount; }
+
+    long getMaxValue() { return maxValue; }
+
+    double getMean() { return totalCount == 0 ? 0 : total / totalCount; }
+
+    /**
+     * @param percentile, between 0 and 100.
+     * @return the largest value that is counted in the same bucket as the value at the given percentile, 0 if nothing was recorded.
+     */
+    long getValueAtPercentile(double percentile) {
+        if (this.totalCount == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) return Math.min(highestValue(i), this.maxValue);
+        }
+        return this.maxValue;
+    }
+
+    /**
+     * One line with fixed keys in a fixed order and plain numbers in ns, so reports of two versions can be diffed.
+     */
+    String summary() {
+        return "count=" + totalCount + " mean=" + Math.round(getMean()) + " p50=" + getValueAtPercentile(50)
+                + " p99=" + getValueAtPercentile(99) + " p99.9=" + getValueAtPercentile(99.9) + " max=" + maxValue;
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        // shift such that value >> shift is in [HALF, SUB_BUCKETS)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >> shift) - HALF;
+    }
+
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long lowest = (long) ((index - SUB_BUCKETS) % HALF + HALF) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,87 @@
+package test;
+
+import org.junit.Test;
+import semisplay.LongSemiSplayTree;
+import semisplay.MappedSemiSplayTree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MappedSemiSplayTreeTest {
+
+    @Test
+    public void reopenTest() throws IOException {
+        Path file = Files.createTempFile("semisplay", ".tree");
+        try {
+            try (MappedSemiSplayTree tree = MappedSemiSplayTree.create(file, 3)) {
+                assertTrue(tree.add(5));
+                assertTrue(tree.add(3));
+                assertTrue(tree.add(8));
+                assertFalse(tree.add(8));
+                assertTrue(tree.remove(3));
+            }
+            try (MappedSemiSplayTree tree = MappedSemiSplayTree.open(file)) {
+                assertEquals(2, tree.size());
+                assertEquals(3, tree.getSplaySize());
+                assertTrue(tree.contains(5));
+                assertTrue(tree.contains(8));
+                assertFalse(tree.contains(3));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void reopenKeepsShapeTest() throws IOException {
+        Path file = Files.createTempFile("semisplay", ".tree");
+        Random random = new Random(11);
+        LongSemiSplayTree reference = new LongSemiSplayTree(5);
+        try {
+            // every round reopens the file and continues where the previous round stopped,
+            // if the shape of the tree would not be restored the depths would no longer match
+            MappedSemiSplayTree.create(file, 5).close();
+            for (int round = 0; round < 5; round++) {
+                try (MappedSemiSplayTree tree = MappedSemiSplayTree.open(file)) {
+                    assertEquals(reference.depth(), tree.depth());
+                    for (int i = 0; i < 20000; i++) {
+                        long key = random.nextInt(2000);
+                        switch (random.nextInt(3)) {
+                            case 0: assertEquals(reference.add(key), tree.add(key));
+                                break;
+                            case 1: assertEquals(reference.contains(key), tree.contains(key));
+                                break;
+                            default: assertEquals(reference.remove(key), tree.remove(key));
+                        }
+                    }
+                    assertEquals(reference.size(), tree.size());
+                    assertEquals(reference.depth(), tree.depth());
+                }
+            }
+            try (MappedSemiSplayTree tree = MappedSemiSplayTree.open(file)) {
+                PrimitiveIterator.OfLong expected = reference.iterator();
+                PrimitiveIterator.OfLong actual = tree.iterator();
+                while (expected.hasNext()) assertEquals(expected.nextLong(), actual.nextLong());
+                assertFalse(actual.hasNext());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void openInvalidFileTest() throws IOException {
+        Path file = Files.createTempFile("semisplay", ".tree");
+        try {
+            Files.write(file, new byte[100]);
+            MappedSemiSplayTree.open(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
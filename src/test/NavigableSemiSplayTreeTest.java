@@ -0,0 +1,192 @@
+package test;
+
+import org.junit.Test;
+import semisplay.NavigableSearchTree;
+import semisplay.SemiSplayTree;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.*;
+
+public class NavigableSemiSplayTreeTest {
+
+    @Test
+    public void nearestTest() {
+        NavigableSearchTree<Integer> tree = new SemiSplayTree<>(3);
+        for (int key = 10; key <= 50; key += 10) tree.add(key);
+        assertEquals(30, (int) tree.floor(30));
+        assertEquals(30, (int) tree.floor(35));
+        assertNull(tree.floor(5));
+        assertEquals(30, (int) tree.ceiling(30));
+        assertEquals(40, (int) tree.ceiling(35));
+        assertNull(tree.ceiling(55));
+        assertEquals(20, (int) tree.lower(30));
+        assertNull(tree.lower(10));
+        assertEquals(40, (int) tree.higher(30));
+        assertNull(tree.higher(50));
+        assertEquals(10, (int) tree.first());
+        assertEquals(50, (int) tree.last());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void firstEmptyTest() {
+        new SemiSplayTree<Integer>(3).first();
+    }
+
+    @Test
+    public void pollTest() {
+        NavigableSearchTree<Integer> tree = new SemiSplayTree<>(3);
+        assertNull(tree.pollFirst());
+        for (int key = 0; key < 100; key++) tree.add(key * 7 % 100);
+        for (int key = 0; key < 50; key++) assertEquals(key, (int) tree.pollFirst());
+        for (int key = 99; key >= 50; key--) assertEquals(key, (int) tree.pollLast());
+        assertEquals(0, tree.size());
+        assertNull(tree.pollLast());
+    }
+
+    @Test
+    public void rankSelectTest() {
+        NavigableSearchTree<Integer> tree = new SemiSplayTree<>(3);
+        for (int key = 0; key < 1000; key++) tree.add(2 * key);
+        for (int key = 0; key < 1000; key++) {
+            assertEquals(key, tree.rank(2 * key));
+            assertEquals(key + 1, tree.rank(2 * key + 1));
+            assertEquals(2 * key, (int) tree.select(key));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void selectOutOfBoundsTest() {
+        NavigableSearchTree<Integer> tree = new SemiSplayTree<>(3);
+        tree.add(1);
+        tree.select(1);
+    }
+
+    @Test
+    public void randomOperationsTest() {
+        for (int splaySize : new int[]{3, 4, 7}) {
+            SemiSplayTree<Integer> tree = new SemiSplayTree<>(splaySize);
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random(splaySize);
+            for (int i = 0; i < 50000; i++) {
+                int key = random.nextInt(2000);
+                switch (random.nextInt(8)) {
+                    case 0: assertEquals(expected.add(key), tree.add(key));
+                        break;
+                    case 1: assertEquals(expected.remove(key), tree.remove(key));
+                        break;
+                    case 2: assertEquals(expected.floor(key), tree.floor(key));
+                        assertEquals(expected.higher(key), tree.higher(key));
+                        break;
+                    case 3: assertEquals(expected.ceiling(key), tree.ceiling(key));
+                        assertEquals(expected.lower(key), tree.lower(key));
+                        break;
+                    case 4: assertEquals(expected.headSet(key).size(), tree.rank(key));
+                        break;
+                    case 5: if (!expected.isEmpty()) {
+                            int k = random.nextInt(expected.size());
+                            assertEquals(expected.toArray()[k], tree.select(k));
+                        }
+                        break;
+                    case 6: tree.addAll(java.util.Arrays.asList(key, key + 1, key + 2));
+                        expected.add(key);
+                        expected.add(key + 1);
+                        expected.add(key + 2);
+                        break;
+                    default: Iterator<Integer> range = tree.subRange(key, key + 100);
+                        for (int expectedKey : expected.subSet(key, key + 100)) assertEquals(expectedKey, (int) range.next());
+                        assertFalse(range.hasNext());
+                }
+                assertEquals(expected.size(), tree.size());
+            }
+        }
+    }
+
+    @Test
+    public void descendingIteratorTest() {
+        NavigableSearchTree<Integer> tree = new SemiSplayTree<>(3);
+        assertFalse(tree.descendingIterator().hasNext());
+        for (int key = 0; key < 1000; key++) tree.add(key * 7 % 1000);
+        Iterator<Integer> it = tree.descendingIterator();
+        for (int key = 999; key >= 0; key--) assertEquals(key, (int) it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void failFastIteratorTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        for (int key = 0; key < 100; key++) tree.add(key);
+        Iterator<Integer> it = tree.iterator();
+        it.next();
+        // a lookup splays, which changes the tree
+        tree.contains(50);
+        try {
+            it.next();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+            // the splay is detected
+        }
+        it = tree.descendingIterator();
+        it.next();
+        tree.add(100);
+        try {
+            it.next();
+            fail();
+        } catch (ConcurrentModificationException expected) {
+            // the add is detected
+        }
+        // a lookup of a key that isn't there doesn't change the tree
+        it = tree.iterator();
+        tree.contains(-1);
+        assertEquals(0, (int) it.next());
+    }
+
+    @Test
+    public void spliteratorTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        long expectedSum = 0;
+        for (int key = 0; key < 100000; key++) {
+            tree.add(key * 7919 % 100000);
+            expectedSum += key;
+        }
+        Spliterator<Integer> spliterator = tree.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.SIZED));
+        assertNull(spliterator.getComparator());
+        assertEquals(100000, spliterator.getExactSizeIfKnown());
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(50000, prefix.estimateSize());
+        assertEquals(50000, spliterator.estimateSize());
+        int[] next = {0};
+        prefix.forEachRemaining(key -> assertEquals(next[0]++, (int) key));
+        assertTrue(spliterator.tryAdvance(key -> assertEquals(50000, (int) key)));
+        assertNull(spliterator.trySplit());
+
+        assertEquals(expectedSum, StreamSupport.stream(tree.spliterator(), true).mapToLong(Integer::longValue).sum());
+        List<Integer> keys = StreamSupport.stream(tree.spliterator(), true).collect(Collectors.toList());
+        for (int key = 0; key < 100000; key++) assertEquals(key, (int) keys.get(key));
+    }
+
+    @Test
+    public void comparatorSpliteratorTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3, Comparator.reverseOrder());
+        for (int key = 0; key < 10; key++) tree.add(key * 7 % 10);
+        Spliterator<Integer> spliterator = tree.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED));
+        assertNotNull(spliterator.getComparator());
+        // the stream knows the keys are sorted in reverse, so sorted() still has to sort them
+        assertEquals(Arrays.asList(9, 8, 7, 6, 5, 4, 3, 2, 1, 0), StreamSupport.stream(tree.spliterator(), false).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), StreamSupport.stream(tree.spliterator(), false).sorted().collect(Collectors.toList()));
+        assertEquals(Arrays.asList(9, 8, 7, 6, 5, 4, 3, 2, 1, 0),
+                StreamSupport.stream(tree.spliterator(), true).sorted(Comparator.reverseOrder()).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,86 @@
+package test;
+
+import org.junit.Test;
+import semisplay.LongSemiSplayTree;
+import semisplay.OffHeapSemiSplayTree;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OffHeapSemiSplayTreeTest {
+
+    private static final int BIG_TEST_AMOUNT = 200000;
+
+    @Test
+    public void addContainsRemoveTest() {
+        try (OffHeapSemiSplayTree tree = new OffHeapSemiSplayTree(3)) {
+            assertFalse(tree.contains(5));
+            assertTrue(tree.add(5));
+            assertFalse(tree.add(5));
+            assertTrue(tree.add(Long.MIN_VALUE));
+            assertTrue(tree.add(Long.MAX_VALUE));
+            assertTrue(tree.contains(Long.MIN_VALUE));
+            assertEquals(3, tree.size());
+            assertTrue(tree.remove(5));
+            assertFalse(tree.contains(5));
+            assertEquals(2, tree.size());
+        }
+    }
+
+    @Test
+    public void bigTest() {
+        try (OffHeapSemiSplayTree tree = new OffHeapSemiSplayTree(7)) {
+            for (long i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.add(i * 7));
+            for (long i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.contains(i * 7));
+            long allocated = tree.allocatedBytes();
+            for (long i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.remove(i * 7));
+            assertEquals(0, tree.size());
+            assertEquals(-1, tree.depth());
+            // the removed slots are reused
+            for (long i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.add(-i));
+            assertEquals(allocated, tree.allocatedBytes());
+            long expected = -BIG_TEST_AMOUNT + 1;
+            PrimitiveIterator.OfLong it = tree.iterator();
+            while (it.hasNext()) assertEquals(expected++, it.nextLong());
+            assertEquals(1, expected);
+        }
+    }
+
+    @Test
+    public void sameBehaviourAsLongSemiSplayTreeTest() {
+        Random random = new Random(3);
+        for (int splaySize : new int[]{3, 5, 15}) {
+            LongSemiSplayTree reference = new LongSemiSplayTree(splaySize);
+            try (OffHeapSemiSplayTree tree = new OffHeapSemiSplayTree(splaySize)) {
+                for (int i = 0; i < 20000; i++) {
+                    long key = random.nextInt(500);
+                    switch (random.nextInt(3)) {
+                        case 0: assertEquals(reference.add(key), tree.add(key));
+                            break;
+                        case 1: assertEquals(reference.contains(key), tree.contains(key));
+                            break;
+                        default: assertEquals(reference.remove(key), tree.remove(key));
+                    }
+                    assertEquals(reference.size(), tree.size());
+                }
+                assertEquals(reference.depth(), tree.depth());
+                PrimitiveIterator.OfLong expected = reference.iterator();
+                PrimitiveIterator.OfLong actual = tree.iterator();
+                while (expected.hasNext()) assertEquals(expected.nextLong(), actual.nextLong());
+                assertFalse(actual.hasNext());
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedTreeTest() {
+        OffHeapSemiSplayTree tree = new OffHeapSemiSplayTree(3);
+        tree.add(1);
+        tree.close();
+        tree.close();
+        assertEquals(0, tree.allocatedBytes());
+        tree.contains(1);
+    }
+}
@@ -1,24 +1,38 @@
 package test;
 
 import org.junit.Test;
+import semisplay.ConcurrentSemiSplayTree;
+import semisplay.KeyCodec;
 import semisplay.SemiSplayTree;
+import semisplay.SemiSplayTreeSerializer;
+import semisplay.TopDownSemiSplayTree;
+import semisplay.TraceRecorder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class PerformanceTest {
 
     @Test
     public void mainPerformanceTest() throws IOException {
-        Properties properties = new Properties();
-        InputStream inputStream = getClass().getResourceAsStream("../resources/testVariables.properties");
-        properties.load(inputStream);
-        List<Integer> randomNumbers = new ArrayList<>();
-        String[] randomNumbersString = properties.getProperty("randomNumbers").split(",");
-        for (String s : randomNumbersString) randomNumbers.add(Integer.parseInt(s));
+        Properties properties = loadProperties();
+        List<Integer> randomNumbers = loadRandomNumbers(properties);
         String[] testNumbersString = properties.getProperty("testNumbers").split(",");
         int[] testNumbers = new int[4];
         for (int i = 0; i < 4; i++) testNumbers[i] = Integer.parseInt(testNumbersString[i]);
@@ -67,6 +81,198 @@ public class PerformanceTest {
         System.out.println("SplaySize = 3, non optimal scenario, average time: "+totalTime/amountOfTests);
     }
 
+    @Test
+    public void concurrentPerformanceTest() throws Exception {
+        List<Integer> randomNumbers = loadRandomNumbers(loadProperties());
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (double splayProbability : new double[]{1.0, 0.1}) {
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                double throughput = concurrentPerformanceTest(randomNumbers, threads, splayProbability);
+                System.out.println("Threads = " + threads + ", splayProbability = " + splayProbability
+                        + ", throughput: " + Math.round(throughput) + " contains/s");
+            }
+        }
+    }
+
+    /**
+     * Measures the latency of every single operation of a mix of contains, add and remove per splaySize,
+     * once back-to-back and once at a fixed rate of -Dsemisplay.rate operations per second.
+     * By default the rate is half of the back-to-back throughput of the warm-up, a rate the tree can keep up with.
+     * Back-to-back only the service time can be measured: while one slow operation (a deep node and a long splay) runs,
+     * the operations that should have started in the meantime are simply not issued, so the tail looks better than it is.
+     * At a fixed rate every operation has an intended start time, and its response time is measured from that time,
+     * so the waiting caused by a slow operation ends up in the histogram, which corrects this coordinated omission.
+     * The report has one line per splaySize, mode, latency and operation, see LatencyHistogram.summary,
+     * and is also written to -Dsemisplay.latency.out if given, so the reports of two versions can be diffed.
+     */
+    @Test
+    public void latencyPerformanceTest() throws IOException {
+        List<Integer> randomNumbers = loadRandomNumbers(loadProperties());
+        int operations = Integer.getInteger("semisplay.operations", 2000000);
+        Random random = new Random(24);
+        int[] operationTypes = new int[operations];
+        Integer[] keys = new Integer[operations];
+        for (int i = 0; i < operations; i++) {
+            int draw = random.nextInt(10);
+            operationTypes[i] = draw == 0 ? TraceRecorder.ADD : draw == 1 ? TraceRecorder.REMOVE : TraceRecorder.CONTAINS;
+            keys[i] = randomNumbers.get(random.nextInt(randomNumbers.size()));
+        }
+
+        // warm up, so the first splaySize isn't measured while the JIT compiler is still busy
+        Timer timer = new Timer();
+        timer.start();
+        latencyPerformanceTest(randomNumbers, operationTypes, keys, 3, 0, newHistograms(), newHistograms());
+        timer.end();
+        long rate = Long.getLong("semisplay.rate", Math.round(operations / timer.delta() / 2));
+
+        // the rate goes on a line of its own, so the other lines stay the same when only the rate changes
+        StringBuilder report = new StringBuilder("rate=").append(rate).append('\n');
+        for (int splaySize : new int[]{3, 7, 15}) {
+            LatencyHistogram[] service = newHistograms();
+            LatencyHistogram[] response = newHistograms();
+            latencyPerformanceTest(randomNumbers, operationTypes, keys, splaySize, 0, service, new LatencyHistogram[0]);
+            appendReport(report, "splaySize=" + splaySize + " mode=back-to-back latency=service", service);
+            service = newHistograms();
+            latencyPerformanceTest(randomNumbers, operationTypes, keys, splaySize, rate, service, response);
+            appendReport(report, "splaySize=" + splaySize + " mode=fixed-rate latency=service", service);
+            appendReport(report, "splaySize=" + splaySize + " mode=fixed-rate latency=response", response);
+        }
+        System.out.print(report);
+        String out = System.getProperty("semisplay.latency.out");
+        if (out != null) Files.write(Paths.get(out), report.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Replays the operations on a new tree.
+     * @param rate, the amount of operations per second, 0 to start every operation as soon as the previous one is done.
+     * @param service, the histograms per operation for the time from the actual start of an operation to its end.
+     * @param response, the histograms per operation for the time from the intended start of an operation to its end,
+     *                  only used if rate is not 0.
+     */
+    private void latencyPerformanceTest(List<Integer> randomNumbers, int[] operationTypes, Integer[] keys, int splaySize,
+                                        long rate, LatencyHistogram[] service, LatencyHistogram[] response) {
+        SemiSplayTree<Integer> performanceTree = new SemiSplayTree<>(splaySize);
+        for (int number : randomNumbers) performanceTree.add(number);
+        double interval = rate == 0 ? 0 : 1e9 / rate;
+        long start = System.nanoTime();
+        for (int i = 0; i < keys.length; i++) {
+            long intended = start + (long) (i * interval);
+            // spin rather than sleep, sleeping is far too coarse for intervals of a microsecond
+            while (rate != 0 && System.nanoTime() < intended) {
+                // wait for the intended start time
+            }
+            long begin = System.nanoTime();
+            switch (operationTypes[i]) {
+                case TraceRecorder.ADD: performanceTree.add(keys[i]);
+                    break;
+                case TraceRecorder.CONTAINS: performanceTree.contains(keys[i]);
+                    break;
+                default: performanceTree.remove(keys[i]);
+            }
+            long end = System.nanoTime();
+            service[operationTypes[i]].record(end - begin);
+            if (rate != 0) response[operationTypes[i]].record(end - intended);
+        }
+    }
+
+    private static LatencyHistogram[] newHistograms() {
+        return new LatencyHistogram[]{new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+    }
+
+    private static void appendReport(StringBuilder report, String prefix, LatencyHistogram[] histograms) {
+        for (int operation = 0; operation < histograms.length; operation++) {
+            report.append(prefix).append(" operation=").append(TraceReplay.OPERATIONS[operation])
+                    .append(' ').append(histograms[operation].summary()).append('\n');
+        }
+    }
+
+    /**
+     * Writes a splayed tree of 1000000 keys with SemiSplayTreeSerializer and measures how long it takes to restore it.
+     */
+    @Test
+    public void serializerPerformanceTest() throws IOException {
+        int keys = 1000000;
+        Long[] sortedKeys = new Long[keys];
+        for (int i = 0; i < keys; i++) sortedKeys[i] = 3L * i;
+        SemiSplayTree<Long> tree = SemiSplayTree.fromSorted(Arrays.asList(sortedKeys), 3);
+        Random random = new Random(22);
+        for (int i = 0; i < 100000; i++) tree.contains(3L * random.nextInt(keys));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SemiSplayTreeSerializer.write(tree, Channels.newChannel(out), KeyCodec.longs());
+        byte[] bytes = out.toByteArray();
+
+        Timer timer = new Timer();
+        int amountOfTests = 10;
+        double totalTime = 0;
+        for (int i = 0; i < amountOfTests; i++) {
+            timer.start();
+            SemiSplayTreeSerializer.read(Channels.newChannel(new ByteArrayInputStream(bytes)), KeyCodec.longs());
+            timer.end();
+            totalTime += timer.delta();
+        }
+        System.out.println("Restore of " + keys + " keys (" + bytes.length + " bytes), average time: " + totalTime / amountOfTests);
+    }
+
+    /**
+     * Replays a recorded trace of int keys, e.g. one recorded from production traffic with TraceRecorder,
+     * against SemiSplayTrees with different splaySizes and the baselines.
+     * Run with -Dsemisplay.trace=path/to/trace, without it there is nothing to replay.
+     */
+    @Test
+    public void tracePerformanceTest() throws IOException {
+        String trace = System.getProperty("semisplay.trace");
+        if (trace == null) return;
+        Path path = Paths.get(trace);
+        for (int splaySize : new int[]{3, 5, 7, 11, 15}) {
+            System.out.println(TraceReplay.replay("tree=SemiSplayTree splaySize=" + splaySize, path, KeyCodec.integers(), new SemiSplayTree<>(splaySize)));
+        }
+        System.out.println(TraceReplay.replay("tree=TopDownSemiSplayTree splaySize=3", path, KeyCodec.integers(), new TopDownSemiSplayTree<>(3)));
+        System.out.println(TraceReplay.replay("tree=TreeSet", path, KeyCodec.integers(), TraceReplay.treeSet()));
+    }
+
+    private Properties loadProperties() throws IOException {
+        Properties properties = new Properties();
+        InputStream inputStream = getClass().getResourceAsStream("../resources/testVariables.properties");
+        properties.load(inputStream);
+        return properties;
+    }
+
+    private List<Integer> loadRandomNumbers(Properties properties) {
+        List<Integer> randomNumbers = new ArrayList<>();
+        String[] randomNumbersString = properties.getProperty("randomNumbers").split(",");
+        for (String s : randomNumbersString) randomNumbers.add(Integer.parseInt(s));
+        return randomNumbers;
+    }
+
+    private double concurrentPerformanceTest(List<Integer> randomNumbers, int threads, double splayProbability) throws Exception {
+        int operationsPerThread = 2000000;
+        ConcurrentSemiSplayTree<Integer> performanceTree = new ConcurrentSemiSplayTree<>(3, splayProbability);
+        for (int number : randomNumbers) performanceTree.add(number);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                // pick the keys beforehand, so the measured loop only does lookups
+                Integer[] keys = new Integer[operationsPerThread];
+                for (int i = 0; i < operationsPerThread; i++) keys[i] = randomNumbers.get((int) (Math.random() * randomNumbers.size()));
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (Integer key : keys) performanceTree.contains(key);
+                    return null;
+                }));
+            }
+            Timer timer = new Timer();
+            timer.start();
+            start.countDown();
+            for (Future<?> future : futures) future.get();
+            timer.end();
+            return threads * operationsPerThread / timer.delta();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private void performanceTest(List<Integer> randomNumbers, int[] testNumbers, int splaySize) {
         SemiSplayTree<Integer> performanceTree = new SemiSplayTree<>(splaySize);
         for (int number : randomNumbers) performanceTree.add(number);
@@ -0,0 +1,133 @@
+package test;
+
+import org.junit.Test;
+import semisplay.IntNode;
+import semisplay.IntSemiSplayTree;
+import semisplay.LongNode;
+import semisplay.LongSemiSplayTree;
+import semisplay.Node;
+import semisplay.SemiSplayTree;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveSemiSplayTreeTest {
+
+    private static final int BIG_TEST_AMOUNT = 100000;
+
+    @Test
+    public void intAddContainsRemoveTest() {
+        IntSemiSplayTree tree = new IntSemiSplayTree(0, 3);
+        assertTrue(tree.add(5));
+        assertFalse(tree.add(5));
+        assertTrue(tree.contains(5));
+        assertFalse(tree.contains(4));
+        assertEquals(2, tree.size());
+        assertTrue(tree.remove(0));
+        assertFalse(tree.remove(0));
+        assertFalse(tree.contains(0));
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    public void longAddContainsRemoveTest() {
+        LongSemiSplayTree tree = new LongSemiSplayTree(3);
+        long big = 1L << 40;
+        assertTrue(tree.add(big));
+        assertTrue(tree.add(-big));
+        assertFalse(tree.add(big));
+        assertTrue(tree.contains(big));
+        assertFalse(tree.contains(big + 1));
+        assertTrue(tree.remove(-big));
+        assertFalse(tree.contains(-big));
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    public void intBigTest() {
+        IntSemiSplayTree tree = new IntSemiSplayTree(3);
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.add(i));
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.contains(i));
+        assertEquals(BIG_TEST_AMOUNT, tree.size());
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.remove(i));
+        assertEquals(0, tree.size());
+        assertEquals(-1, tree.depth());
+    }
+
+    @Test
+    public void intIteratorTest() {
+        IntSemiSplayTree tree = new IntSemiSplayTree(3);
+        int[] keys = {2, 3, 4, 1, 0};
+        for (int key : keys) tree.add(key);
+        PrimitiveIterator.OfInt it = tree.iterator();
+        for (int i = 0; i < keys.length; i++) {
+            assertTrue(it.hasNext());
+            assertEquals(i, it.nextInt());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void longIteratorTest() {
+        LongSemiSplayTree tree = new LongSemiSplayTree(7);
+        for (long i = 100; i > 0; i--) tree.add(i * 3);
+        long expected = 3;
+        PrimitiveIterator.OfLong it = tree.iterator();
+        while (it.hasNext()) {
+            assertEquals(expected, it.nextLong());
+            expected += 3;
+        }
+        assertEquals(303, expected);
+    }
+
+    @Test
+    public void sameShapeAsSemiSplayTreeTest() {
+        Random random = new Random(42);
+        for (int splaySize : new int[]{3, 4, 7, 15}) {
+            SemiSplayTree<Integer> reference = new SemiSplayTree<>(splaySize);
+            IntSemiSplayTree intTree = new IntSemiSplayTree(splaySize);
+            LongSemiSplayTree longTree = new LongSemiSplayTree(splaySize);
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(500);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        boolean added = reference.add(key);
+                        assertEquals(added, intTree.add(key));
+                        assertEquals(added, longTree.add(key));
+                        break;
+                    case 1:
+                        boolean found = reference.contains(key);
+                        assertEquals(found, intTree.contains(key));
+                        assertEquals(found, longTree.contains(key));
+                        break;
+                    default:
+                        boolean removed = reference.remove(key);
+                        assertEquals(removed, intTree.remove(key));
+                        assertEquals(removed, longTree.remove(key));
+                }
+                assertEquals(shape(reference.getRoot()), shape(intTree.getRoot()));
+                assertEquals(shape(reference.getRoot()), shape(longTree.getRoot()));
+            }
+            assertEquals(reference.size(), intTree.size());
+            assertEquals(reference.depth(), intTree.depth());
+            assertEquals(reference.depth(), longTree.depth());
+        }
+    }
+
+    private static String shape(Node<Integer> node) {
+        if (node == null) return ".";
+        return "(" + shape(node.getLeftChild()) + node.getKey() + shape(node.getRightChild()) + ")";
+    }
+
+    private static String shape(IntNode node) {
+        if (node == null) return ".";
+        return "(" + shape(node.getLeftChild()) + node.getKey() + shape(node.getRightChild()) + ")";
+    }
+
+    private static String shape(LongNode node) {
+        if (node == null) return ".";
+        return "(" + shape(node.getLeftChild()) + node.getKey() + shape(node.getRightChild()) + ")";
+    }
+}
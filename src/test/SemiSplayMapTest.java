@@ -0,0 +1,174 @@
+package test;
+
+import org.junit.Test;
+import semisplay.SemiSplayMap;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class SemiSplayMapTest {
+
+    @Test
+    public void getPutRemoveTest() {
+        SemiSplayMap<Integer, String> map = new SemiSplayMap<>(3);
+        assertNull(map.put(5, "five"));
+        assertEquals("five", map.put(5, "FIVE"));
+        assertNull(map.put(3, "three"));
+        assertEquals("FIVE", map.get(5));
+        assertNull(map.get(4));
+        assertTrue(map.containsKey(3));
+        assertEquals(2, map.size());
+        assertEquals("three", map.remove(3));
+        assertNull(map.remove(3));
+        assertEquals(1, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void computeIfAbsentAndMergeTest() {
+        SemiSplayMap<Integer, Integer> map = new SemiSplayMap<>(3);
+        assertEquals(10, (int) map.computeIfAbsent(1, key -> key * 10));
+        assertEquals(10, (int) map.computeIfAbsent(1, key -> key * 20));
+        // a null value doesn't leave an empty node behind
+        assertNull(map.computeIfAbsent(2, key -> null));
+        assertFalse(map.containsKey(2));
+        assertEquals(1, map.size());
+        try {
+            map.computeIfAbsent(3, key -> { throw new IllegalStateException(); });
+            fail();
+        } catch (IllegalStateException expected) {
+            assertFalse(map.containsKey(3));
+        }
+
+        for (int i = 0; i < 10; i++) map.merge(i % 3, 1, Integer::sum);
+        assertEquals(13, (int) map.get(1));
+        assertEquals(4, (int) map.get(0));
+        assertEquals(3, (int) map.get(2));
+        assertNull(map.merge(2, 0, (a, b) -> null));
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test
+    public void getSplaysTest() {
+        SemiSplayMap<Integer, Integer> map = new SemiSplayMap<>(3);
+        for (int i = 0; i < 1000; i++) map.put(i, i);
+        // repeatedly reading the same keys makes the tree shallow around them
+        for (int round = 0; round < 20; round++) {
+            for (int key = 0; key < 1000; key += 250) assertEquals(key, (int) map.get(key));
+        }
+        assertTrue(map.depth() < 1000);
+    }
+
+    @Test
+    public void randomOperationsTest() {
+        Random random = new Random(18);
+        for (int splaySize : new int[]{3, 5, 7}) {
+            SemiSplayMap<Integer, Integer> map = new SemiSplayMap<>(splaySize);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(500);
+                switch (random.nextInt(6)) {
+                    case 0: assertEquals(expected.put(key, i), map.put(key, i));
+                        break;
+                    case 1: assertEquals(expected.remove(key), map.remove(key));
+                        break;
+                    case 2: assertEquals(expected.get(key), map.get(key));
+                        break;
+                    case 3: assertEquals(expected.merge(key, i, Integer::sum), map.merge(key, i, Integer::sum));
+                        break;
+                    case 4: assertEquals(expected.floorEntry(key), map.floorEntry(key));
+                        assertEquals(expected.higherKey(key), map.higherKey(key));
+                        break;
+                    default: assertEquals(expected.computeIfAbsent(key, k -> -k), map.computeIfAbsent(key, k -> -k));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertEquals(expected, map);
+            assertEquals(expected.toString(), map.toString());
+            assertEquals(expected.firstEntry(), map.firstEntry());
+            assertEquals(expected.lastEntry(), map.lastEntry());
+        }
+    }
+
+    @Test
+    public void viewsTest() {
+        SemiSplayMap<Integer, Integer> map = new SemiSplayMap<>(3);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int key = 0; key < 100; key += 2) {
+            map.put(key, key);
+            expected.put(key, key);
+        }
+        assertViewEquals(expected.descendingMap(), map.descendingMap());
+        assertViewEquals(expected.subMap(10, true, 30, false), map.subMap(10, true, 30, false));
+        assertViewEquals(expected.subMap(11, false, 31, true), map.subMap(11, false, 31, true));
+        assertViewEquals(expected.headMap(20, true), map.headMap(20, true));
+        assertViewEquals(expected.tailMap(91, false), map.tailMap(91, false));
+        assertViewEquals(expected.descendingMap().headMap(50, false), map.descendingMap().headMap(50, false));
+        assertViewEquals(expected.descendingMap().subMap(60, true, 40, true), map.descendingMap().subMap(60, true, 40, true));
+        assertViewEquals(expected.subMap(20, true, 80, false).descendingMap().tailMap(30, true), map.subMap(20, true, 80, false).descendingMap().tailMap(30, true));
+        assertEquals(expected.descendingKeySet().headSet(10), map.descendingKeySet().headSet(10));
+
+        try {
+            map.subMap(10, 20).put(25, 25);
+            fail();
+        } catch (IllegalArgumentException expectedException) {
+            assertFalse(map.containsKey(25));
+        }
+        try {
+            map.headMap(20).headMap(30);
+            fail();
+        } catch (IllegalArgumentException expectedException) {
+            // 30 is outside of the head map
+        }
+
+        // changes through a view write through to the map
+        map.subMap(10, 20).put(11, 11);
+        assertEquals(11, (int) map.get(11));
+        map.subMap(10, 20).clear();
+        assertEquals(20, (int) map.ceilingKey(10));
+        assertEquals(98, (int) map.headMap(99, false).pollLastEntry().getKey());
+        assertFalse(map.containsKey(98));
+    }
+
+    @Test
+    public void iteratorRemoveTest() {
+        SemiSplayMap<Integer, Integer> map = new SemiSplayMap<>(3);
+        for (int key = 0; key < 1000; key++) map.put(key * 37 % 1000, key);
+        Iterator<Map.Entry<Integer, Integer>> it = map.entrySet().iterator();
+        int expectedKey = 0;
+        while (it.hasNext()) {
+            Map.Entry<Integer, Integer> entry = it.next();
+            assertEquals(expectedKey++, (int) entry.getKey());
+            if (entry.getKey() % 2 == 0) it.remove();
+            else entry.setValue(-entry.getKey());
+        }
+        assertEquals(1000, expectedKey);
+        assertEquals(500, map.size());
+        for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+            assertEquals(1, entry.getKey() % 2);
+            assertEquals(-entry.getKey(), (int) entry.getValue());
+        }
+    }
+
+    private static void assertViewEquals(NavigableMap<Integer, Integer> expected, NavigableMap<Integer, Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.firstEntry(), actual.firstEntry());
+        assertEquals(expected.lastEntry(), actual.lastEntry());
+        for (int key = -1; key <= 101; key++) {
+            assertEquals(expected.containsKey(key), actual.containsKey(key));
+            assertEquals(expected.floorKey(key), actual.floorKey(key));
+            assertEquals(expected.lowerKey(key), actual.lowerKey(key));
+            assertEquals(expected.ceilingKey(key), actual.ceilingKey(key));
+            assertEquals(expected.higherKey(key), actual.higherKey(key));
+        }
+        assertEquals(expected.navigableKeySet().toString(), actual.navigableKeySet().toString());
+        assertEquals(expected.descendingKeySet().toString(), actual.descendingKeySet().toString());
+    }
+}
@@ -0,0 +1,122 @@
+package test;
+
+import org.junit.Test;
+import semisplay.SemiSplayListener;
+import semisplay.SemiSplayMetrics;
+import semisplay.SemiSplayTree;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SemiSplayMetricsTest {
+
+    @Test
+    public void pathLengthTest() {
+        // 4 is the root, 2 and 6 are on the second level and 1, 3, 5, 7 on the third
+        SemiSplayTree<Integer> tree = SemiSplayTree.fromSorted(Arrays.asList(1, 2, 3, 4, 5, 6, 7), 3);
+        SemiSplayMetrics metrics = new SemiSplayMetrics();
+        tree.setListener(metrics);
+        assertTrue(tree.contains(4));
+        assertEquals(1.0, metrics.getAveragePathLength(), 0);
+        assertEquals(0.0, metrics.getAverageSplaySteps(), 0);
+        assertTrue(tree.contains(1));
+        assertEquals(2.0, metrics.getAveragePathLength(), 0);
+        assertEquals(3, metrics.getMaxPathLength());
+        // the path 1, 2, 4 is exactly one window of 3 nodes, which gives the tree a new root
+        assertEquals(0.5, metrics.getAverageSplaySteps(), 0);
+        assertEquals((1 + 3 + 3) / 2.0, metrics.getAverageNodesTouched(), 0);
+        assertEquals(1, metrics.getRootChangeCount());
+        assertEquals(1, metrics.getRootChangeHistogram()[1]);
+        assertFalse(tree.contains(8));
+        assertEquals(3, metrics.getContainsCount());
+    }
+
+    @Test
+    public void missPathLengthTest() {
+        SemiSplayTree<Integer> tree = SemiSplayTree.fromSorted(Arrays.asList(1, 2, 3, 4, 5, 6, 7), 3);
+        final int[] pathLength = new int[1];
+        tree.setListener(new SemiSplayListener() {
+            @Override
+            public void onOperation(Operation operation, int length, int splaySteps, int nodesTouched) {
+                pathLength[0] = length;
+            }
+
+            @Override
+            public void onRootChange(int operationsSinceLastChange) {
+            }
+        });
+        // none of these change the tree, every search visits one node on each level
+        assertFalse(tree.contains(8));
+        assertEquals(3, pathLength[0]);
+        assertFalse(tree.remove(0));
+        assertEquals(3, pathLength[0]);
+        assertFalse(tree.add(5));
+        assertEquals(3, pathLength[0]);
+        // the new node is counted as well
+        assertTrue(tree.add(8));
+        assertEquals(4, pathLength[0]);
+    }
+
+    @Test
+    public void countTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        SemiSplayMetrics metrics = new SemiSplayMetrics();
+        tree.setListener(metrics);
+        for (int i = 0; i < 1000; i++) tree.add(i);
+        tree.add(5);
+        for (int i = 0; i < 1000; i += 2) tree.remove(i);
+        tree.remove(-1);
+        for (int i = 0; i < 1000; i++) tree.contains(i);
+        assertEquals(1001, metrics.getAddCount());
+        assertEquals(501, metrics.getRemoveCount());
+        assertEquals(1000, metrics.getContainsCount());
+        long histogramTotal = 0;
+        for (long bucket : metrics.getRootChangeHistogram()) histogramTotal += bucket;
+        assertEquals(metrics.getRootChangeCount(), histogramTotal);
+        assertTrue(metrics.getRootChangeCount() > 0);
+        metrics.reset();
+        assertEquals(0, metrics.getOperationCount());
+        tree.setListener(null);
+        tree.contains(1);
+        assertEquals(0, metrics.getOperationCount());
+    }
+
+    @Test
+    public void listenerTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        final int[] removes = new int[1];
+        tree.setListener(new SemiSplayListener() {
+            @Override
+            public void onOperation(Operation operation, int pathLength, int splaySteps, int nodesTouched) {
+                if (operation == Operation.REMOVE) removes[0]++;
+                assertEquals(pathLength + 3 * splaySteps, nodesTouched);
+            }
+
+            @Override
+            public void onRootChange(int operationsSinceLastChange) {
+                assertTrue(operationsSinceLastChange > 0);
+            }
+        });
+        for (int i = 0; i < 100; i++) tree.add(i * 7 % 100);
+        for (int i = 0; i < 100; i++) tree.remove(i);
+        assertEquals(100, removes[0]);
+    }
+
+    @Test
+    public void jmxTest() throws JMException {
+        SemiSplayMetrics metrics = new SemiSplayMetrics();
+        ObjectName name = metrics.register("jmxTest");
+        try {
+            SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+            tree.setListener(metrics);
+            tree.add(1);
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "AddCount"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package test;
+
+import org.junit.Test;
+import semisplay.SemiSplayTree;
+import semisplay.SemiSplayTreeCursor;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class SemiSplayTreeCursorTest {
+
+    @Test
+    public void seekTest() {
+        Random random = new Random(25);
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 2000; i++) {
+            int key = random.nextInt(10000);
+            tree.add(key);
+            expected.add(key);
+        }
+        SemiSplayTreeCursor<Integer> cursor = tree.cursor();
+        assertFalse(cursor.isValid());
+        int key = 5000;
+        for (int i = 0; i < 20000; i++) {
+            // mostly small steps, sometimes a jump
+            key = random.nextInt(20) == 0 ? random.nextInt(10200) - 100 : key + random.nextInt(41) - 20;
+            assertEquals(expected.contains(key), cursor.seek(key));
+            Integer ceiling = expected.ceiling(key);
+            assertEquals(ceiling != null, cursor.isValid());
+            if (ceiling != null) assertEquals(ceiling, cursor.getKey());
+        }
+    }
+
+    @Test
+    public void nextAndPrevTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(5);
+        for (int key = 0; key < 1000; key += 2) tree.add(key);
+        for (int key = 0; key < 1000; key += 3) tree.contains(key);
+        SemiSplayTreeCursor<Integer> cursor = tree.cursor();
+
+        assertTrue(cursor.first());
+        for (int key = 0; key < 1000; key += 2) {
+            assertEquals(key, (int) cursor.getKey());
+            assertEquals(key < 998, cursor.next());
+        }
+        assertFalse(cursor.isValid());
+
+        assertTrue(cursor.last());
+        for (int key = 998; key >= 0; key -= 2) {
+            assertEquals(key, (int) cursor.getKey());
+            assertEquals(key > 0, cursor.prev());
+        }
+        assertFalse(cursor.isValid());
+
+        assertFalse(cursor.seek(501));
+        assertEquals(502, (int) cursor.getKey());
+        assertTrue(cursor.prev());
+        assertEquals(500, (int) cursor.getKey());
+        assertFalse(cursor.seek(999));
+        assertFalse(cursor.isValid());
+        try {
+            cursor.next();
+            fail();
+        } catch (NoSuchElementException expected) {
+            // the cursor is not on a key
+        }
+    }
+
+    @Test
+    public void localityTest() {
+        Integer[] keys = new Integer[1 << 16];
+        for (int key = 0; key < keys.length; key++) keys[key] = key;
+        int[] comparisons = new int[1];
+        Comparator<Integer> counting = (key1, key2) -> {
+            comparisons[0]++;
+            return Integer.compare(key1, key2);
+        };
+        SemiSplayTree<Integer> tree = SemiSplayTree.fromSorted(Arrays.asList(keys), 3, counting);
+        SemiSplayTreeCursor<Integer> cursor = tree.cursor();
+        cursor.seek(0);
+
+        comparisons[0] = 0;
+        int seeks = 0;
+        for (int key = 0; key < keys.length; key += 3) {
+            assertTrue(cursor.seek(key));
+            seeks++;
+        }
+        // a search from the root needs about 16 comparisons, a seek to a key close by less than half of that on average
+        assertTrue("comparisons per seek: " + (double) comparisons[0] / seeks, comparisons[0] < 8 * seeks);
+    }
+
+    @Test
+    public void changedTreeTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        for (int key = 0; key < 100; key++) tree.add(key);
+        SemiSplayTreeCursor<Integer> cursor = tree.cursor();
+
+        // the key of the cursor is removed, next and prev continue from where it was
+        assertTrue(cursor.seek(50));
+        tree.remove(50);
+        assertTrue(cursor.next());
+        assertEquals(51, (int) cursor.getKey());
+        tree.remove(51);
+        assertTrue(cursor.prev());
+        assertEquals(49, (int) cursor.getKey());
+
+        // splays move the nodes around
+        for (int key = 0; key < 100; key += 7) tree.contains(key);
+        assertTrue(cursor.next());
+        assertEquals(52, (int) cursor.getKey());
+        assertTrue(cursor.seek(60));
+        tree.add(61);
+        tree.contains(99);
+        assertTrue(cursor.seek(61));
+
+        // a snapshot makes the tree copy the nodes it changes, the cursor moves on to the copies
+        tree.snapshot();
+        tree.contains(20);
+        assertTrue(cursor.next());
+        assertEquals(62, (int) cursor.getKey());
+        assertTrue(cursor.splay());
+        assertTrue(cursor.next());
+        assertEquals(63, (int) cursor.getKey());
+
+        tree.remove(63);
+        assertFalse(cursor.splay());
+        assertEquals(64, (int) cursor.getKey());
+
+        tree.clear();
+        assertFalse(cursor.next());
+        assertFalse(cursor.seek(1));
+    }
+
+    @Test
+    public void splayTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        for (int key = 0; key < 1000; key++) tree.add(key);
+        SemiSplayTreeCursor<Integer> cursor = tree.cursor();
+        assertTrue(cursor.seek(0));
+        int depth = tree.depth();
+        for (int i = 0; i < 10; i++) assertTrue(cursor.splay());
+        assertTrue(tree.depth() < depth);
+        assertEquals(0, (int) cursor.getKey());
+        assertTrue(cursor.next());
+        assertEquals(1, (int) cursor.getKey());
+        assertEquals(1000, tree.size());
+        int key = 0;
+        for (Integer treeKey : tree) assertEquals(key++, (int) treeKey);
+    }
+}
@@ -0,0 +1,181 @@
+package test;
+
+import org.junit.Test;
+import semisplay.KeyCodec;
+import semisplay.Node;
+import semisplay.SemiSplayTree;
+import semisplay.SemiSplayTreeSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SemiSplayTreeSerializerTest {
+
+    @Test
+    public void longRoundTripTest() throws IOException {
+        Random random = new Random(22);
+        SemiSplayTree<Long> tree = new SemiSplayTree<>(5);
+        for (int i = 0; i < 10000; i++) tree.add(random.nextLong());
+        tree.add(Long.MIN_VALUE);
+        tree.add(Long.MAX_VALUE);
+        for (int i = 0; i < 1000; i++) tree.contains(random.nextLong());
+
+        SemiSplayTree<Long> restored = SemiSplayTreeSerializer.read(channel(write(tree, KeyCodec.longs())), KeyCodec.longs());
+        assertSameShape(tree.getRoot(), restored.getRoot());
+        assertEquals(tree.size(), restored.size());
+        assertEquals(tree.getSplaySize(), restored.getSplaySize());
+        assertEquals(tree.depth(), restored.depth());
+        // the subtree sizes are restored as well
+        assertEquals(Long.MIN_VALUE, (long) restored.select(0));
+        assertEquals(tree.size() - 1, restored.rank(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void compactTest() throws IOException {
+        Integer[] keys = new Integer[100000];
+        for (int key = 0; key < keys.length; key++) keys[key] = key;
+        SemiSplayTree<Integer> tree = SemiSplayTree.fromSorted(Arrays.asList(keys), 3);
+        for (int key = 0; key < keys.length; key += 7) tree.contains(key);
+        byte[] bytes = write(tree, KeyCodec.integers());
+        // a header, 2 bits per node and 1 byte per key
+        assertEquals(16 + 100000 / 4 + 100000, bytes.length);
+        SemiSplayTree<Integer> restored = SemiSplayTreeSerializer.read(channel(bytes), KeyCodec.integers());
+        assertSameShape(tree.getRoot(), restored.getRoot());
+    }
+
+    @Test
+    public void comparatorAndStringsTest() throws IOException {
+        SemiSplayTree<String> tree = new SemiSplayTree<>(3, Comparator.reverseOrder());
+        for (String key : new String[]{"splay", "splayed", "semi", "semisplay", "tree", "", "\uD83C\uDF33 tree", "\uD83C\uDF32 tree", "\u00E9t\u00E9"}) {
+            tree.add(key);
+        }
+        tree.contains("semi");
+        SemiSplayTree<String> restored = SemiSplayTreeSerializer.read(channel(write(tree, KeyCodec.strings())), KeyCodec.strings(), Comparator.reverseOrder());
+        assertSameShape(tree.getRoot(), restored.getRoot());
+        assertTrue(restored.contains("semisplay"));
+        assertEquals("\uD83C\uDF33 tree", restored.first());
+    }
+
+    @Test
+    public void emptyTreeTest() throws IOException {
+        SemiSplayTree<Integer> restored = SemiSplayTreeSerializer.read(channel(write(new SemiSplayTree<>(7), KeyCodec.integers())), KeyCodec.integers());
+        assertEquals(0, restored.size());
+        assertEquals(7, restored.getSplaySize());
+        assertTrue(restored.add(1));
+    }
+
+    @Test
+    public void corruptStreamTest() throws IOException {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        for (int key = 0; key < 1000; key++) tree.add(key * 3);
+        byte[] bytes = write(tree, KeyCodec.integers());
+        try {
+            SemiSplayTreeSerializer.read(channel(Arrays.copyOf(bytes, bytes.length - 10)), KeyCodec.integers());
+            fail();
+        } catch (EOFException expected) {
+            // the last keys are missing
+        }
+        byte[] hugeSize = Arrays.copyOf(bytes, bytes.length);
+        Arrays.fill(hugeSize, 12, 16, (byte) 0xFF);
+        hugeSize[12] = 0x7F;
+        try {
+            SemiSplayTreeSerializer.read(channel(hugeSize), KeyCodec.integers());
+            fail();
+        } catch (EOFException expected) {
+            // a size of Integer.MAX_VALUE, the stream ends long before the shape does
+        }
+        bytes[0] = 0;
+        try {
+            SemiSplayTreeSerializer.read(channel(bytes), KeyCodec.integers());
+            fail();
+        } catch (StreamCorruptedException expected) {
+            // the magic number is wrong
+        }
+    }
+
+    @Test
+    public void corruptPrefixTest() throws IOException {
+        SemiSplayTree<String> tree = new SemiSplayTree<>(3);
+        tree.add("a");
+        tree.add("b");
+        // the header, 1 byte of shape, then per key the prefix, the length and the suffix
+        byte[] bytes = write(tree, KeyCodec.strings());
+        assertEquals(16 + 1 + 3 + 3, bytes.length);
+        for (int prefixIndex : new int[]{17, 20}) {
+            byte[] corrupt = Arrays.copyOf(bytes, bytes.length);
+            // there is no previous key for the first key, and the previous key of the second one is only 1 char long
+            corrupt[prefixIndex] = 2;
+            try {
+                SemiSplayTreeSerializer.read(channel(corrupt), KeyCodec.strings());
+                fail();
+            } catch (StreamCorruptedException expected) {
+                // the prefix is longer than the previous key
+            }
+        }
+    }
+
+    @Test
+    public void largeTreeTest() throws IOException {
+        int keys = 1000000;
+        Long[] sortedKeys = new Long[keys];
+        for (int i = 0; i < keys; i++) sortedKeys[i] = 3L * i;
+        SemiSplayTree<Long> tree = SemiSplayTree.fromSorted(Arrays.asList(sortedKeys), 3);
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) tree.contains(3L * random.nextInt(keys));
+        byte[] bytes = write(tree, KeyCodec.longs());
+
+        SemiSplayTree<Long> restored = SemiSplayTreeSerializer.read(channel(bytes), KeyCodec.longs());
+        assertEquals(keys, restored.size());
+        assertEquals(tree.getRoot().getKey(), restored.getRoot().getKey());
+        assertEquals(tree.depth(), restored.depth());
+    }
+
+    private static <E> byte[] write(SemiSplayTree<E> tree, KeyCodec<E> codec) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SemiSplayTreeSerializer.write(tree, Channels.newChannel(out), codec);
+        return out.toByteArray();
+    }
+
+    private static ReadableByteChannel channel(byte[] bytes) {
+        return Channels.newChannel(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Walks both trees in lockstep with an explicit stack, splayed trees can be far too deep for recursion.
+     */
+    private static <E> void assertSameShape(Node<E> expectedRoot, Node<E> actualRoot) {
+        Deque<Node<E>> expectedNodes = new ArrayDeque<>();
+        Deque<Node<E>> actualNodes = new ArrayDeque<>();
+        assertEquals(expectedRoot == null, actualRoot == null);
+        if (expectedRoot == null) return;
+        expectedNodes.push(expectedRoot);
+        actualNodes.push(actualRoot);
+        while (!expectedNodes.isEmpty()) {
+            Node<E> expected = expectedNodes.pop();
+            Node<E> actual = actualNodes.pop();
+            assertEquals(expected.getKey(), actual.getKey());
+            assertEquals(expected.getLeftChild() == null, actual.getLeftChild() == null);
+            assertEquals(expected.getRightChild() == null, actual.getRightChild() == null);
+            if (expected.getLeftChild() != null) {
+                expectedNodes.push(expected.getLeftChild());
+                actualNodes.push(actual.getLeftChild());
+            }
+            if (expected.getRightChild() != null) {
+                expectedNodes.push(expected.getRightChild());
+                actualNodes.push(actual.getRightChild());
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package test;
+
+import org.junit.Test;
+import semisplay.SearchTree;
+import semisplay.SemiSplayTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class SemiSplayTreeSnapshotTest {
+
+    @Test
+    public void snapshotDoesNotChangeTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        for (int key = 0; key < 100; key++) tree.add(key);
+        SearchTree<Integer> snapshot = tree.snapshot();
+        int depth = snapshot.depth();
+
+        for (int key = 0; key < 100; key += 3) tree.contains(key);
+        for (int key = 0; key < 100; key += 2) tree.remove(key);
+        for (int key = 100; key < 200; key++) tree.add(key);
+        tree.addAll(Arrays.asList(-3, -2, -1));
+        tree.removeAll(Arrays.asList(101, 103, 105));
+
+        assertEquals(100, snapshot.size());
+        assertEquals(depth, snapshot.depth());
+        Iterator<Integer> it = snapshot.iterator();
+        for (int key = 0; key < 100; key++) {
+            assertTrue(snapshot.contains(key));
+            assertEquals(key, (int) it.next());
+        }
+        assertFalse(it.hasNext());
+        assertFalse(snapshot.contains(100));
+        assertFalse(snapshot.contains(-1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsImmutableTest() {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        tree.add(1);
+        tree.snapshot().add(2);
+    }
+
+    @Test
+    public void randomOperationsTest() {
+        Random random = new Random(20);
+        for (int splaySize : new int[]{3, 5, 7}) {
+            SemiSplayTree<Integer> tree = new SemiSplayTree<>(splaySize);
+            tree.setDepthTracking(splaySize == 5);
+            TreeSet<Integer> expected = new TreeSet<>();
+            List<SearchTree<Integer>> snapshots = new ArrayList<>();
+            List<List<Integer>> expectedSnapshots = new ArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(1000);
+                switch (random.nextInt(5)) {
+                    case 0: assertEquals(expected.add(key), tree.add(key));
+                        break;
+                    case 1: assertEquals(expected.remove(key), tree.remove(key));
+                        break;
+                    case 2: assertEquals(expected.contains(key), tree.contains(key));
+                        break;
+                    case 3: assertEquals(expected.floor(key), tree.floor(key));
+                        break;
+                    default: if (i % 50 == 0) {
+                            snapshots.add(tree.snapshot());
+                            expectedSnapshots.add(new ArrayList<>(expected));
+                        }
+                }
+                assertEquals(expected.size(), tree.size());
+            }
+            assertEquals(new ArrayList<>(expected), toList(tree));
+            if (tree.isDepthTracking()) {
+                tree.setDepthTracking(false);
+                int depth = tree.depth();
+                tree.setDepthTracking(true);
+                assertEquals(depth, tree.depth());
+            }
+            for (int i = 0; i < snapshots.size(); i++) {
+                assertEquals(expectedSnapshots.get(i), toList(snapshots.get(i)));
+                assertEquals(expectedSnapshots.get(i).size(), snapshots.get(i).size());
+            }
+        }
+    }
+
+    @Test
+    public void concurrentScanTest() throws Exception {
+        SemiSplayTree<Integer> tree = new SemiSplayTree<>(3);
+        for (int key = 0; key < 100000; key++) tree.add(key);
+        SearchTree<Integer> snapshot = tree.snapshot();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> scan = executor.submit(() -> {
+                long sum = 0;
+                for (int round = 0; round < 5; round++) {
+                    for (int key : snapshot) sum += key;
+                }
+                return sum;
+            });
+            // the writer keeps splaying and changing the tree during the scan
+            Random random = new Random(1);
+            for (int i = 0; i < 200000; i++) {
+                int key = random.nextInt(200000);
+                if (random.nextBoolean()) tree.add(key);
+                else tree.remove(key);
+                tree.contains(random.nextInt(200000));
+            }
+            assertEquals(5L * 99999 * 100000 / 2, (long) scan.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<Integer> toList(Iterable<Integer> keys) {
+        List<Integer> list = new ArrayList<>();
+        for (int key : keys) list.add(key);
+        return list;
+    }
+}
@@ -511,4 +511,177 @@ public class SemiSplayTreeTest {
         assertEquals(4, rightChild.getLeftChild().getKey());
         assertEquals(6, rightChild.getRightChild().getKey());
     }
+    @Test
+    public void bulkLoadTest() {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = bigTestAmount - 1; i >= 0; i--) {
+            keys.add(i);
+            keys.add(i);
+        }
+        SemiSplayTree<Integer> bulkTree = SemiSplayTree.bulkLoad(keys, 3);
+        assertEquals(bigTestAmount, bulkTree.size());
+        // a perfectly balanced tree of 100000 keys
+        assertEquals(16, bulkTree.depth());
+        int expected = 0;
+        for (int key : bulkTree) assertEquals(expected++, key);
+        assertEquals(bigTestAmount, expected);
+        for (int i = 0; i < bigTestAmount; i += 2) assertTrue(bulkTree.remove(i));
+        for (int i = 0; i < bigTestAmount; i++) assertEquals(i % 2 == 1, bulkTree.contains(i));
+        assertTrue(bulkTree.add(-1));
+        assertEquals(bigTestAmount / 2 + 1, bulkTree.size());
+    }
+
+    @Test
+    public void fromSortedTest() {
+        SemiSplayTree<Integer> sortedTree = SemiSplayTree.fromSorted(Arrays.asList(1, 2, 3, 4, 5, 6, 7), 3);
+        Node root = sortedTree.getRoot();
+        assertEquals(4, root.getKey());
+        assertEquals(2, root.getLeftChild().getKey());
+        assertEquals(1, root.getLeftChild().getLeftChild().getKey());
+        assertEquals(3, root.getLeftChild().getRightChild().getKey());
+        assertEquals(6, root.getRightChild().getKey());
+        assertEquals(5, root.getRightChild().getLeftChild().getKey());
+        assertEquals(7, root.getRightChild().getRightChild().getKey());
+        assertTrue(sortedTree.contains(7));
+        assertEquals(7, sortedTree.size());
+        assertEquals(-1, SemiSplayTree.fromSorted(new ArrayList<Integer>(), 3).depth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromSortedUnsortedTest() {
+        SemiSplayTree.fromSorted(Arrays.asList(1, 3, 2), 3);
+    }
+
+    @Test
+    public void batchTest() {
+        SemiSplayTree<Integer> batchTree = new SemiSplayTree<>(5);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            List<Integer> keys = new ArrayList<>();
+            int amount = random.nextInt(200);
+            for (int i = 0; i < amount; i++) keys.add(random.nextInt(2000));
+            BitSet result;
+            switch (random.nextInt(3)) {
+                case 0: result = batchTree.addAll(keys);
+                    for (int i = 0; i < keys.size(); i++) assertEquals(expected.add(keys.get(i)), result.get(i));
+                    break;
+                case 1: result = batchTree.containsAll(keys);
+                    for (int i = 0; i < keys.size(); i++) assertEquals(expected.contains(keys.get(i)), result.get(i));
+                    break;
+                default: result = batchTree.removeAll(keys);
+                    for (int i = 0; i < keys.size(); i++) assertEquals(expected.remove(keys.get(i)), result.get(i));
+            }
+            assertEquals(expected.size(), batchTree.size());
+            assertEquals(expected.size(), assertSearchTree(batchTree.getRoot(), Integer.MIN_VALUE, Integer.MAX_VALUE));
+            Iterator<Integer> it = batchTree.iterator();
+            for (int key : expected) assertEquals(key, (int) it.next());
+            assertFalse(it.hasNext());
+        }
+    }
+
+    @Test
+    public void batchDuplicatesTest() {
+        BitSet added = semiSplayTree.addAll(Arrays.asList(5, 3, 5, 8, 3));
+        assertEquals(new BitSet() {{ set(0); set(1); set(3); }}, added);
+        assertEquals(4, semiSplayTree.size());
+        BitSet found = semiSplayTree.containsAll(Arrays.asList(3, 4, 3));
+        assertEquals(new BitSet() {{ set(0); set(2); }}, found);
+        BitSet removed = semiSplayTree.removeAll(Arrays.asList(8, 8, 1));
+        assertEquals(new BitSet() {{ set(0); }}, removed);
+        assertEquals(3, semiSplayTree.size());
+    }
+
+    @Test
+    public void depthTrackingTest() {
+        for (int splaySize : new int[]{3, 4, 7}) {
+            SemiSplayTree<Integer> trackedTree = SemiSplayTree.bulkLoad(Arrays.asList(5, 1, 9, 3, 7), splaySize);
+            trackedTree.setDepthTracking(true);
+            assertEquals(2, trackedTree.depth());
+            Random random = new Random(splaySize);
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(500);
+                switch (random.nextInt(4)) {
+                    case 0: trackedTree.add(key);
+                        break;
+                    case 1: trackedTree.contains(key);
+                        break;
+                    case 2: trackedTree.remove(key);
+                        break;
+                    default: trackedTree.addAll(Arrays.asList(key, key + 3, key + 50));
+                        trackedTree.removeAll(Arrays.asList(key + 1, key + 7));
+                }
+                if (i % 100 == 0) assertEquals(height(trackedTree.getRoot()), trackedTree.depth());
+            }
+            int trackedDepth = trackedTree.depth();
+            trackedTree.setDepthTracking(false);
+            assertEquals(trackedDepth, trackedTree.depth());
+            // the nodes added without tracking get a height when it is turned on again
+            for (int key = 500; key < 600; key++) trackedTree.add(key);
+            int size = trackedTree.size();
+            trackedTree.setDepthTracking(true);
+            assertEquals(height(trackedTree.getRoot()), trackedTree.depth());
+            assertEquals(size, trackedTree.size());
+            for (int key = 500; key < 600; key++) assertTrue(trackedTree.contains(key));
+            assertEquals(height(trackedTree.getRoot()), trackedTree.depth());
+        }
+    }
+
+    @Test
+    public void comparatorTest() {
+        SemiSplayTree<String> caseInsensitive = new SemiSplayTree<>(3, String.CASE_INSENSITIVE_ORDER);
+        assertTrue(caseInsensitive.add("b"));
+        assertTrue(caseInsensitive.add("A"));
+        assertFalse(caseInsensitive.add("B"));
+        assertTrue(caseInsensitive.contains("a"));
+        assertEquals("A", caseInsensitive.first());
+        assertTrue(caseInsensitive.remove("a"));
+        assertEquals(1, caseInsensitive.size());
+
+        // the keys don't have to be Comparable
+        SemiSplayTree<int[]> reversed = new SemiSplayTree<>(3, (a, b) -> Integer.compare(b[0], a[0]));
+        for (int i = 0; i < 1000; i++) reversed.add(new int[]{i * 7 % 1000});
+        assertTrue(reversed.contains(new int[]{500}));
+        int expected = 999;
+        for (int[] key : reversed) assertEquals(expected--, key[0]);
+        assertEquals(-1, expected);
+        reversed.removeAll(Arrays.asList(new int[]{999}, new int[]{998}));
+        assertEquals(997, reversed.first()[0]);
+
+        SemiSplayTree<Integer> descending = SemiSplayTree.bulkLoad(Arrays.asList(1, 3, 2, 3), 3, Comparator.reverseOrder());
+        assertEquals(3, (int) descending.first());
+        assertEquals(1, (int) descending.select(2));
+        assertNotNull(descending.comparator());
+        assertNull(semiSplayTree.comparator());
+    }
+
+    @Test
+    public void singleComparisonPerNodeTest() {
+        int[] comparisons = {0};
+        Comparator<Integer> counting = (a, b) -> {
+            comparisons[0]++;
+            return Integer.compare(a, b);
+        };
+        // a perfectly balanced tree with 4 as root, 2 and 6 below it and 1, 3, 5, 7 as leaves
+        SemiSplayTree<Integer> countedTree = SemiSplayTree.fromSorted(Arrays.asList(1, 2, 3, 4, 5, 6, 7), 3, counting);
+        comparisons[0] = 0;
+        assertTrue(countedTree.contains(1));
+        assertEquals(3, comparisons[0]);
+        // the splay itself doesn't compare keys
+        comparisons[0] = 0;
+        assertFalse(countedTree.add(countedTree.getRoot().getKey()));
+        assertEquals(1, comparisons[0]);
+    }
+
+    private int height(Node<Integer> node) {
+        if (node == null) return -1;
+        return 1 + Math.max(height(node.getLeftChild()), height(node.getRightChild()));
+    }
+
+    private int assertSearchTree(Node<Integer> node, int lowerBound, int upperBound) {
+        if (node == null) return 0;
+        assertTrue(lowerBound < node.getKey() && node.getKey() < upperBound);
+        return 1 + assertSearchTree(node.getLeftChild(), lowerBound, node.getKey())
+                + assertSearchTree(node.getRightChild(), node.getKey(), upperBound);
+    }
 }
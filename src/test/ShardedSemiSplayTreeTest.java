@@ -0,0 +1,107 @@
+package test;
+
+import org.junit.Test;
+import semisplay.ShardedSemiSplayTree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ShardedSemiSplayTreeTest {
+
+    private static final int BIG_TEST_AMOUNT = 100000;
+
+    @Test
+    public void addContainsRemoveTest() {
+        ShardedSemiSplayTree<Integer> tree = new ShardedSemiSplayTree<>(3, 4);
+        assertTrue(tree.add(5));
+        assertFalse(tree.add(5));
+        assertTrue(tree.contains(5));
+        assertFalse(tree.contains(4));
+        assertTrue(tree.remove(5));
+        assertFalse(tree.remove(5));
+        assertEquals(0, tree.size());
+        assertEquals(-1, tree.depth());
+    }
+
+    @Test
+    public void skewedInputIsRepartitionedTest() {
+        ShardedSemiSplayTree<Integer> tree = new ShardedSemiSplayTree<>(3, 4);
+        assertEquals(1, tree.getShardCount());
+        // ascending keys all end up in the last shard, which forces repartitioning
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.add(i));
+        assertEquals(4, tree.getShardCount());
+        assertEquals(BIG_TEST_AMOUNT, tree.size());
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.contains(i));
+        int expected = 0;
+        for (int key : tree) assertEquals(expected++, key);
+        assertEquals(BIG_TEST_AMOUNT, expected);
+    }
+
+    @Test
+    public void splitKeepsOtherShardsTest() {
+        ShardedSemiSplayTree<Integer> tree = new ShardedSemiSplayTree<>(3, 8);
+        Random random = new Random(7);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) {
+            // mostly random keys, with bursts of ascending keys that all land in the last shard
+            int key = i % 10000 < 2000 ? BIG_TEST_AMOUNT + i : random.nextInt(BIG_TEST_AMOUNT);
+            assertEquals(expected.add(key), tree.add(key));
+            if (i % 7 == 0) assertEquals(expected.remove(i), tree.remove(i));
+        }
+        assertEquals(8, tree.getShardCount());
+        assertEquals(expected.size(), tree.size());
+        Iterator<Integer> it = tree.iterator();
+        for (int key : expected) assertEquals(key, (int) it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void rebalanceTest() {
+        ShardedSemiSplayTree<Integer> tree = new ShardedSemiSplayTree<>(3, 8);
+        for (int i = 0; i < 100; i++) tree.add(i);
+        tree.rebalance();
+        assertEquals(8, tree.getShardCount());
+        for (int i = 0; i < 100; i++) assertTrue(tree.contains(i));
+        assertTrue(tree.add(-1));
+        assertTrue(tree.add(1000));
+        Iterator<Integer> it = tree.iterator();
+        assertEquals(-1, (int) it.next());
+        for (int i = 0; i < 100; i++) assertEquals(i, (int) it.next());
+        assertEquals(1000, (int) it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        int threads = 4;
+        ShardedSemiSplayTree<Integer> tree = new ShardedSemiSplayTree<>(3, threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = thread; i < BIG_TEST_AMOUNT; i += threads) {
+                        assertTrue(tree.add(i));
+                        assertTrue(tree.contains(i));
+                    }
+                    for (int i = thread; i < BIG_TEST_AMOUNT; i += 2 * threads) assertTrue(tree.remove(i));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(BIG_TEST_AMOUNT / 2, tree.size());
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertEquals(i % (2 * threads) >= threads, tree.contains(i));
+    }
+}
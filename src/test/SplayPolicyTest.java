@@ -0,0 +1,82 @@
+package test;
+
+import org.junit.Test;
+import semisplay.ConcurrentSemiSplayTree;
+import semisplay.SemiSplayTree;
+import semisplay.SplayPolicy;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SplayPolicyTest {
+
+    private SemiSplayTree<Integer> balancedTree() {
+        // 8 is the root, 4 and 12 are at depth 1, 2, 6, 10 and 14 at depth 2, the odd keys are the leaves at depth 3
+        // splaying 2 restructures the path 2, 4, 8, which makes 4 the root
+        return SemiSplayTree.fromSorted(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15), 3);
+    }
+
+    @Test
+    public void alwaysTest() {
+        SemiSplayTree<Integer> tree = balancedTree();
+        tree.setSplayPolicy(SplayPolicy.always());
+        assertTrue(tree.contains(2));
+        assertEquals(4, (int) tree.getRoot().getKey());
+    }
+
+    @Test
+    public void neverTest() {
+        SemiSplayTree<Integer> tree = balancedTree();
+        tree.setSplayPolicy(SplayPolicy.probability(0));
+        for (int key = 1; key <= 15; key++) assertTrue(tree.contains(key));
+        assertFalse(tree.contains(16));
+        assertEquals(8, (int) tree.getRoot().getKey());
+        assertEquals(3, tree.depth());
+        // add and remove still splay
+        assertTrue(tree.add(0));
+        assertNotEquals(8, (int) tree.getRoot().getKey());
+    }
+
+    @Test
+    public void depthThresholdTest() {
+        SemiSplayTree<Integer> tree = balancedTree();
+        // floor(log2(15)) = 3, so only nodes deeper than 3 are splayed
+        tree.setSplayPolicy(SplayPolicy.depthThreshold(1.0));
+        assertTrue(tree.contains(2));
+        assertEquals(8, (int) tree.getRoot().getKey());
+        assertTrue(tree.add(0));
+        Integer root = tree.getRoot().getKey();
+        // with factor 0 every node below the root is deep enough
+        tree.setSplayPolicy(SplayPolicy.depthThreshold(0.0));
+        assertTrue(tree.contains(root));
+        assertEquals(root, tree.getRoot().getKey());
+        assertTrue(tree.contains(15));
+        assertNotEquals(root, tree.getRoot().getKey());
+    }
+
+    @Test
+    public void everyNthTest() {
+        SemiSplayTree<Integer> tree = balancedTree();
+        tree.setSplayPolicy(SplayPolicy.everyNth(3));
+        assertTrue(tree.contains(1));
+        assertTrue(tree.contains(1));
+        assertEquals(8, (int) tree.getRoot().getKey());
+        assertTrue(tree.contains(2));
+        assertEquals(4, (int) tree.getRoot().getKey());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidProbabilityTest() {
+        SplayPolicy.probability(1.5);
+    }
+
+    @Test
+    public void concurrentPolicyTest() {
+        ConcurrentSemiSplayTree<Integer> tree = new ConcurrentSemiSplayTree<>(3, SplayPolicy.everyNth(10));
+        for (int i = 0; i < 1000; i++) assertTrue(tree.add(i));
+        for (int i = 0; i < 1000; i++) assertTrue(tree.contains(i));
+        assertFalse(tree.contains(1000));
+        assertEquals(1000, tree.size());
+    }
+}
@@ -0,0 +1,94 @@
+package test;
+
+import org.junit.Test;
+import semisplay.SearchTree;
+import semisplay.TopDownNode;
+import semisplay.TopDownSemiSplayTree;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class TopDownSemiSplayTreeTest {
+
+    private static final int BIG_TEST_AMOUNT = 100000;
+
+    @Test
+    public void addContainsRemoveTest() {
+        SearchTree<Integer> tree = new TopDownSemiSplayTree<>(0, 3);
+        assertTrue(tree.add(5));
+        assertFalse(tree.add(5));
+        assertTrue(tree.contains(5));
+        assertFalse(tree.contains(4));
+        assertEquals(2, tree.size());
+        assertTrue(tree.remove(0));
+        assertFalse(tree.remove(0));
+        assertEquals(1, tree.size());
+        assertEquals(0, tree.depth());
+        assertTrue(tree.remove(5));
+        assertEquals(-1, tree.depth());
+    }
+
+    @Test
+    public void splayStepTest() {
+        // adding in ascending order builds a path down to the right, looking up its bottom halves its length
+        TopDownSemiSplayTree<Integer> tree = new TopDownSemiSplayTree<>(3);
+        for (int i = 0; i < 7; i++) tree.add(i);
+        assertTrue(tree.depth() < 6);
+        for (int i = 0; i < 7; i++) assertTrue(tree.contains(i));
+        TopDownSemiSplayTree<Integer> path = new TopDownSemiSplayTree<>(3);
+        path.add(0);
+        path.add(1);
+        path.add(2);
+        // the window 0, 1, 2 is only restructured when the search continues below it
+        assertEquals(2, path.depth());
+        assertTrue(path.add(3));
+        TopDownNode<Integer> root = path.getRoot();
+        assertEquals(1, (int) root.getKey());
+        assertEquals(0, (int) root.getLeftChild().getKey());
+        assertEquals(2, (int) root.getRightChild().getKey());
+        assertEquals(3, (int) root.getRightChild().getRightChild().getKey());
+    }
+
+    @Test
+    public void randomOperationsTest() {
+        for (int splaySize : new int[]{3, 4, 7}) {
+            TopDownSemiSplayTree<Integer> tree = new TopDownSemiSplayTree<>(splaySize);
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random(splaySize);
+            for (int i = 0; i < BIG_TEST_AMOUNT; i++) {
+                int key = random.nextInt(5000);
+                switch (random.nextInt(3)) {
+                    case 0: assertEquals(expected.add(key), tree.add(key));
+                        break;
+                    case 1: assertEquals(expected.contains(key), tree.contains(key));
+                        break;
+                    default: assertEquals(expected.remove(key), tree.remove(key));
+                }
+            }
+            assertEquals(expected.size(), tree.size());
+            assertEquals(height(tree.getRoot()), tree.depth());
+            // depth must leave the tree as it was
+            assertEquals(height(tree.getRoot()), tree.depth());
+            Iterator<Integer> it = tree.iterator();
+            for (int key : expected) assertEquals(key, (int) it.next());
+            assertFalse(it.hasNext());
+        }
+    }
+
+    @Test
+    public void sequentialTest() {
+        TopDownSemiSplayTree<Integer> tree = new TopDownSemiSplayTree<>(3);
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.add(i));
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.contains(i));
+        for (int i = 0; i < BIG_TEST_AMOUNT; i++) assertTrue(tree.remove(i));
+        assertEquals(0, tree.size());
+    }
+
+    private int height(TopDownNode<Integer> node) {
+        if (node == null) return -1;
+        return 1 + Math.max(height(node.getLeftChild()), height(node.getRightChild()));
+    }
+}
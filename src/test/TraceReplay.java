@@ -0,0 +1,114 @@
+package test;
+
+import semisplay.KeyCodec;
+import semisplay.SearchTree;
+import semisplay.TraceReader;
+import semisplay.TraceRecorder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ * Replays a trace recorded by TraceRecorder against a SearchTree and measures every operation.
+ * The trace is streamed from a mapped file by TraceReader, so its size is not limited by the heap.
+ * Only the operations on the tree are timed, decoding the trace is not.
+ */
+class TraceReplay {
+
+    // the names of TraceRecorder.ADD, CONTAINS and REMOVE
+    static final String[] OPERATIONS = {"add", "contains", "remove"};
+
+    private TraceReplay() {
+    }
+
+    static <E> Result replay(String name, Path trace, KeyCodec<E> codec, SearchTree<E> tree) throws IOException {
+        LatencyHistogram[] histograms = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+        long mismatches = 0;
+        long totalTime = 0;
+        try (TraceReader<E> reader = new TraceReader<>(trace, codec)) {
+            while (reader.next()) {
+                E key = reader.getKey();
+                int operation = reader.getOperation();
+                boolean result;
+                long start = System.nanoTime();
+                switch (operation) {
+                    case TraceRecorder.ADD: result = tree.add(key);
+                        break;
+                    case TraceRecorder.CONTAINS: result = tree.contains(key);
+                        break;
+                    default: result = tree.remove(key);
+                }
+                long latency = System.nanoTime() - start;
+                totalTime += latency;
+                histograms[operation].record(latency);
+                // the tree starts empty, so it only returns something else than the recorded tree if that one didn't
+                if (result != reader.getResult()) mismatches++;
+            }
+        }
+        return new Result(name, histograms, totalTime, mismatches);
+    }
+
+    /**
+     * @return a SearchTree backed by a java.util.TreeSet, the baseline the semi-splay trees are compared with.
+     */
+    static <E> SearchTree<E> treeSet() {
+        return new SearchTree<E>() {
+            private final TreeSet<E> set = new TreeSet<>();
+
+            @Override
+            public boolean add(E e) { return set.add(e); }
+
+            @Override
+            public boolean contains(E e) { return set.contains(e); }
+
+            @Override
+            public boolean remove(E e) { return set.remove(e); }
+
+            @Override
+            public int size() { return set.size(); }
+
+            // a red-black tree doesn't expose its depth
+            @Override
+            public int depth() { return -1; }
+
+            @Override
+            public Iterator<E> iterator() { return set.iterator(); }
+        };
+    }
+
+    static class Result {
+        final String name;
+        // per operation, indexed by TraceRecorder.ADD, CONTAINS and REMOVE
+        final LatencyHistogram[] histograms;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final long totalTime;
+        final long mismatches;
+
+        private Result(String name, LatencyHistogram[] histograms, long totalTime, long mismatches) {
+            this.name = name;
+            this.histograms = histograms;
+            for (LatencyHistogram operationHistogram : histograms) this.histogram.add(operationHistogram);
+            this.totalTime = totalTime;
+            this.mismatches = mismatches;
+        }
+
+        double throughput() {
+            return totalTime == 0 ? 0 : 1e9 * histogram.getTotalCount() / totalTime;
+        }
+
+        /**
+         * A line for all operations followed by a line per operation, see LatencyHistogram.summary.
+         */
+        @Override
+        public String toString() {
+            StringBuilder lines = new StringBuilder();
+            lines.append(name).append(" operation=all throughput=").append(Math.round(throughput())).append(' ').append(histogram.summary());
+            for (int operation = 0; operation < OPERATIONS.length; operation++) {
+                lines.append('\n').append(name).append(" operation=").append(OPERATIONS[operation]).append(' ').append(histograms[operation].summary());
+            }
+            return lines.toString();
+        }
+    }
+}
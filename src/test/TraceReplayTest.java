@@ -0,0 +1,152 @@
+package test;
+
+import org.junit.Test;
+import semisplay.KeyCodec;
+import semisplay.SemiSplayTree;
+import semisplay.TopDownSemiSplayTree;
+import semisplay.TraceReader;
+import semisplay.TraceRecorder;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TraceReplayTest {
+
+    @Test
+    public void recordAndReadTest() throws IOException {
+        Path file = Files.createTempFile("semisplay", ".trace");
+        try {
+            List<int[]> expected = record(file, 20000, 1);
+            // a small window, so records are split over windows all the time
+            try (TraceReader<Integer> reader = new TraceReader<>(file, KeyCodec.integers(), 64)) {
+                for (int[] operation : expected) {
+                    assertTrue(reader.next());
+                    assertEquals(operation[0], reader.getOperation());
+                    assertEquals(operation[1], (int) reader.getKey());
+                    assertEquals(operation[2] == 1, reader.getResult());
+                }
+                assertFalse(reader.next());
+                assertEquals(expected.size(), reader.getOperations());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void corruptTraceTest() throws IOException {
+        Path file = Files.createTempFile("semisplay", ".trace");
+        try {
+            record(file, 100, 2);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 1);
+            }
+            try (TraceReader<Integer> reader = new TraceReader<>(file, KeyCodec.integers())) {
+                while (reader.next()) {
+                    assertTrue(reader.getOperations() < 100);
+                }
+                fail();
+            } catch (EOFException expected) {
+                // the last record is incomplete
+            }
+            // a record with operation 3, which doesn't exist
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[]{3, 0}), 8);
+            }
+            try (TraceReader<Integer> reader = new TraceReader<>(file, KeyCodec.integers())) {
+                reader.next();
+                fail();
+            } catch (StreamCorruptedException expected) {
+                // the operation is unknown
+            }
+            Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+            try {
+                new TraceReader<>(file, KeyCodec.integers()).close();
+                fail();
+            } catch (StreamCorruptedException expected) {
+                // the magic number is wrong
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void replayTest() throws IOException {
+        Path file = Files.createTempFile("semisplay", ".trace");
+        try {
+            int operations = 500000;
+            record(file, operations, 3);
+            List<TraceReplay.Result> results = new ArrayList<>();
+            for (int splaySize : new int[]{3, 7, 15}) {
+                results.add(TraceReplay.replay("tree=SemiSplayTree splaySize=" + splaySize, file, KeyCodec.integers(), new SemiSplayTree<>(splaySize)));
+            }
+            results.add(TraceReplay.replay("tree=TopDownSemiSplayTree splaySize=3", file, KeyCodec.integers(), new TopDownSemiSplayTree<>(3)));
+            results.add(TraceReplay.replay("tree=TreeSet", file, KeyCodec.integers(), TraceReplay.treeSet()));
+            for (TraceReplay.Result result : results) {
+                assertEquals(operations, result.histogram.getTotalCount());
+                assertEquals(0, result.mismatches);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void histogramTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100000; value++) histogram.record(value);
+        assertEquals(100000, histogram.getTotalCount());
+        assertEquals(100000, histogram.getMaxValue());
+        assertEquals(50000.5, histogram.getMean(), 1e-9);
+        // the buckets are less than 1/64 of their value wide
+        assertEquals(50000, histogram.getValueAtPercentile(50), 50000 / 64);
+        assertEquals(99000, histogram.getValueAtPercentile(99), 99000 / 64);
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+        assertEquals("count=100000 mean=50001 p50=" + histogram.getValueAtPercentile(50) + " p99=" + histogram.getValueAtPercentile(99)
+                + " p99.9=" + histogram.getValueAtPercentile(99.9) + " max=100000", histogram.summary());
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    /**
+     * Records a workload with locality: most operations hit a key close to the previous one.
+     * @return the recorded operations as {operation, key, result}.
+     */
+    private static List<int[]> record(Path file, int operations, long seed) throws IOException {
+        Random random = new Random(seed);
+        List<int[]> recorded = new ArrayList<>();
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try (TraceRecorder<Integer> recorder = new TraceRecorder<>(new SemiSplayTree<>(3), channel, KeyCodec.integers())) {
+            int key = 0;
+            for (int i = 0; i < operations; i++) {
+                key = random.nextInt(10) == 0 ? random.nextInt(100000) : key + random.nextInt(21) - 10;
+                int operation = random.nextInt(10) < 2 ? TraceRecorder.ADD : random.nextInt(10) == 0 ? TraceRecorder.REMOVE : TraceRecorder.CONTAINS;
+                boolean result;
+                switch (operation) {
+                    case TraceRecorder.ADD: result = recorder.add(key);
+                        break;
+                    case TraceRecorder.CONTAINS: result = recorder.contains(key);
+                        break;
+                    default: result = recorder.remove(key);
+                }
+                recorded.add(new int[]{operation, key, result ? 1 : 0});
+            }
+            assertEquals(operations, recorder.getOperations());
+        }
+        return recorded;
+    }
+}